@@ -0,0 +1,366 @@
+package monkey;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import monkey.ai.AI;
+import monkey.ai.Player;
+import monkey.mnk.Board;
+import monkey.mnk.Position;
+
+/**
+ * A benchmark class for the whole {@link monkey} package. It uses the same
+ * m,n,k configurations of {@link Tester}.
+ *
+ * @author Stefano Volpe
+ * @version 1.0
+ * @since 1.0
+ */
+public class Benchmark {
+
+	/**
+	 * This class cannot be instantiated.
+	 *
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	private Benchmark() {
+	}
+
+	/**
+	 * Runs the benchmarks.
+	 *
+	 * @param args An optional depth for time-to-depth measurements, followed by
+	 *             optional numbers of threads to compare.
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	public static void main(String[] args) {
+		final int depth = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULTDEPTH;
+		final int[] threads;
+		if (args.length > 1) {
+			threads = new int[args.length - 1];
+			for (int i = 1; i < args.length; ++i)
+				threads[i - 1] = Integer.parseInt(args[i]);
+		} else
+			threads = new int[] { 1, Runtime.getRuntime().availableProcessors() };
+		System.out.println("MoNKey benchmarks");
+		System.out.println("Lazy SMP time-to-depth (depth " + depth + ")");
+		for (int[] c : CONFIGURATIONS)
+			lazySMPTest(c[0], c[1], c[2], depth, threads);
+		System.out.println("Engines time-to-depth and inspected nodes (depth " + depth + ")");
+		for (int[] c : CONFIGURATIONS)
+			engineTest(c[0], c[1], c[2], depth);
+		System.out.println("Move ordering effective branching factor (depth " + depth + ")");
+		for (int[] c : CONFIGURATIONS)
+			orderingTest(c[0], c[1], c[2], depth);
+		System.out.println("Nodes per second (" + NPSTIMELIMIT + "ms per search)");
+		for (int[] c : NPSCONFIGURATIONS)
+			nodesPerSecondTest(c[0], c[1], c[2], NPSTIMELIMIT);
+		System.out.println("Reached depth per move (" + DEPTHTIMELIMIT + "ms per move)");
+		for (int[] c : DEPTHCONFIGURATIONS)
+			reachedDepthTest(c[0], c[1], c[2], DEPTHMOVES, DEPTHTIMELIMIT);
+		System.out.println("Pondering hits and reached depth (" + DEPTHTIMELIMIT + "ms per move)");
+		for (int[] c : DEPTHCONFIGURATIONS)
+			ponderTest(c[0], c[1], c[2], DEPTHMOVES, DEPTHTIMELIMIT);
+	}
+
+	/**
+	 * Measures the time needed by {@link AI#iterativeDeepeningSearch(int)} to
+	 * reach a certain depth with different numbers of threads, and prints the
+	 * speedup over the first one. The search starts right after the first move of
+	 * the game.
+	 *
+	 * @param m       The number of rows.
+	 * @param n       The number of columns.
+	 * @param k       The length of a winning alignment.
+	 * @param depth   The depth to be reached.
+	 * @param threads The numbers of threads to be compared.
+	 * @throws IllegalArgumentException At least one of the arguments is not
+	 *                                  strictly positive.
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	protected static void lazySMPTest(int m, int n, int k, int depth, int[] threads) {
+		if (m <= 0 || n <= 0 || k <= 0 || depth <= 0)
+			throw new IllegalArgumentException("At least one of the arguments is not strictly positive.");
+		System.out.print(m + "," + n + "," + k + "-game:");
+		long baseline = 0;
+		for (int t : threads) {
+			final AI<Board, Position> ai = new AI<Board, Position>(Player.P2, openedBoard(m, n, k), Long.MAX_VALUE,
+					TTMEGABYTES);
+			ai.setThreads(t);
+			final long startTime = System.nanoTime();
+			ai.iterativeDeepeningSearch(depth);
+			final long elapsed = System.nanoTime() - startTime;
+			if (baseline == 0)
+				baseline = elapsed;
+			System.out.printf(" %d🧵 %s (×%.2f)", t, formatNanoseconds(elapsed), (double) baseline / elapsed);
+		}
+		System.out.println();
+	}
+
+	/**
+	 * Measures the time and the number of nodes needed by
+	 * {@link AI#iterativeDeepeningSearch(int)} to reach a certain depth with each
+	 * sequential {@link AI.Engine}. The search starts right after the first move
+	 * of the game.
+	 *
+	 * @param m     The number of rows.
+	 * @param n     The number of columns.
+	 * @param k     The length of a winning alignment.
+	 * @param depth The depth to be reached.
+	 * @throws IllegalArgumentException At least one of the arguments is not
+	 *                                  strictly positive.
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	protected static void engineTest(int m, int n, int k, int depth) {
+		if (m <= 0 || n <= 0 || k <= 0 || depth <= 0)
+			throw new IllegalArgumentException("At least one of the arguments is not strictly positive.");
+		System.out.print(m + "," + n + "," + k + "-game:");
+		for (AI.Engine e : SEQUENTIALENGINES) {
+			final AI<Board, Position> ai = new AI<Board, Position>(Player.P2, openedBoard(m, n, k), Long.MAX_VALUE,
+					TTMEGABYTES);
+			ai.setEngine(e);
+			final long startTime = System.nanoTime();
+			ai.iterativeDeepeningSearch(depth);
+			final long elapsed = System.nanoTime() - startTime;
+			System.out.print(" " + e + " " + formatNanoseconds(elapsed) + " " + ai.getInspectedNodes() + "🌳");
+		}
+		System.out.println();
+	}
+
+	/**
+	 * Compares the number of nodes needed by
+	 * {@link AI#iterativeDeepeningSearch(int)} to reach a certain depth with and
+	 * without dynamic move ordering, and prints the effective branching factor
+	 * of each search, i.e. the depth-th root of its number of nodes. The search
+	 * starts right after the first move of the game.
+	 *
+	 * @see AI#setMoveOrdering
+	 * @param m     The number of rows.
+	 * @param n     The number of columns.
+	 * @param k     The length of a winning alignment.
+	 * @param depth The depth to be reached.
+	 * @throws IllegalArgumentException At least one of the arguments is not
+	 *                                  strictly positive.
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	protected static void orderingTest(int m, int n, int k, int depth) {
+		if (m <= 0 || n <= 0 || k <= 0 || depth <= 0)
+			throw new IllegalArgumentException("At least one of the arguments is not strictly positive.");
+		System.out.print(m + "," + n + "," + k + "-game:");
+		for (boolean enabled : new boolean[] { false, true }) {
+			final AI<Board, Position> ai = new AI<Board, Position>(Player.P2, openedBoard(m, n, k), Long.MAX_VALUE,
+					TTMEGABYTES);
+			ai.setMoveOrdering(enabled);
+			ai.iterativeDeepeningSearch(depth);
+			System.out.printf(" %s %d🌳 (EBF %.2f)", enabled ? "dynamic" : "static", ai.getInspectedNodes(),
+					Math.pow(ai.getInspectedNodes(), 1.0 / depth));
+		}
+		System.out.println();
+	}
+
+	/**
+	 * Measures how many nodes per second {@link AI#iterativeDeepeningSearch()}
+	 * inspects when it is only stopped by its time limit, and how many bytes it
+	 * allocates per inspected node. The search starts right after the first move
+	 * of the game.
+	 *
+	 * @param m         The number of rows.
+	 * @param n         The number of columns.
+	 * @param k         The length of a winning alignment.
+	 * @param timeLimit The time limit of the search in milliseconds.
+	 * @throws IllegalArgumentException At least one of the arguments is not
+	 *                                  strictly positive.
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	protected static void nodesPerSecondTest(int m, int n, int k, long timeLimit) {
+		if (m <= 0 || n <= 0 || k <= 0 || timeLimit <= 0)
+			throw new IllegalArgumentException("At least one of the arguments is not strictly positive.");
+		final AI<Board, Position> ai = new AI<Board, Position>(Player.P2, openedBoard(m, n, k), timeLimit,
+				TTMEGABYTES);
+		final long startBytes = allocatedBytes(), startTime = System.nanoTime();
+		ai.iterativeDeepeningSearch();
+		final long elapsed = System.nanoTime() - startTime, allocated = allocatedBytes() - startBytes;
+		System.out.printf("%d,%d,%d-game: %d🌳 in %s (%.0f🌳/s, %.1fB/🌳)%n", m, n, k, ai.getInspectedNodes(),
+				formatNanoseconds(elapsed), ai.getInspectedNodes() * NS_TO_S / elapsed,
+				(double) allocated / ai.getInspectedNodes());
+	}
+
+	/**
+	 * Lets two {@link AI}s configured as in {@link MoNKey} play the first moves
+	 * of a game against each other, and prints the depth reached by
+	 * {@link AI#iterativeDeepeningSearch()} at each move, followed by their mean.
+	 *
+	 * @see MoNKey#BIGGAME
+	 * @param m         The number of rows.
+	 * @param n         The number of columns.
+	 * @param k         The length of a winning alignment.
+	 * @param moves     The maximum number of moves to be played.
+	 * @param timeLimit The time limit of each move in milliseconds.
+	 * @throws IllegalArgumentException At least one of the arguments is not
+	 *                                  strictly positive.
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	protected static void reachedDepthTest(int m, int n, int k, int moves, long timeLimit) {
+		if (m <= 0 || n <= 0 || k <= 0 || moves <= 0 || timeLimit <= 0)
+			throw new IllegalArgumentException("At least one of the arguments is not strictly positive.");
+		System.out.print(m + "," + n + "," + k + "-game:");
+		final Board board = new Board(m, n, k);
+		final ArrayList<AI<Board, Position>> ais = new ArrayList<AI<Board, Position>>(2);
+		for (Player p : Player.values()) {
+			final AI<Board, Position> ai = new AI<Board, Position>(p, new Board(m, n, k), timeLimit, TTMEGABYTES);
+			ai.setCandidateWidth(m * n > MoNKey.BIGGAME ? MoNKey.BIGGAMEWIDTH : 0);
+			ais.add(ai);
+		}
+		int played = 0, depthSum = 0;
+		for (; played < moves && !board.terminalTest(); ++played) {
+			final AI<Board, Position> ai = ais.get(board.player().ordinal());
+			final Position p = ai.iterativeDeepeningSearch();
+			System.out.print(" " + ai.getReachedDepth());
+			depthSum += ai.getReachedDepth();
+			board.result(p);
+			for (AI<Board, Position> a : ais)
+				a.update(p);
+		}
+		System.out.printf(" (mean %.1f)%n", (double) depthSum / played);
+	}
+
+	/**
+	 * Lets two {@link AI}s configured as in {@link MoNKey} play the first moves
+	 * of a game against each other, only the first of them pondering, and prints
+	 * its ponder hits together with the mean depth reached by
+	 * {@link AI#iterativeDeepeningSearch()} on each side.
+	 *
+	 * @see AI#startPondering
+	 * @param m         The number of rows.
+	 * @param n         The number of columns.
+	 * @param k         The length of a winning alignment.
+	 * @param moves     The maximum number of moves to be played.
+	 * @param timeLimit The time limit of each move in milliseconds.
+	 * @throws IllegalArgumentException At least one of the arguments is not
+	 *                                  strictly positive.
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	protected static void ponderTest(int m, int n, int k, int moves, long timeLimit) {
+		if (m <= 0 || n <= 0 || k <= 0 || moves <= 0 || timeLimit <= 0)
+			throw new IllegalArgumentException("At least one of the arguments is not strictly positive.");
+		System.out.print(m + "," + n + "," + k + "-game:");
+		final Board board = new Board(m, n, k);
+		final ArrayList<AI<Board, Position>> ais = new ArrayList<AI<Board, Position>>(2);
+		for (Player p : Player.values()) {
+			final AI<Board, Position> ai = new AI<Board, Position>(p, new Board(m, n, k), timeLimit, TTMEGABYTES);
+			ai.setCandidateWidth(m * n > MoNKey.BIGGAME ? MoNKey.BIGGAMEWIDTH : 0);
+			ais.add(ai);
+		}
+		final AI<Board, Position> ponderer = ais.get(0);
+		final int[] depthSums = new int[ais.size()], searches = new int[ais.size()];
+		int hits = 0;
+		for (int played = 0; played < moves && !board.terminalTest(); ++played) {
+			final int index = board.player().ordinal();
+			final AI<Board, Position> ai = ais.get(index);
+			final Position p = ai.iterativeDeepeningSearch();
+			depthSums[index] += ai.getReachedDepth();
+			++searches[index];
+			if (ai == ponderer) {
+				if (ai.isPonderHit())
+					++hits;
+				ai.startPondering(p);
+			}
+			board.result(p);
+			for (AI<Board, Position> a : ais)
+				a.update(p);
+		}
+		ponderer.stopPondering();
+		System.out.printf(" %d/%d hits, mean depth %.1f pondering vs %.1f not%n", hits, searches[0] - 1,
+				(double) depthSums[0] / searches[0], (double) depthSums[1] / searches[1]);
+	}
+
+	/**
+	 * Creates a new {@link Board} where the first move of the game has already
+	 * been played.
+	 *
+	 * @param m The number of rows.
+	 * @param n The number of columns.
+	 * @param k The length of a winning alignment.
+	 * @return The new {@link Board}.
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	protected static Board openedBoard(int m, int n, int k) {
+		final Board b = new Board(m, n, k);
+		return b.result(b.actions().next());
+	}
+
+	/**
+	 * Returns the number of bytes allocated so far by the current thread, if the
+	 * Java virtual machine supports such measurement.
+	 *
+	 * @return The number of allocated bytes, or <code>0</code> if it is not
+	 *         available.
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	protected static long allocatedBytes() {
+		final java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		return bean instanceof com.sun.management.ThreadMXBean
+				? ((com.sun.management.ThreadMXBean) bean).getCurrentThreadAllocatedBytes()
+				: 0;
+	}
+
+	/**
+	 * Formats a number of nanoseconds converting it into milliseconds.
+	 *
+	 * @param nanoseconds The number to convert and format.
+	 * @return A formatted <code>String</code>.
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	protected static String formatNanoseconds(long nanoseconds) {
+		return String.format("%.1fms", nanoseconds / NS_TO_MS);
+	}
+
+	/** Default depth for time-to-depth measurements. */
+	final static private int DEFAULTDEPTH = 4;
+	/** Memory budget of each transposition table in megabytes. */
+	final static private int TTMEGABYTES = 64;
+	/** Conversion factor from nanoseconds to milliseconds. */
+	final static private double NS_TO_MS = 1e6;
+	/** Conversion factor from nanoseconds to seconds. */
+	final static private double NS_TO_S = 1e9;
+	/** Time limit of each nodes per second measurement in milliseconds. */
+	final static private long NPSTIMELIMIT = 2000;
+	/** The m,n,k configurations used for nodes per second measurements. */
+	final static private int[][] NPSCONFIGURATIONS = { { 7, 7, 5 }, { 10, 10, 5 } };
+	/** Time limit of each move of the reached depth measurements in milliseconds. */
+	final static private long DEPTHTIMELIMIT = 1000;
+	/** Number of moves played by each reached depth measurement. */
+	final static private int DEPTHMOVES = 10;
+	/** The m,n,k configurations used for reached depth measurements. */
+	final static private int[][] DEPTHCONFIGURATIONS = { { 10, 10, 5 }, { 50, 50, 10 }, { 70, 70, 10 } };
+	/** The {@link AI.Engine Engines} which do not use more than one thread. */
+	final static private AI.Engine[] SEQUENTIALENGINES = { AI.Engine.BEST_NODE, AI.Engine.PRINCIPAL_VARIATION,
+			AI.Engine.MTDF };
+	/** The m,n,k configurations tested by {@link Tester}. */
+	final static private int[][] CONFIGURATIONS = { { 3, 3, 3 }, { 4, 3, 3 }, { 4, 4, 3 }, { 4, 4, 4 }, { 5, 4, 4 },
+			{ 5, 5, 4 }, { 5, 5, 5 }, { 6, 4, 4 }, { 6, 5, 4 }, { 6, 6, 4 }, { 6, 6, 5 }, { 6, 6, 6 }, { 7, 4, 4 },
+			{ 7, 5, 4 }, { 7, 6, 4 }, { 7, 7, 4 }, { 7, 5, 5 }, { 7, 6, 5 }, { 7, 7, 5 }, { 7, 7, 6 }, { 7, 7, 7 },
+			{ 8, 8, 4 }, { 10, 10, 5 }, { 50, 50, 10 }, { 70, 70, 10 } };
+
+}
@@ -0,0 +1,177 @@
+package monkey;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import monkey.ai.AI;
+import monkey.ai.Player;
+import monkey.ai.table.OpeningBook;
+import monkey.mnk.Board;
+import monkey.mnk.Position;
+
+/**
+ * Builds the {@link OpeningBook}s read by {@link MoNKey} for the same m,n,k
+ * configurations of {@link Tester}. For each {@link Player}, the book covers
+ * the first plies of every game in which such {@link Player} follows the book
+ * itself, while the opponent may play any move. Positions are identified by
+ * their symmetry-canonical hash codes, so that each one is searched only once.
+ *
+ * @author Gaia Clerici
+ * @version 1.0
+ * @since 1.0
+ */
+public class BookBuilder {
+
+	/**
+	 * This class cannot be instantiated.
+	 *
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	private BookBuilder() {
+	}
+
+	/**
+	 * Builds the books.
+	 *
+	 * @param args An optional number of milliseconds per searched position,
+	 *             followed by an optional number of plies and an optional output
+	 *             directory.
+	 * @throws IOException A book cannot be written.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	public static void main(String[] args) throws IOException {
+		final long timeLimit = args.length > 0 ? Long.parseLong(args[0]) : DEFAULTTIMELIMIT;
+		final int plies = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULTPLIES;
+		final String directory = args.length > 2 ? args[2] : DEFAULTDIRECTORY;
+		Files.createDirectories(Paths.get(directory));
+		System.out.println("MoNKey opening books (" + plies + " plies, " + timeLimit + "ms per position)");
+		for (int[] c : CONFIGURATIONS)
+			buildBook(c[0], c[1], c[2], plies, timeLimit, directory);
+	}
+
+	/**
+	 * Builds and writes the book of a certain configuration, then prints its
+	 * number of entries and the time needed to build it.
+	 *
+	 * @param m         The number of rows.
+	 * @param n         The number of columns.
+	 * @param k         The length of a winning alignment.
+	 * @param plies     The number of plies covered by the book.
+	 * @param timeLimit The time limit of each search in milliseconds.
+	 * @param directory The output directory.
+	 * @throws IllegalArgumentException At least one of the numeric arguments is
+	 *                                  not strictly positive.
+	 * @throws IOException              The book cannot be written.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	protected static void buildBook(int m, int n, int k, int plies, long timeLimit, String directory)
+			throws IOException {
+		if (m <= 0 || n <= 0 || k <= 0 || plies <= 0 || timeLimit <= 0)
+			throw new IllegalArgumentException("At least one of the numeric arguments is not strictly positive.");
+		System.out.print(m + "," + n + "," + k + "-game:");
+		final long startTime = System.currentTimeMillis();
+		final Board board = new Board(m, n, k);
+		final HashMap<Long, int[]> entries = new HashMap<Long, int[]>();
+		for (Player side : Player.values())
+			expand(board, plies, side, timeLimit, entries, new HashSet<Long>());
+		final long[] keys = new long[entries.size()];
+		final int[] moves = new int[keys.length], depths = new int[keys.length];
+		int count = 0;
+		for (Map.Entry<Long, int[]> e : entries.entrySet()) {
+			keys[count] = e.getKey();
+			moves[count] = e.getValue()[0];
+			depths[count++] = e.getValue()[1];
+		}
+		OpeningBook.write(MoNKey.configurationFile(directory, m, n, k, MoNKey.BOOKEXTENSION), keys, moves, depths,
+				count);
+		System.out.println(" " + count + " entries " + MoNKey.formatTimeInterval(System.currentTimeMillis() - startTime));
+	}
+
+	/**
+	 * Visits the positions which may occur within a certain number of plies if a
+	 * certain {@link Player} follows the book, searching the ones in which such
+	 * {@link Player} has the move. The opponent may play every legal move on
+	 * boards with at most {@link MoNKey#BIGGAME} cells, and every relevant one
+	 * otherwise.
+	 *
+	 * @param b         The current position, which is left unchanged.
+	 * @param plies     The number of plies left.
+	 * @param side      The {@link Player} following the book.
+	 * @param timeLimit The time limit of each search in milliseconds.
+	 * @param entries   The entries found so far, indexed by hash code.
+	 * @param visited   The hash codes of the positions visited so far.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	protected static void expand(Board b, int plies, Player side, long timeLimit, HashMap<Long, int[]> entries,
+			HashSet<Long> visited) {
+		if (plies == 0 || b.terminalTest() || !visited.add(b.longHashCode()))
+			return;
+		if (b.player() == side) {
+			int[] entry = entries.get(b.longHashCode());
+			if (entry == null) {
+				entry = search(b, timeLimit);
+				entries.put(b.longHashCode(), entry);
+			}
+			expand(b.result(b.revertFromHashedAction(entry[0])), plies - 1, side, timeLimit, entries, visited);
+			b.revert();
+		} else {
+			final int[] moves = new int[b.maxActions()];
+			int count = 0;
+			if (b.SIZE <= MoNKey.BIGGAME) {
+				for (int a = 0; a < b.SIZE; ++a)
+					if (b.isLegal(a))
+						moves[count++] = a;
+			} else
+				count = b.actions(moves);
+			for (int i = 0; i < count; ++i) {
+				expand(b.result(moves[i]), plies - 1, side, timeLimit, entries, visited);
+				b.revert();
+			}
+		}
+	}
+
+	/**
+	 * Searches a position with an {@link AI} configured as in {@link MoNKey}.
+	 *
+	 * @param b         The position to search, which is left unchanged.
+	 * @param timeLimit The time limit of the search in milliseconds.
+	 * @return The selected action, converted by {@link Board#convertToHashedAction},
+	 *         followed by the depth reached.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	protected static int[] search(Board b, long timeLimit) {
+		final AI<Board, Position> ai = new AI<Board, Position>(b.player(), b.clone(), timeLimit, TTMEGABYTES);
+		ai.setCandidateWidth(b.SIZE > MoNKey.BIGGAME ? MoNKey.BIGGAMEWIDTH : 0);
+		ai.setSolver(MoNKey.solver());
+		final Position p = ai.iterativeDeepeningSearch();
+		return new int[] { b.convertToHashedAction(b.encodeAction(p)), Math.max(1, ai.getReachedDepth()) };
+	}
+
+	/** Default time limit of each search in milliseconds. */
+	final static private long DEFAULTTIMELIMIT = 10000;
+	/** Default number of plies covered by each book. */
+	final static private int DEFAULTPLIES = 3;
+	/** Default output directory. */
+	final static private String DEFAULTDIRECTORY = "book";
+	/** Memory budget of the transposition table of each search in megabytes. */
+	final static private int TTMEGABYTES = 256;
+	/** The configurations of {@link Tester}. */
+	final static int[][] CONFIGURATIONS = { { 3, 3, 3 }, { 4, 3, 3 }, { 4, 4, 3 }, { 4, 4, 4 }, { 5, 4, 4 },
+			{ 5, 5, 4 }, { 5, 5, 5 }, { 6, 4, 4 }, { 6, 5, 4 }, { 6, 6, 4 }, { 6, 6, 5 }, { 6, 6, 6 }, { 7, 4, 4 },
+			{ 7, 5, 4 }, { 7, 6, 4 }, { 7, 7, 4 }, { 7, 5, 5 }, { 7, 6, 5 }, { 7, 7, 5 }, { 7, 7, 6 }, { 7, 7, 7 },
+			{ 8, 8, 4 }, { 10, 10, 5 }, { 50, 50, 10 }, { 70, 70, 10 } };
+
+}
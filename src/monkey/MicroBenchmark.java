@@ -0,0 +1,446 @@
+package monkey;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.function.IntToLongFunction;
+import java.util.regex.Pattern;
+import monkey.ai.AI;
+import monkey.ai.Player;
+import monkey.mnk.BitBoard;
+import monkey.mnk.Board;
+import monkey.mnk.Position;
+import monkey.mnk.ThreatsManager;
+import monkey.mnk.ZobristHasher;
+
+/**
+ * Microbenchmarks for the hot paths of the {@link monkey} package, measuring
+ * the average time of a single operation in the style of JMH. Each benchmark
+ * runs on a fixed set of positions recorded from random games of some of the
+ * configurations of {@link Tester}, in a forked Java virtual machine, so that
+ * the just-in-time compiler is not influenced by the other benchmarks. After
+ * some warm-up iterations, every measurement iteration calls the operation in
+ * a loop until a timer thread stops it, and the results are accumulated into a
+ * sink so that no call can be optimized away. The benchmarks whose name starts
+ * with <code>bitBoard</code> run the same operation on a
+ * {@link monkey.mnk.BitBoard BitBoard} instead of a {@link Board}, so that
+ * the two representations can be compared head to head. The report is written
+ * in the JSON format of JMH.
+ *
+ * @author Stefano Volpe
+ * @version 1.0
+ * @since 1.0
+ */
+public class MicroBenchmark {
+
+	/**
+	 * This class cannot be instantiated.
+	 *
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	private MicroBenchmark() {
+	}
+
+	/**
+	 * Runs the microbenchmarks. When its first argument is {@link #FORK}, it runs
+	 * a single benchmark on a single configuration instead, and prints its JSON
+	 * result.
+	 *
+	 * @param args The path of the JSON report, followed by an optional regular
+	 *             expression selecting the benchmarks to run by name.
+	 * @throws IOException          The report cannot be written or a fork
+	 *                              failed.
+	 * @throws InterruptedException Interrupted while waiting for a fork.
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	public static void main(String[] args) throws IOException, InterruptedException {
+		if (args.length > 0 && args[0].equals(FORK)) {
+			System.out.println(run(args[1], Integer.parseInt(args[2]), Integer.parseInt(args[3]),
+					Integer.parseInt(args[4])));
+			return;
+		}
+		final String report = args.length > 0 ? args[0] : DEFAULTREPORT;
+		final Pattern filter = Pattern.compile(args.length > 1 ? args[1] : ".*");
+		final List<String> results = new ArrayList<String>();
+		System.out.println("MoNKey microbenchmarks (average time per operation)");
+		for (String benchmark : BENCHMARKS)
+			if (filter.matcher(benchmark).find())
+				for (int[] c : CONFIGURATIONS) {
+					final String result = fork(benchmark, c[0], c[1], c[2]);
+					System.out.printf("%-24s %2d,%2d,%2d-game: %s%n", benchmark, c[0], c[1], c[2], summary(result));
+					results.add(result);
+				}
+		final java.nio.file.Path parent = Paths.get(report).toAbsolutePath().getParent();
+		if (parent != null)
+			Files.createDirectories(parent);
+		try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(Paths.get(report)))) {
+			out.println("[");
+			for (int i = 0; i < results.size(); ++i)
+				out.println(results.get(i) + (i + 1 < results.size() ? "," : ""));
+			out.println("]");
+		}
+		System.out.println("Report written to " + report);
+	}
+
+	/**
+	 * Runs a benchmark in a new Java virtual machine with the same class path.
+	 *
+	 * @param benchmark The name of the benchmark.
+	 * @param m         The number of rows.
+	 * @param n         The number of columns.
+	 * @param k         The length of a winning alignment.
+	 * @return The JSON result printed by the fork.
+	 * @throws IOException          The fork failed.
+	 * @throws InterruptedException Interrupted while waiting for the fork.
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	protected static String fork(String benchmark, int m, int n, int k) throws IOException, InterruptedException {
+		final Process process = new ProcessBuilder(Paths.get(System.getProperty("java.home"), "bin", "java").toString(),
+				"-cp", System.getProperty("java.class.path"), MicroBenchmark.class.getName(), FORK, benchmark,
+				String.valueOf(m), String.valueOf(n), String.valueOf(k)).redirectErrorStream(true).start();
+		String result = null;
+		try (BufferedReader in = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+			for (String line = in.readLine(); line != null; line = in.readLine())
+				if (line.startsWith("{"))
+					result = line;
+		}
+		if (process.waitFor() != 0 || result == null)
+			throw new IOException("The fork of " + benchmark + " failed.");
+		return result;
+	}
+
+	/**
+	 * Measures a benchmark on the recorded positions of a configuration.
+	 *
+	 * @param benchmark The name of the benchmark.
+	 * @param m         The number of rows.
+	 * @param n         The number of columns.
+	 * @param k         The length of a winning alignment.
+	 * @return The result in the JSON format of JMH, on a single line.
+	 * @throws IllegalArgumentException The benchmark does not exist or at least
+	 *                                  one of the numeric arguments is not
+	 *                                  strictly positive.
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	protected static String run(String benchmark, int m, int n, int k) {
+		if (m <= 0 || n <= 0 || k <= 0)
+			throw new IllegalArgumentException("At least one of the arguments is not strictly positive.");
+		final int[][] games = recordedPositions(m, n, k, POSITIONS);
+		final boolean isBitBoard = benchmark.startsWith(BITBOARDPREFIX);
+		final Board[] boards = new Board[games.length];
+		final int[][] actions = new int[games.length][];
+		for (int i = 0; i < games.length; ++i) {
+			boards[i] = replay(isBitBoard ? new BitBoard(m, n, k) : new Board(m, n, k), games[i]);
+			actions[i] = new int[boards[i].SIZE];
+			actions[i] = Arrays.copyOf(actions[i], boards[i].actions(actions[i]));
+		}
+		final IntToLongFunction operation;
+		switch (isBitBoard ? Character.toLowerCase(benchmark.charAt(BITBOARDPREFIX.length()))
+				+ benchmark.substring(BITBOARDPREFIX.length() + 1) : benchmark) {
+		case "resultRevert":
+			operation = t -> {
+				final int i = t % boards.length, a = actions[i][t / boards.length % actions[i].length];
+				return boards[i].result(a).revert().longHashCode();
+			};
+			break;
+		case "resultEvalRevert":
+			operation = t -> {
+				final int i = t % boards.length, a = actions[i][t / boards.length % actions[i].length];
+				final int res = boards[i].result(a).eval(Player.P1);
+				boards[i].revert();
+				return res;
+			};
+			break;
+		case "updateAlignments": {
+			final ThreatsManager[] managers = new ThreatsManager[games.length];
+			final Board[] marked = new Board[games.length];
+			final Position[] moves = new Position[games.length];
+			final Player[] players = new Player[games.length];
+			for (int i = 0; i < games.length; ++i) {
+				final Board b = new Board(m, n, k);
+				managers[i] = new ThreatsManager(k, b);
+				for (int a : games[i]) {
+					final Player p = b.player();
+					b.result(a);
+					managers[i].updateAlignments(b.decodeAction(a), p);
+				}
+				players[i] = boards[i].player();
+				moves[i] = boards[i].decodeAction(actions[i][0]);
+				marked[i] = boards[i].clone().result(actions[i][0]);
+			}
+			operation = t -> {
+				final int i = t % boards.length;
+				managers[i].setBoard(marked[i]);
+				managers[i].updateAlignments(moves[i], players[i]);
+				managers[i].setBoard(boards[i]);
+				managers[i].updateAlignments(moves[i], players[i]);
+				return managers[i].count(monkey.mnk.Threat.ONE, players[i]);
+			};
+			break;
+		}
+		case "addOrRemove": {
+			final ZobristHasher[] hashers = new ZobristHasher[games.length];
+			final Player[] players = new Player[games.length];
+			for (int i = 0; i < games.length; ++i) {
+				hashers[i] = new ZobristHasher(m, n);
+				final Board b = new Board(m, n, k);
+				for (int a : games[i]) {
+					hashers[i].addOrRemove(a, b.player());
+					b.result(a);
+				}
+				players[i] = b.player();
+			}
+			operation = t -> {
+				final int i = t % boards.length, a = actions[i][t / boards.length % actions[i].length];
+				hashers[i].addOrRemove(a, players[i]);
+				hashers[i].addOrRemove(a, players[i]);
+				return hashers[i].longHashCode();
+			};
+			break;
+		}
+		case "eval":
+			operation = t -> boards[t % boards.length].eval(Player.P1);
+			break;
+		case "actionsIteration":
+			operation = t -> {
+				long res = 0;
+				for (Iterator<Position> i = boards[t % boards.length].actions(); i.hasNext();)
+					res += i.next().getColumn();
+				return res;
+			};
+			break;
+		case "search":
+			operation = t -> {
+				final Board b = boards[t % boards.length];
+				final AI<Board, Position> ai = new AI<Board, Position>(b.player(), b.clone(), SEARCHTIMELIMIT,
+						SEARCHTTMEGABYTES);
+				ai.setCandidateWidth(b.SIZE > MoNKey.BIGGAME ? MoNKey.BIGGAMEWIDTH : 0);
+				return ai.iterativeDeepeningSearch(SEARCHDEPTH).getColumn() + ai.getInspectedNodes();
+			};
+			break;
+		case "immediateSearch": {
+			// one player per position, so that its replicas are reused
+			final ArrayList<AI<Board, Position>> ais = new ArrayList<AI<Board, Position>>(boards.length);
+			for (Board b : boards) {
+				final AI<Board, Position> ai = new AI<Board, Position>(b.player(), b.clone(), SEARCHTIMELIMIT,
+						SEARCHTTMEGABYTES);
+				ai.setCandidateWidth(b.SIZE > MoNKey.BIGGAME ? MoNKey.BIGGAMEWIDTH : 0);
+				ai.setThreads(Runtime.getRuntime().availableProcessors());
+				ais.add(ai);
+			}
+			operation = t -> ais.get(t % boards.length).immediateSearch().getColumn();
+			break;
+		}
+		default:
+			throw new IllegalArgumentException("Unknown benchmark: " + benchmark + ".");
+		}
+		for (int i = 0; i < WARMUPITERATIONS; ++i)
+			iteration(operation);
+		final double[] scores = new double[MEASUREMENTITERATIONS];
+		for (int i = 0; i < scores.length; ++i)
+			scores[i] = iteration(operation);
+		System.err.println(sink);
+		return json(benchmark, m + "," + n + "," + k, scores);
+	}
+
+	/**
+	 * Calls an operation in a loop for {@link #ITERATIONTIME} milliseconds.
+	 *
+	 * @param operation The operation, whose argument is the number of previous
+	 *                  calls in the iteration and whose result is accumulated
+	 *                  into {@link #sink}.
+	 * @return The average time of a call in nanoseconds.
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	protected static double iteration(IntToLongFunction operation) {
+		isIterationOver = false;
+		final Thread timer = new Thread(() -> {
+			try {
+				Thread.sleep(ITERATIONTIME);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			isIterationOver = true;
+		});
+		timer.setDaemon(true);
+		long res = 0;
+		int calls = 0;
+		final long startTime = System.nanoTime();
+		timer.start();
+		do
+			res += operation.applyAsLong(calls++);
+		while (!isIterationOver);
+		final long elapsed = System.nanoTime() - startTime;
+		sink += res;
+		return (double) elapsed / calls;
+	}
+
+	/**
+	 * Records some positions from random games. Each game is played by choosing
+	 * every move among the relevant ones with a fixed seed, and is interrupted
+	 * after a random number of moves, before its end.
+	 *
+	 * @param m     The number of rows.
+	 * @param n     The number of columns.
+	 * @param k     The length of a winning alignment.
+	 * @param count The number of positions.
+	 * @return The encoded moves leading to each position.
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	protected static int[][] recordedPositions(int m, int n, int k, int count) {
+		final Random random = new Random(SEED);
+		final int[][] res = new int[count][];
+		final Board b = new Board(m, n, k);
+		final int[] moves = new int[b.SIZE], buffer = new int[b.SIZE];
+		for (int i = 0; i < count; ++i) {
+			final int length = 1 + random.nextInt(Math.max(1, Math.min(MAXRECORDEDMOVES, b.SIZE / 2)));
+			int played = 0;
+			while (played < length) {
+				final int a = buffer[random.nextInt(b.actions(buffer))];
+				if (b.result(a).terminalTest()) {
+					b.revert();
+					break;
+				}
+				moves[played++] = a;
+			}
+			res[i] = Arrays.copyOf(moves, played);
+			while (played-- > 0)
+				b.revert();
+		}
+		return res;
+	}
+
+	/**
+	 * Plays some moves on a new {@link Board}.
+	 *
+	 * @param res   The new {@link Board}.
+	 * @param moves The encoded moves.
+	 * @return res.
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	protected static Board replay(Board res, int[] moves) {
+		for (int a : moves)
+			res.result(a);
+		return res;
+	}
+
+	/**
+	 * Formats the result of a benchmark in the JSON format of JMH. The error is
+	 * the half-width of the 99.9% confidence interval of the mean.
+	 *
+	 * @param benchmark     The name of the benchmark.
+	 * @param configuration The m,n,k configuration.
+	 * @param scores        The average time of a call in each measurement
+	 *                      iteration, in nanoseconds.
+	 * @return A JSON object on a single line.
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	protected static String json(String benchmark, String configuration, double[] scores) {
+		double mean = 0, variance = 0;
+		for (double s : scores)
+			mean += s / scores.length;
+		for (double s : scores)
+			variance += (s - mean) * (s - mean) / Math.max(1, scores.length - 1);
+		final double error = STUDENT9995[Math.min(scores.length - 1, STUDENT9995.length - 1)]
+				* Math.sqrt(variance / scores.length);
+		final StringBuilder raw = new StringBuilder();
+		for (double s : scores)
+			raw.append(raw.length() == 0 ? "" : ", ").append(s);
+		return String.format(java.util.Locale.ROOT, "{ \"benchmark\" : \"%s.%s\", \"mode\" : \"avgt\", "
+				+ "\"threads\" : 1, \"forks\" : 1, \"warmupIterations\" : %d, \"warmupTime\" : \"%d ms\", "
+				+ "\"measurementIterations\" : %d, \"measurementTime\" : \"%d ms\", "
+				+ "\"params\" : { \"configuration\" : \"%s\" }, \"primaryMetric\" : { \"score\" : %f, "
+				+ "\"scoreError\" : %f, \"scoreConfidence\" : [ %f, %f ], \"scoreUnit\" : \"ns/op\", "
+				+ "\"rawData\" : [ [ %s ] ] } }", MicroBenchmark.class.getName(), benchmark, WARMUPITERATIONS,
+				ITERATIONTIME, scores.length, ITERATIONTIME, configuration, mean, error, mean - error, mean + error,
+				raw);
+	}
+
+	/**
+	 * Extracts a human-readable summary from a JSON result.
+	 *
+	 * @param json A result returned by {@link #json}.
+	 * @return The score, its error and its unit.
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	protected static String summary(String json) {
+		final java.util.regex.Matcher matcher = Pattern
+				.compile("\"score\" : ([^,]+), \"scoreError\" : ([^,]+),").matcher(json);
+		if (!matcher.find())
+			return json;
+		return String.format(java.util.Locale.ROOT, "%12.1f ± %10.1f ns/op", Double.parseDouble(matcher.group(1)),
+				Double.parseDouble(matcher.group(2)));
+	}
+
+	/** First argument selecting a single benchmark run in a fork. */
+	final static private String FORK = "--fork";
+	/** Default path of the JSON report. */
+	final static private String DEFAULTREPORT = "build/microbenchmark.json";
+	/** Names of the benchmarks. */
+	final static private String[] BENCHMARKS = { "resultRevert", "updateAlignments", "addOrRemove", "eval",
+			"resultEvalRevert", "actionsIteration", "search", "immediateSearch", "bitBoardResultRevert",
+			"bitBoardResultEvalRevert", "bitBoardSearch" };
+	/**
+	 * Prefix of the names of the benchmarks run on a {@link BitBoard} instead of
+	 * a {@link Board}.
+	 */
+	final static private String BITBOARDPREFIX = "bitBoard";
+	/** Configurations of {@link Tester} the benchmarks run on. */
+	final static private int[][] CONFIGURATIONS = { { 6, 6, 4 }, { 7, 7, 5 }, { 10, 10, 5 }, { 50, 50, 10 },
+			{ 70, 70, 10 } };
+	/** Number of recorded positions per configuration. */
+	final static private int POSITIONS = 32;
+	/** Maximum number of moves leading to a recorded position. */
+	final static private int MAXRECORDEDMOVES = 24;
+	/** Seed of the random games the positions are recorded from. */
+	final static private long SEED = 0l;
+	/** Number of warm-up iterations. */
+	final static private int WARMUPITERATIONS = 5;
+	/** Number of measurement iterations. */
+	final static private int MEASUREMENTITERATIONS = 5;
+	/** Duration of each iteration in milliseconds. */
+	final static private long ITERATIONTIME = 500;
+	/** Depth of the searches of the <code>search</code> benchmark. */
+	final static private int SEARCHDEPTH = 3;
+	/** Time limit of the searches, long enough never to be reached. */
+	final static private long SEARCHTIMELIMIT = 3600000;
+	/** Memory budget of the transposition table of each search in megabytes. */
+	final static private int SEARCHTTMEGABYTES = 4;
+	/**
+	 * Quantiles of order 0.9995 of the Student's t-distribution, indexed by
+	 * degrees of freedom. The last one is the normal approximation.
+	 */
+	final static private double[] STUDENT9995 = { Double.NaN, 636.62, 31.60, 12.92, 8.61, 6.87, 5.96, 5.41, 5.04,
+			4.78, 3.29 };
+	/** Set by the timer thread at the end of each iteration. */
+	static private volatile boolean isIterationOver;
+	/** Accumulates the results of the operations, so that none is eliminated. */
+	static private long sink = 0;
+
+}
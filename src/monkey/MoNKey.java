@@ -1,11 +1,25 @@
 package monkey;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Iterator;
 import mnkgame.MNKCell;
 import mnkgame.MNKPlayer;
 import monkey.ai.AI;
+import monkey.ai.MCTS;
 import monkey.ai.Player;
+import monkey.ai.Solver;
+import monkey.ai.table.OpeningBook;
+import monkey.ai.table.TranspositionTable;
+import monkey.mnk.BitBoard;
 import monkey.mnk.Board;
 import monkey.mnk.Position;
+import monkey.mnk.ProofNumberSearch;
+import monkey.mnk.ThreatSpaceSearch;
+import monkey.mnk.ZobristHasher;
 
 /**
  * A <code>MoNKey</code> offers a possible implementation of
@@ -26,9 +40,54 @@ public class MoNKey implements MNKPlayer {
 	 */
 	@Override
 	public void initPlayer(int M, int N, int K, boolean first, int timeout_in_secs) {
-		ai = new AI<Board, Position>(first ? Player.P1 : Player.P2, new Board(M, N, K), timeout_in_secs * S_TO_MS);
+		if (ai != null)
+			ai.stopPondering();
+		final Player player = first ? Player.P1 : Player.P2;
+		if (tableDirectory != null)
+			saveTables(this, tableFile(tableDirectory, M, N, K, player.not()));
 		m = M;
 		n = N;
+		if (bookDirectory != null)
+			try {
+				Board.recordGameValue(M, N, K, Integer.parseInt(
+						Files.readString(configurationFile(bookDirectory, M, N, K, VALUEEXTENSION)).trim()));
+			} catch (IOException | NumberFormatException e) {
+				// unsolved configuration: the knowledge base of the board is used
+			}
+		if (mcts && M * N > BIGGAME) {
+			ai = null;
+			treeSearch = new MCTS<Board, Position>(player, bitBoard ? new BitBoard(M, N, K) : new Board(M, N, K),
+					timeout_in_secs * S_TO_MS, tableMegabytes);
+			treeSearch.setThreads(threads);
+			treeSearch.setCandidateWidth(BIGGAMEWIDTH);
+			treeSearch.setSolver(solver());
+			return;
+		}
+		treeSearch = null;
+		ai = new AI<Board, Position>(player, bitBoard ? new BitBoard(M, N, K) : new Board(M, N, K),
+				timeout_in_secs * S_TO_MS, tableMegabytes);
+		ai.setThreads(threads);
+		ai.setEngine(engine);
+		if (moveOrdering != null)
+			ai.setMoveOrdering(moveOrdering);
+		ai.setCandidateWidth(M * N > BIGGAME ? BIGGAMEWIDTH : 0);
+		ai.setSolver(solver());
+		ai.setStatistics(statistics);
+		if (bookDirectory != null)
+			try {
+				ai.setOpeningBook(new OpeningBook(configurationFile(bookDirectory, M, N, K, BOOKEXTENSION)));
+			} catch (IOException e) {
+				// no book for this configuration: every move is searched
+			}
+		if (tableDirectory != null) {
+			tableFile = tableFile(tableDirectory, M, N, K, player);
+			try {
+				ai.getTranspositionTable().load(tableFile);
+			} catch (IOException e) {
+				// first game of this configuration: the table starts empty
+			}
+			addPendingTable(this);
+		}
 	}
 
 	/**
@@ -41,11 +100,26 @@ public class MoNKey implements MNKPlayer {
 	@Override
 	public MNKCell selectCell(MNKCell[] FC, MNKCell[] MC) {
 		// final long startTime = System.currentTimeMillis();
+		if (treeSearch != null) {
+			if (MC.length > 1)
+				treeSearch.update(new Position(m, n, MC[MC.length - 2]));
+			if (MC.length > 0)
+				treeSearch.update(new Position(m, n, MC[MC.length - 1]));
+			final Position p = treeSearch.selectAction();
+			if (statistics)
+				System.err.println(treeSearch.getPlayouts() + " playouts, " + treeSearch.getTreeSize() + " nodes");
+			return new MNKCell(p.getRow(), p.getColumn());
+		}
+		ai.stopPondering();
 		if (MC.length > 1)
 			ai.update(new Position(m, n, MC[MC.length - 2]));
 		if (MC.length > 0)
 			ai.update(new Position(m, n, MC[MC.length - 1]));
-		final Position p = m * n > BIGGAME ? ai.immediateSearch() : ai.iterativeDeepeningSearch();
+		final Position p = ai.iterativeDeepeningSearch();
+		if (statistics)
+			System.err.println(ai.getSearchStats());
+		if (pondering)
+			ai.startPondering(p);
 		// System.err.println(formatTimeInterval(System.currentTimeMillis() -
 		// startTime));
 		return new MNKCell(p.getRow(), p.getColumn());
@@ -63,6 +137,306 @@ public class MoNKey implements MNKPlayer {
 		return "🅼🐵🅽🅺ey";
 	}
 
+	/**
+	 * Sets the number of threads used by the players initialized from now on. The
+	 * default value is read from the <code>monkey.threads</code> system property,
+	 * or is 1 if such property is not set.
+	 *
+	 * @see monkey.ai.AI#setThreads
+	 * @param t The number of threads.
+	 * @throws IllegalArgumentException t is not strictly positive.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	public static void setThreads(int t) {
+		if (t <= 0)
+			throw new IllegalArgumentException("t is not strictly positive.");
+		threads = t;
+	}
+
+	/**
+	 * Sets the {@link monkey.ai.AI.Engine Engine} used by the players initialized
+	 * from now on. The default value is read from the <code>monkey.engine</code>
+	 * system property, or is {@link monkey.ai.AI.Engine#BEST_NODE BEST_NODE} if
+	 * such property is not set.
+	 *
+	 * @see monkey.ai.AI#setEngine
+	 * @param e The {@link monkey.ai.AI.Engine Engine} to use.
+	 * @throws NullPointerException e is <code>null</code>.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	public static void setEngine(AI.Engine e) {
+		if (e == null)
+			throw new NullPointerException("e is null.");
+		engine = e;
+	}
+
+	/**
+	 * Sets the memory budget of the transposition table of the players
+	 * initialized from now on. The default value is read from the
+	 * <code>monkey.ttmegabytes</code> system property, or is
+	 * {@link TranspositionTable#defaultMegabytes} if such property is not set.
+	 * Players sharing the same Java virtual machine, e.g. in a {@link Tournament},
+	 * need a smaller one.
+	 *
+	 * @param megabytes The memory budget in megabytes.
+	 * @throws IllegalArgumentException megabytes is not strictly positive.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	public static void setTableMegabytes(int megabytes) {
+		if (megabytes <= 0)
+			throw new IllegalArgumentException("megabytes is not strictly positive.");
+		tableMegabytes = megabytes;
+	}
+
+	/**
+	 * Sets whether the players initialized from now on search on the opponent's
+	 * time. The default value is read from the <code>monkey.ponder</code> system
+	 * property, or is <code>true</code> just in case more than one processor is
+	 * available if such property is not set: on a single processor, pondering
+	 * would only slow down the opponent.
+	 *
+	 * @see monkey.ai.AI#startPondering
+	 * @param enabled <code>true</code> to enable pondering.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	public static void setPondering(boolean enabled) {
+		pondering = enabled;
+	}
+
+	/**
+	 * Sets whether the players initialized from now on print the
+	 * {@link monkey.ai.SearchStats SearchStats} of each move to the standard
+	 * error. The default value is read from the <code>monkey.stats</code> system
+	 * property, or is <code>false</code> if such property is not set. Statistics
+	 * are also collected for Java Flight Recorder recordings enabling the
+	 * <code>monkey.Search</code> event, whatever this setting.
+	 *
+	 * @see monkey.ai.AI#setStatistics
+	 * @param enabled <code>true</code> to print statistics.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	public static void setStatistics(boolean enabled) {
+		statistics = enabled;
+	}
+
+	/**
+	 * Sets whether the players initialized from now on represent the grid by a
+	 * {@link BitBoard} instead of a {@link Board}. Both of them play the same
+	 * moves, at a different speed. The default value is read from the
+	 * <code>monkey.bitboard</code> system property, or is <code>false</code> if
+	 * such property is not set.
+	 *
+	 * @param enabled <code>true</code> to use a {@link BitBoard}.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	public static void setBitBoard(boolean enabled) {
+		bitBoard = enabled;
+	}
+
+	/**
+	 * Sets whether the players initialized from now on play the configurations
+	 * with more than {@link #BIGGAME} cells by Monte Carlo tree search instead of
+	 * alpha-beta pruning. The tree takes the memory budget of the transposition
+	 * table, which is neither loaded nor saved. The default value is read from
+	 * the <code>monkey.mcts</code> system property, or is <code>false</code> if
+	 * such property is not set.
+	 *
+	 * @see monkey.ai.MCTS
+	 * @param enabled <code>true</code> to use Monte Carlo tree search.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	public static void setMCTS(boolean enabled) {
+		mcts = enabled;
+	}
+
+	/**
+	 * Sets whether the players initialized from now on look for forced wins by
+	 * {@link ProofNumberSearch} instead of {@link ThreatSpaceSearch}. The default
+	 * value is read from the <code>monkey.dfpn</code> system property, or is
+	 * <code>false</code> if such property is not set.
+	 *
+	 * @param enabled <code>true</code> to use proof-number search.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	public static void setProofNumberSearch(boolean enabled) {
+		proofNumberSearch = enabled;
+	}
+
+	/**
+	 * Sets whether the players initialized from now on use dynamic move ordering.
+	 * The default value is read from the <code>monkey.ordering</code> system
+	 * property, or is <code>null</code> if such property is not set, in which
+	 * case the default of their {@link AI.Engine} applies.
+	 *
+	 * @see monkey.ai.AI#setMoveOrdering
+	 * @see monkey.ai.AI#setEngine
+	 * @param enabled <code>true</code> to use dynamic move ordering,
+	 *                <code>false</code> not to, <code>null</code> to follow the
+	 *                engine.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	public static void setMoveOrdering(Boolean enabled) {
+		moveOrdering = enabled;
+	}
+
+	/**
+	 * Sets the directory where the players initialized from now on look for the
+	 * {@link OpeningBook} of their configuration, as written by
+	 * {@link BookBuilder}. The default value is read from the
+	 * <code>monkey.book</code> system property, or is <code>book</code> if such
+	 * property is not set.
+	 *
+	 * @param directory The directory of the books, or <code>null</code> not to
+	 *                  use any.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	public static void setBookDirectory(String directory) {
+		bookDirectory = directory;
+	}
+
+	/**
+	 * Sets the directory where the players initialized from now on save the most
+	 * valuable slots of their transposition table, so that the next game of the
+	 * same configuration, played as the same {@link Player}, starts from them.
+	 * Since a player cannot tell when its game is over, tables are saved when a
+	 * later game is initialized and when the Java virtual machine shuts down. The
+	 * default value is read from the <code>monkey.table</code> system property,
+	 * or is <code>null</code> if such property is not set.
+	 *
+	 * @see monkey.ai.table.TranspositionTable#save
+	 * @param directory The directory of the tables, or <code>null</code> not to
+	 *                  save nor load any.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	public static void setTableDirectory(String directory) {
+		tableDirectory = directory;
+	}
+
+	/**
+	 * Builds the {@link Solver} run before each search, as configured by
+	 * {@link #setProofNumberSearch}.
+	 *
+	 * @return A new {@link Solver}.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	static Solver<Board, Position> solver() {
+		return proofNumberSearch ? new ProofNumberSearch(SOLVERBUDGET, SOLVERMEGABYTES)
+				: new ThreatSpaceSearch(SOLVERBUDGET, SOLVERTHREES);
+	}
+
+	/**
+	 * Returns the path of the file storing some data specific to a certain m,n,k
+	 * configuration, such as its {@link OpeningBook}. Since such data depend on
+	 * the Zobrist keys too, the name of the file also includes
+	 * {@link ZobristHasher#SEED}.
+	 *
+	 * @param directory The directory of the file.
+	 * @param M         The number of rows.
+	 * @param N         The number of columns.
+	 * @param K         The length of a winning alignment.
+	 * @param extension The extension of the file, without the dot.
+	 * @return The path of the file.
+	 * @throws NullPointerException directory or extension are <code>null</code>.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	static Path configurationFile(String directory, int M, int N, int K, String extension) {
+		return Paths.get(directory, M + "-" + N + "-" + K + "-" + ZobristHasher.SEED + "." + extension);
+	}
+
+	/**
+	 * Returns the path of the file storing the transposition table of a certain
+	 * m,n,k configuration played as a certain {@link Player}, whose point of view
+	 * the scores depend on.
+	 *
+	 * @param directory The directory of the file.
+	 * @param M         The number of rows.
+	 * @param N         The number of columns.
+	 * @param K         The length of a winning alignment.
+	 * @param p         The {@link Player}.
+	 * @return The path of the file.
+	 * @throws NullPointerException directory or p are <code>null</code>.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	static Path tableFile(String directory, int M, int N, int K, Player p) {
+		return configurationFile(directory, M, N, K, p.name().toLowerCase() + "." + TABLEEXTENSION);
+	}
+
+	/**
+	 * Saves and forgets the transposition tables of the players initialized so
+	 * far, except the one which may be playing the same game as the player being
+	 * initialized.
+	 *
+	 * @param initialized The player being initialized, whose previous table is
+	 *                    saved as well.
+	 * @param opponent    The path of the table of the opponent of initialized, or
+	 *                    <code>null</code> to save every table.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	private static synchronized void saveTables(MoNKey initialized, Path opponent) {
+		for (Iterator<MoNKey> i = pendingTables.iterator(); i.hasNext();) {
+			final MoNKey player = i.next();
+			if (player == initialized || !player.tableFile.equals(opponent)) {
+				player.ai.stopPondering();
+				try {
+					final Path directory = player.tableFile.toAbsolutePath().getParent();
+					if (directory != null)
+						Files.createDirectories(directory);
+					player.ai.getTranspositionTable().save(player.tableFile, SAVEDSLOTS);
+				} catch (IOException e) {
+					// the next game of this configuration just starts from scratch
+				}
+				i.remove();
+			}
+		}
+	}
+
+	/**
+	 * Adds a player to the ones whose transposition table has to be saved. The
+	 * first time, a shutdown hook saving all of them is registered.
+	 *
+	 * @param player The player to add.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	private static synchronized void addPendingTable(MoNKey player) {
+		if (!isTableSaverRegistered) {
+			Runtime.getRuntime().addShutdownHook(new Thread(() -> saveTables(null, null)));
+			isTableSaverRegistered = true;
+		}
+		pendingTables.add(player);
+	}
+
 	/**
 	 * Formats a number of milliseconds converting it into seconds and milliseconds.
 	 *
@@ -78,16 +452,79 @@ public class MoNKey implements MNKPlayer {
 
 	/** Artificial intelligence used by <code>MoNKey</code>. */
 	private AI<Board, Position> ai = null;
+	/**
+	 * Monte Carlo tree search used instead of {@link #ai} on big configurations,
+	 * or <code>null</code>.
+	 */
+	private MCTS<Board, Position> treeSearch = null;
+	/** File where the transposition table of {@link #ai} is saved, if any. */
+	private Path tableFile = null;
 	/** Number of rows. */
 	private int m;
 	/** Number of columns. */
 	private int n;
 	/**
 	 * Maximum number of cells of a configuration commonly considered small enough
-	 * to be explored.
+	 * to be explored at full width.
+	 */
+	final static int BIGGAME = 100;
+	/**
+	 * Maximum number of actions searched in each node below the root when the
+	 * configuration has more than {@link #BIGGAME} cells.
+	 *
+	 * @see monkey.ai.AI#setCandidateWidth
 	 */
-	final static private int BIGGAME = 100;
+	final static int BIGGAMEWIDTH = 10;
+	/**
+	 * Maximum number of moves played by each threat-space search, or of positions
+	 * expanded by each proof-number search.
+	 */
+	final static long SOLVERBUDGET = 20000;
+	/** Maximum number of threes of the victories looked for by threat-space search. */
+	final static int SOLVERTHREES = 2;
+	/** Memory budget of the transposition table of proof-number search in megabytes. */
+	final static int SOLVERMEGABYTES = 16;
+	/** Extension of the files written by {@link BookBuilder}. */
+	final static String BOOKEXTENSION = "book";
+	/** Extension of the files written by {@link ValueBuilder}. */
+	final static String VALUEEXTENSION = "value";
+	/** Extension of the files where transposition tables are saved. */
+	final static String TABLEEXTENSION = "table";
+	/** Maximum number of transposition table slots saved after each game. */
+	final static int SAVEDSLOTS = 1 << 17;
 	/** Conversion factor from seconds to milliseconds. */
 	final static private int S_TO_MS = 1000;
+	/** Number of threads used by each search. */
+	static private int threads = Math.max(1, Integer.getInteger("monkey.threads", 1));
+	/** {@link monkey.ai.AI.Engine Engine} used by each search. */
+	static private AI.Engine engine = AI.Engine.valueOf(System.getProperty("monkey.engine", "BEST_NODE"));
+	/** Directory of the {@link OpeningBook}s, or <code>null</code>. */
+	static private String bookDirectory = System.getProperty("monkey.book", "book");
+	/** Directory of the saved transposition tables, or <code>null</code>. */
+	static private String tableDirectory = System.getProperty("monkey.table");
+	/** The players whose transposition table has not been saved yet. */
+	final static private ArrayList<MoNKey> pendingTables = new ArrayList<MoNKey>();
+	/** Whether the shutdown hook saving {@link #pendingTables} is registered. */
+	static private boolean isTableSaverRegistered = false;
+	/** Whether each player searches on the opponent's time. */
+	static private boolean pondering = Boolean.parseBoolean(
+			System.getProperty("monkey.ponder", String.valueOf(Runtime.getRuntime().availableProcessors() > 1)));
+	/** Memory budget of the transposition table of each player in megabytes. */
+	static private int tableMegabytes = Math.max(1,
+			Integer.getInteger("monkey.ttmegabytes", TranspositionTable.defaultMegabytes()));
+	/** Whether each player prints the statistics of its searches. */
+	static private boolean statistics = Boolean.getBoolean("monkey.stats");
+	/** Whether each player represents the grid by a {@link BitBoard}. */
+	static private boolean bitBoard = Boolean.getBoolean("monkey.bitboard");
+	/** Whether each player plays big configurations by Monte Carlo tree search. */
+	static private boolean mcts = Boolean.getBoolean("monkey.mcts");
+	/** Whether each player looks for forced wins by {@link ProofNumberSearch}. */
+	static private boolean proofNumberSearch = Boolean.getBoolean("monkey.dfpn");
+	/**
+	 * Whether each player uses dynamic move ordering, or <code>null</code> to
+	 * follow their {@link AI.Engine}.
+	 */
+	static private Boolean moveOrdering = System.getProperty("monkey.ordering") == null ? null
+			: Boolean.getBoolean("monkey.ordering");
 
 }
@@ -1,5 +1,8 @@
 package monkey;
 
+import monkey.mnk.BitBoard;
+import monkey.mnk.Board;
+
 /**
  * A tester class for the whole {@link monkey} package.
  *
@@ -31,6 +34,8 @@ public class Tester {
 		System.out.println("MoNKey internal tests");
 		final int MAXROWS = 70, MAXCOLUMNS = 70;
 		printTest(monkey.mnk.ZobristHasher.distinctDisjuncts(MAXROWS, MAXCOLUMNS), "distinct Zobrist disjuncts");
+		printTest(bitBoardTest(BITBOARDGAMES), "bit boards agree with boards");
+		printTest(proofNumberTest(), "proof-number search agrees with the knowledge base");
 		System.out.println("MNKPlayerTester tests");
 		configurationTest(3, 3, 3); // patta
 		configurationTest(4, 3, 3); // vittoria
@@ -72,6 +77,88 @@ public class Tester {
 		System.out.println("\t" + (result ? '✓' : '×') + ' ' + name);
 	}
 
+	/**
+	 * Plays some random games of every configuration on both a {@link Board} and
+	 * a {@link BitBoard}, checking after each move and each reversion that they
+	 * agree on the end of the game, on the evaluation of both
+	 * {@link monkey.ai.Player Player}s and on their winning actions.
+	 *
+	 * @param games The number of games per configuration.
+	 * @return <code>true</code> just in case no disagreement was found.
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	protected static boolean bitBoardTest(int games) {
+		final java.util.Random random = new java.util.Random(0);
+		for (int[] c : BITBOARDCONFIGURATIONS) {
+			final Board board = new Board(c[0], c[1], c[2]);
+			final BitBoard bitBoard = new BitBoard(c[0], c[1], c[2]);
+			final int[] buffer = new int[board.SIZE];
+			for (int g = 0; g < games; ++g) {
+				int played = 0;
+				while (!board.terminalTest()) {
+					final int a = buffer[random.nextInt(board.actions(buffer))];
+					board.result(a);
+					bitBoard.result(a);
+					++played;
+					if (!agree(board, bitBoard))
+						return false;
+				}
+				while (played-- > 0) {
+					board.revert();
+					bitBoard.revert();
+					if (!agree(board, bitBoard))
+						return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Compares a {@link Board} with a {@link BitBoard} in the same position.
+	 *
+	 * @param board    The {@link Board}.
+	 * @param bitBoard The {@link BitBoard}.
+	 * @return <code>true</code> just in case they agree on the end of the game,
+	 *         on the evaluation of both {@link monkey.ai.Player Player}s and on
+	 *         their winning actions.
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	protected static boolean agree(Board board, BitBoard bitBoard) {
+		if (board.terminalTest() != bitBoard.terminalTest())
+			return false;
+		for (monkey.ai.Player p : monkey.ai.Player.values())
+			if (board.eval(p) != bitBoard.eval(p)
+					|| !board.terminalTest() && board.hasWinningActions(p) != bitBoard.hasWinningActions(p))
+				return false;
+		return true;
+	}
+
+	/**
+	 * Solves some small configurations by {@link monkey.mnk.ProofNumberSearch},
+	 * comparing their values with the knowledge base of {@link Board}.
+	 *
+	 * @return <code>true</code> just in case every configuration was solved and
+	 *         no disagreement was found.
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	protected static boolean proofNumberTest() {
+		for (int[] c : PROOFNUMBERCONFIGURATIONS) {
+			final Board board = new Board(c[0], c[1], c[2]);
+			final Integer value = new monkey.mnk.ProofNumberSearch(Long.MAX_VALUE, PROOFNUMBERMEGABYTES)
+					.gameValue(board, Long.MAX_VALUE);
+			if (value == null || value != board.initialBeta(monkey.ai.Player.P1))
+				return false;
+		}
+		return true;
+	}
+
 	/**
 	 * Tests a given m,n,k configuration. Just like in the official tournament, four
 	 * games for each configuration are played. Each player gets to move first two
@@ -97,4 +184,18 @@ public class Tester {
 				new String[] { "-r", "2", valueOfM, valueOfN, valueOfK, "mnkgame.QuasiRandomPlayer", "monkey.MoNKey" });
 	}
 
+	/** Number of random games of {@link #bitBoardTest} per configuration. */
+	final static private int BITBOARDGAMES = 20;
+	/** Configurations of {@link #bitBoardTest}. */
+	final static private int[][] BITBOARDCONFIGURATIONS = { { 3, 3, 3 }, { 4, 4, 3 }, { 5, 4, 4 }, { 7, 7, 5 },
+			{ 10, 10, 5 }, { 50, 50, 10 }, { 70, 70, 10 } };
+	/**
+	 * Configurations of {@link #proofNumberTest}, whose values are all known to
+	 * the knowledge base of {@link Board}.
+	 */
+	final static private int[][] PROOFNUMBERCONFIGURATIONS = { { 1, 1, 1 }, { 1, 2, 2 }, { 1, 3, 2 }, { 2, 2, 2 },
+			{ 3, 3, 3 }, { 4, 3, 3 }, { 4, 4, 3 }, { 4, 4, 4 }, { 5, 4, 4 }, { 6, 5, 4 }, { 6, 6, 4 } };
+	/** Memory budget of the transposition tables of {@link #proofNumberTest}. */
+	final static private int PROOFNUMBERMEGABYTES = 64;
+
 }
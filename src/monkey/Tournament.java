@@ -0,0 +1,646 @@
+package monkey;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import mnkgame.MNKBoard;
+import mnkgame.MNKCell;
+import mnkgame.MNKCellState;
+import mnkgame.MNKGameState;
+import mnkgame.MNKPlayer;
+import monkey.ai.table.TranspositionTable;
+
+/**
+ * A headless tournament between two {@link MNKPlayer}s, playing many games in
+ * parallel with the same rules of <code>mnkgame.MNKPlayerTester</code>: a
+ * player exceeding the time limit, returning an illegal move or throwing an
+ * exception loses. Games come in pairs on the same configuration, with
+ * swapped colors, and the configurations are cycled. After each game, the
+ * score of the first player is turned into an Elo difference with its 95%
+ * confidence interval, and a sequential probability ratio test decides
+ * whether such difference is at most <code>elo0</code> or at least
+ * <code>elo1</code>. See M. Van den Bergh, <i>A practical introduction to the
+ * GSPRT</i>, 2016. The tournament stops as soon as the test is decided. Each
+ * game and the final summary are written as JSON lines.
+ * <p>
+ * Players are given as
+ * <code>class[@classpath][,property=value]...</code>. Each player is loaded by
+ * its own class loader, from its own class path if any, so that two builds of
+ * the same class can be compared, and the system properties are set while its
+ * class is initialized only. The players of {@link monkey} read their
+ * configuration from such properties.
+ *
+ * @author Stefano Volpe
+ * @version 1.0
+ * @since 1.0
+ */
+public class Tournament {
+
+	/**
+	 * Runs a tournament.
+	 *
+	 * @param args <code>[-c m,n,k]... [-t seconds] [-g games] [-j threads]
+	 *             [-e elo0,elo1] [-o file] player1 player2</code>, where
+	 *             <code>-c</code> can be repeated and defaults to every
+	 *             configuration of {@link Tester}.
+	 * @throws IllegalArgumentException The arguments are not valid.
+	 * @throws IOException              The results cannot be written.
+	 * @throws InterruptedException     Interrupted while waiting for the games.
+	 * @throws ReflectiveOperationException A player cannot be instantiated.
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	public static void main(String[] args)
+			throws IOException, InterruptedException, ReflectiveOperationException {
+		final ArrayList<int[]> configurations = new ArrayList<int[]>();
+		final ArrayList<String> players = new ArrayList<String>();
+		int timeout = DEFAULTTIMEOUT, games = DEFAULTGAMES, threads = Runtime.getRuntime().availableProcessors();
+		double elo0 = DEFAULTELO0, elo1 = DEFAULTELO1;
+		String output = DEFAULTOUTPUT;
+		for (int i = 0; i < args.length; ++i)
+			switch (args[i]) {
+			case "-c": {
+				final String[] mnk = args[++i].split(",");
+				configurations.add(new int[] { Integer.parseInt(mnk[0]), Integer.parseInt(mnk[1]),
+						Integer.parseInt(mnk[2]) });
+				break;
+			}
+			case "-t":
+				timeout = Integer.parseInt(args[++i]);
+				break;
+			case "-g":
+				games = Integer.parseInt(args[++i]);
+				break;
+			case "-j":
+				threads = Integer.parseInt(args[++i]);
+				break;
+			case "-e": {
+				final String[] bounds = args[++i].split(",");
+				elo0 = Double.parseDouble(bounds[0]);
+				elo1 = Double.parseDouble(bounds[1]);
+				break;
+			}
+			case "-o":
+				output = args[++i];
+				break;
+			default:
+				players.add(args[i]);
+			}
+		if (players.size() != 2 || timeout <= 0 || games <= 0 || threads <= 0 || elo0 >= elo1)
+			throw new IllegalArgumentException("Usage: [-c m,n,k]... [-t seconds] [-g games] [-j threads] "
+					+ "[-e elo0,elo1] [-o file] player1 player2");
+		if (configurations.isEmpty())
+			configurations.addAll(Arrays.asList(CONFIGURATIONS));
+		final Map<String, String> defaults = new HashMap<String, String>();
+		defaults.put("monkey.ponder", "false");
+		defaults.put("monkey.ttmegabytes", String.valueOf(Math.max(1,
+				Runtime.getRuntime().maxMemory() / TranspositionTable.DEFAULTMEMORYFRACTION
+						/ TranspositionTable.MEGABYTE / (2 * threads))));
+		final Tournament t = new Tournament(configurations, players.toArray(new String[2]), timeout, games, elo0,
+				elo1);
+		for (String name : t.names)
+			t.playerClasses.add(loadPlayer(name, defaults));
+		final java.nio.file.Path parent = Paths.get(output).toAbsolutePath().getParent();
+		if (parent != null)
+			Files.createDirectories(parent);
+		try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(Paths.get(output)))) {
+			t.out = out;
+			System.out.println("MoNKey tournament: " + t.names[0] + " vs " + t.names[1] + ", " + threads
+					+ " parallel games, " + timeout + "s per move");
+			final Thread[] workers = new Thread[threads];
+			for (int i = 0; i < workers.length; ++i) {
+				workers[i] = new Thread(t::work);
+				workers[i].start();
+			}
+			for (Thread w : workers)
+				w.join();
+			t.summary();
+		}
+		System.out.println("Results written to " + output);
+		// players may still be pondering or exceeding their time limits
+		System.exit(0);
+	}
+
+	/**
+	 * Constructs a new {@link Tournament}.
+	 *
+	 * @param c        The configurations, cycled every two games.
+	 * @param n        The specifications of the two players.
+	 * @param t        The time limit of each move in seconds.
+	 * @param g        The maximum number of games.
+	 * @param e0       The Elo difference of the null hypothesis.
+	 * @param e1       The Elo difference of the alternative hypothesis.
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	private Tournament(List<int[]> c, String[] n, int t, int g, double e0, double e1) {
+		configurations = c;
+		names = n;
+		timeout = t;
+		maxGames = g;
+		elo0 = e0;
+		elo1 = e1;
+	}
+
+	/**
+	 * Loads the class of a player with its own class loader, setting some system
+	 * properties while such class is initialized.
+	 *
+	 * @param spec     <code>class[@classpath][,property=value]...</code>.
+	 * @param defaults Properties set unless the specification sets them too.
+	 * @return The class of the player.
+	 * @throws ReflectiveOperationException The class cannot be loaded or
+	 *                                      instantiated.
+	 * @throws MalformedURLException        The class path is not valid.
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	protected static Class<? extends MNKPlayer> loadPlayer(String spec, Map<String, String> defaults)
+			throws ReflectiveOperationException, MalformedURLException {
+		final String[] parts = spec.split(",");
+		final Map<String, String> properties = new HashMap<String, String>(defaults);
+		for (int i = 1; i < parts.length; ++i) {
+			final int equals = parts[i].indexOf('=');
+			properties.put(parts[i].substring(0, equals), parts[i].substring(equals + 1));
+		}
+		final int at = parts[0].indexOf('@');
+		final String className = at < 0 ? parts[0] : parts[0].substring(0, at);
+		final String[] path = (at < 0 ? System.getProperty("java.class.path") : parts[0].substring(at + 1))
+				.split(File.pathSeparator);
+		final URL[] urls = new URL[path.length];
+		for (int i = 0; i < path.length; ++i)
+			urls[i] = Paths.get(path[i]).toUri().toURL();
+		final Map<String, String> previous = new HashMap<String, String>();
+		for (Map.Entry<String, String> p : properties.entrySet())
+			previous.put(p.getKey(), System.setProperty(p.getKey(), p.getValue()));
+		try {
+			final Class<? extends MNKPlayer> res = Class.forName(className, true, new PlayerClassLoader(urls))
+					.asSubclass(MNKPlayer.class);
+			res.getDeclaredConstructor().newInstance();
+			return res;
+		} finally {
+			for (Map.Entry<String, String> p : previous.entrySet())
+				if (p.getValue() == null)
+					System.clearProperty(p.getKey());
+				else
+					System.setProperty(p.getKey(), p.getValue());
+		}
+	}
+
+	/**
+	 * Body of each worker thread: plays games until the maximum number of games
+	 * is reached or the test is decided.
+	 *
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	private void work() {
+		for (int g = nextGame.getAndIncrement(); g < maxGames && decision == null; g = nextGame.getAndIncrement())
+			try {
+				play(g);
+			} catch (ReflectiveOperationException e) {
+				throw new IllegalStateException(e);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+	}
+
+	/**
+	 * Plays a single game and records its result. In even games the first
+	 * player of the tournament moves first, in odd ones the second does.
+	 *
+	 * @param g The index of the game.
+	 * @throws ReflectiveOperationException A player cannot be instantiated.
+	 * @throws InterruptedException         Interrupted while waiting for a move.
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	private void play(int g) throws ReflectiveOperationException, InterruptedException {
+		final int[] c = configurations.get(g / 2 % configurations.size());
+		final int m = c[0], n = c[1], k = c[2];
+		final int[] seats = { g % 2, 1 - g % 2 };
+		final MNKPlayer[] players = new MNKPlayer[2];
+		final ExecutorService[] executors = new ExecutorService[2];
+		for (int i = 0; i < 2; ++i) {
+			players[i] = playerClasses.get(seats[i]).getDeclaredConstructor().newInstance();
+			executors[i] = Executors.newSingleThreadExecutor(r -> {
+				final Thread res = new Thread(r);
+				res.setDaemon(true);
+				return res;
+			});
+		}
+		final long startTime = System.currentTimeMillis();
+		final MNKBoard board = new MNKBoard(m, n, k);
+		// the player being called, who loses if the game ends abnormally
+		int current = 0;
+		String reason = null;
+		try {
+			while (reason == null && current < 2) {
+				final MNKPlayer p = players[current];
+				final boolean first = current == 0;
+				if (call(executors[current], () -> {
+					p.initPlayer(m, n, k, first, timeout);
+					return null;
+				}))
+					++current;
+				else
+					reason = TIMEOUT;
+			}
+			while (reason == null && board.gameState() == MNKGameState.OPEN) {
+				current = board.currentPlayer();
+				final MNKPlayer p = players[current];
+				final MNKCell[] fc = board.getFreeCells(), mc = board.getMarkedCells();
+				final MNKCell[] selected = new MNKCell[1];
+				if (!call(executors[current], () -> selected[0] = p.selectCell(fc, mc)))
+					reason = TIMEOUT;
+				else if (selected[0] == null || selected[0].i < 0 || selected[0].i >= m || selected[0].j < 0
+						|| selected[0].j >= n || board.cellState(selected[0].i, selected[0].j) != MNKCellState.FREE)
+					reason = ILLEGAL;
+				else
+					board.markCell(selected[0].i, selected[0].j);
+			}
+		} catch (ExecutionException e) {
+			reason = ERROR;
+		} finally {
+			for (ExecutorService e : executors)
+				e.shutdownNow();
+		}
+		final int winner;
+		if (reason != null)
+			winner = 1 - current;
+		else {
+			reason = board.gameState() == MNKGameState.DRAW ? DRAW : WIN;
+			winner = board.gameState() == MNKGameState.DRAW ? -1 : board.gameState() == MNKGameState.WINP1 ? 0 : 1;
+		}
+		record(g, c, seats, winner, reason, board.getMarkedCells().length, System.currentTimeMillis() - startTime);
+	}
+
+	/**
+	 * Runs a call of a player within the time limit.
+	 *
+	 * @param executor The thread of the player.
+	 * @param task     The call.
+	 * @return <code>false</code> just in case the time limit was exceeded.
+	 * @throws ExecutionException   The player threw an exception.
+	 * @throws InterruptedException Interrupted while waiting for the player.
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	private boolean call(ExecutorService executor, Callable<Object> task)
+			throws ExecutionException, InterruptedException {
+		final Future<Object> future = executor.submit(task);
+		try {
+			future.get(timeout, TimeUnit.SECONDS);
+			return true;
+		} catch (TimeoutException e) {
+			future.cancel(true);
+			return false;
+		}
+	}
+
+	/**
+	 * Records the result of a game, updating the test, printing a progress line
+	 * and writing the game as a JSON line. Games ending after the test was decided
+	 * are ignored.
+	 *
+	 * @param g       The index of the game.
+	 * @param c       The configuration.
+	 * @param seats   The index of the player moving first, then the other.
+	 * @param winner  The winner, 0 if they moved first, 1 if they moved second,
+	 *                or -1 in case of a draw.
+	 * @param reason  How the game ended.
+	 * @param moves   The number of moves played.
+	 * @param elapsed The duration of the game in milliseconds.
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	private synchronized void record(int g, int[] c, int[] seats, int winner, String reason, int moves,
+			long elapsed) {
+		if (decision != null)
+			return;
+		final double score = winner < 0 ? 0.5 : seats[winner] == 0 ? 1 : 0;
+		if (score == 1)
+			++wins;
+		else if (score == 0)
+			++losses;
+		else
+			++draws;
+		final double llr = llr();
+		out.println(String.format(Locale.ROOT,
+				"{ \"type\" : \"game\", \"game\" : %d, \"configuration\" : \"%d,%d,%d\", \"first\" : %s, "
+						+ "\"second\" : %s, \"result\" : \"%s\", \"reason\" : \"%s\", \"score\" : %.1f, \"moves\" : %d, "
+						+ "\"milliseconds\" : %d, \"llr\" : %f }",
+				g, c[0], c[1], c[2], quote(names[seats[0]]), quote(names[seats[1]]),
+				winner < 0 ? "1/2-1/2" : winner == 0 ? "1-0" : "0-1", reason, score, moves, elapsed, llr));
+		out.flush();
+		System.out.printf(Locale.ROOT, "%4d %2d,%2d,%2d-game %s, %-7s W-D-L %d-%d-%d, Elo %s, LLR %.2f [%.2f, %.2f]%n",
+				wins + draws + losses, c[0], c[1], c[2], winner < 0 ? "1/2-1/2" : winner == 0 ? "1-0" : "0-1",
+				reason, wins, draws, losses, formatElo(), llr, lowerBound(), upperBound());
+		if (llr >= upperBound())
+			decision = "H1";
+		else if (llr <= lowerBound())
+			decision = "H0";
+	}
+
+	/**
+	 * Prints the final results and writes them as a JSON line.
+	 *
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	private synchronized void summary() {
+		final double[] interval = eloInterval();
+		final String res = decision == null ? "none" : decision;
+		out.println(String.format(Locale.ROOT,
+				"{ \"type\" : \"summary\", \"players\" : [ %s, %s ], \"games\" : %d, \"wins\" : %d, \"draws\" : %d, "
+						+ "\"losses\" : %d, \"score\" : %f, \"elo\" : %s, \"eloLower\" : %s, \"eloUpper\" : %s, "
+						+ "\"llr\" : %f, \"lowerBound\" : %f, \"upperBound\" : %f, \"elo0\" : %f, \"elo1\" : %f, "
+						+ "\"alpha\" : %f, \"beta\" : %f, \"decision\" : \"%s\" }",
+				quote(names[0]), quote(names[1]), wins + draws + losses, wins, draws, losses, score(),
+				jsonNumber(elo(score())), jsonNumber(interval[0]), jsonNumber(interval[1]), llr(), lowerBound(),
+				upperBound(), elo0, elo1, ALPHA, BETA, res));
+		System.out.printf(Locale.ROOT, "W-D-L %d-%d-%d, Elo %s, SPRT(%.1f, %.1f): %s%n", wins, draws, losses,
+				formatElo(), elo0, elo1, decision == null ? "undecided" : decision.equals("H1")
+						? names[0] + " is stronger" : names[0] + " is not stronger");
+	}
+
+	/**
+	 * Computes the score of the first player.
+	 *
+	 * @return The average score, or 0.5 if no game was played.
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	private double score() {
+		final int games = wins + draws + losses;
+		return games == 0 ? 0.5 : (wins + draws / 2.0) / games;
+	}
+
+	/**
+	 * Computes the variance of the score of a single game.
+	 *
+	 * @return The variance.
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	private double variance() {
+		final int games = wins + draws + losses;
+		final double s = score();
+		return games == 0 ? 0
+				: (wins * (1 - s) * (1 - s) + draws * (0.5 - s) * (0.5 - s) + losses * s * s) / games;
+	}
+
+	/**
+	 * Computes the log-likelihood ratio of the alternative hypothesis, using the
+	 * normal approximation of the trinomial distribution of the results.
+	 *
+	 * @return The log-likelihood ratio, or 0 if the variance is null.
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	private double llr() {
+		final double variance = variance();
+		if (variance == 0)
+			return 0;
+		final double s0 = expectedScore(elo0), s1 = expectedScore(elo1);
+		return (wins + draws + losses) * (s1 - s0) * (2 * score() - s0 - s1) / (2 * variance);
+	}
+
+	/**
+	 * Computes the 95% confidence interval of the Elo difference.
+	 *
+	 * @return The lower and the upper extremes, which may be infinite.
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	private double[] eloInterval() {
+		final int games = wins + draws + losses;
+		final double delta = games == 0 ? 0.5 : NORMAL975 * Math.sqrt(variance() / games);
+		return new double[] { elo(score() - delta), elo(score() + delta) };
+	}
+
+	/**
+	 * Formats the Elo difference with its 95% confidence interval.
+	 *
+	 * @return The formatted difference.
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	private String formatElo() {
+		final double[] interval = eloInterval();
+		return String.format(Locale.ROOT, "%+.1f [%+.1f, %+.1f]", elo(score()), interval[0], interval[1]);
+	}
+
+	/**
+	 * Returns the lower bound of the log-likelihood ratio.
+	 *
+	 * @return The bound below which the null hypothesis is accepted.
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	private static double lowerBound() {
+		return Math.log(BETA / (1 - ALPHA));
+	}
+
+	/**
+	 * Returns the upper bound of the log-likelihood ratio.
+	 *
+	 * @return The bound above which the alternative hypothesis is accepted.
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	private static double upperBound() {
+		return Math.log((1 - BETA) / ALPHA);
+	}
+
+	/**
+	 * Converts an expected score into an Elo difference.
+	 *
+	 * @param score The expected score.
+	 * @return The Elo difference, which is infinite if score is not in (0, 1).
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	protected static double elo(double score) {
+		if (score <= 0)
+			return Double.NEGATIVE_INFINITY;
+		if (score >= 1)
+			return Double.POSITIVE_INFINITY;
+		return -400 * Math.log10(1 / score - 1);
+	}
+
+	/**
+	 * Converts an Elo difference into an expected score.
+	 *
+	 * @param elo The Elo difference.
+	 * @return The expected score.
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	protected static double expectedScore(double elo) {
+		return 1 / (1 + Math.pow(10, -elo / 400));
+	}
+
+	/**
+	 * Formats a number as a JSON value.
+	 *
+	 * @param x The number.
+	 * @return The number, or <code>null</code> if it is not finite.
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	private static String jsonNumber(double x) {
+		return Double.isFinite(x) ? String.format(Locale.ROOT, "%f", x) : "null";
+	}
+
+	/**
+	 * Formats a string as a JSON value.
+	 *
+	 * @param s The string.
+	 * @return The quoted and escaped string.
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	private static String quote(String s) {
+		return '"' + s.replace("\\", "\\\\").replace("\"", "\\\"") + '"';
+	}
+
+	/**
+	 * A <code>PlayerClassLoader</code> loads the classes of a player from its own
+	 * class path before looking for them in the Java runtime, except for the ones
+	 * of the <code>mnkgame</code> package, which are shared with the
+	 * {@link Tournament}.
+	 *
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	private static class PlayerClassLoader extends URLClassLoader {
+
+		/**
+		 * Constructs a new {@link PlayerClassLoader} given its class path.
+		 *
+		 * @param urls The class path.
+		 * @author Stefano Volpe
+		 * @version 1.0
+		 * @since 1.0
+		 */
+		PlayerClassLoader(URL[] urls) {
+			super(urls, ClassLoader.getPlatformClassLoader());
+		}
+
+		/**
+		 * {@inheritDoc} <br>
+		 * The classes of the <code>mnkgame</code> package are loaded by the class
+		 * loader of the {@link Tournament}.
+		 */
+		@Override
+		protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+			if (name.startsWith(SHAREDPACKAGE))
+				return Tournament.class.getClassLoader().loadClass(name);
+			return super.loadClass(name, resolve);
+		}
+
+		/** Prefix of the classes shared with the {@link Tournament}. */
+		final static private String SHAREDPACKAGE = "mnkgame.";
+
+	}
+
+	/** Default time limit of each move in seconds. */
+	final static private int DEFAULTTIMEOUT = 1;
+	/** Default maximum number of games. */
+	final static private int DEFAULTGAMES = 1000;
+	/** Default Elo difference of the null hypothesis. */
+	final static private double DEFAULTELO0 = 0;
+	/** Default Elo difference of the alternative hypothesis. */
+	final static private double DEFAULTELO1 = 10;
+	/** Default path of the results. */
+	final static private String DEFAULTOUTPUT = "build/tournament.jsonl";
+	/** Probability of accepting the alternative hypothesis when it is false. */
+	final static private double ALPHA = 0.05;
+	/** Probability of accepting the null hypothesis when it is false. */
+	final static private double BETA = 0.05;
+	/** Quantile of order 0.975 of the standard normal distribution. */
+	final static private double NORMAL975 = 1.959964;
+	/** Reason of a game won by an alignment. */
+	final static private String WIN = "win";
+	/** Reason of a drawn game. */
+	final static private String DRAW = "draw";
+	/** Reason of a game lost by exceeding the time limit. */
+	final static private String TIMEOUT = "timeout";
+	/** Reason of a game lost by an illegal move. */
+	final static private String ILLEGAL = "illegal";
+	/** Reason of a game lost by throwing an exception. */
+	final static private String ERROR = "error";
+	/** The configurations of {@link Tester}. */
+	final static private int[][] CONFIGURATIONS = { { 3, 3, 3 }, { 4, 3, 3 }, { 4, 4, 3 }, { 4, 4, 4 }, { 5, 4, 4 },
+			{ 5, 5, 4 }, { 5, 5, 5 }, { 6, 4, 4 }, { 6, 5, 4 }, { 6, 6, 4 }, { 6, 6, 5 }, { 6, 6, 6 }, { 7, 4, 4 },
+			{ 7, 5, 4 }, { 7, 6, 4 }, { 7, 7, 4 }, { 7, 5, 5 }, { 7, 6, 5 }, { 7, 7, 5 }, { 7, 7, 6 }, { 7, 7, 7 },
+			{ 8, 8, 4 }, { 10, 10, 5 }, { 50, 50, 10 }, { 70, 70, 10 } };
+	/** The configurations played, cycled every two games. */
+	final private List<int[]> configurations;
+	/** The specifications of the two players. */
+	final private String[] names;
+	/** The classes of the two players. */
+	final private List<Class<? extends MNKPlayer>> playerClasses = new ArrayList<Class<? extends MNKPlayer>>(2);
+	/** The time limit of each move in seconds. */
+	final private int timeout;
+	/** The maximum number of games. */
+	final private int maxGames;
+	/** The Elo difference of the null hypothesis. */
+	final private double elo0;
+	/** The Elo difference of the alternative hypothesis. */
+	final private double elo1;
+	/** Index of the next game to be played. */
+	final private AtomicInteger nextGame = new AtomicInteger();
+	/** Where the results are written. */
+	private PrintWriter out;
+	/** Games won by the first player. */
+	private int wins = 0;
+	/** Drawn games. */
+	private int draws = 0;
+	/** Games lost by the first player. */
+	private int losses = 0;
+	/** The accepted hypothesis, or <code>null</code> if the test is undecided. */
+	private volatile String decision = null;
+
+}
@@ -0,0 +1,88 @@
+package monkey;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import monkey.mnk.Board;
+import monkey.mnk.ProofNumberSearch;
+
+/**
+ * Solves the m,n,k configurations of {@link BookBuilder} by
+ * {@link ProofNumberSearch}, writing the theoretical game value of each one
+ * solved within the time limit to a text file read by {@link MoNKey}. The
+ * values found this way take precedence over the knowledge base of
+ * {@link Board}.
+ *
+ * @author Gaia Clerici
+ * @version 1.0
+ * @since 1.0
+ */
+public class ValueBuilder {
+
+	/**
+	 * This class cannot be instantiated.
+	 *
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	private ValueBuilder() {
+	}
+
+	/**
+	 * Solves the configurations.
+	 *
+	 * @param args An optional number of milliseconds per configuration, followed
+	 *             by an optional output directory.
+	 * @throws IOException A value cannot be written.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	public static void main(String[] args) throws IOException {
+		final long timeLimit = args.length > 0 ? Long.parseLong(args[0]) : DEFAULTTIMELIMIT;
+		final String directory = args.length > 1 ? args[1] : DEFAULTDIRECTORY;
+		Files.createDirectories(Paths.get(directory));
+		System.out.println("MoNKey game values (" + timeLimit + "ms per configuration)");
+		for (int[] c : BookBuilder.CONFIGURATIONS)
+			solve(c[0], c[1], c[2], timeLimit, directory);
+	}
+
+	/**
+	 * Solves a certain configuration, writing its value if it is found, then
+	 * prints the value and the time needed to find it.
+	 *
+	 * @param m         The number of rows.
+	 * @param n         The number of columns.
+	 * @param k         The length of a winning alignment.
+	 * @param timeLimit The time limit of the search in milliseconds.
+	 * @param directory The output directory.
+	 * @throws IllegalArgumentException At least one of the numeric arguments is
+	 *                                  not strictly positive.
+	 * @throws IOException              The value cannot be written.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	protected static void solve(int m, int n, int k, long timeLimit, String directory) throws IOException {
+		if (m <= 0 || n <= 0 || k <= 0 || timeLimit <= 0)
+			throw new IllegalArgumentException("At least one of the numeric arguments is not strictly positive.");
+		System.out.print(m + "," + n + "," + k + "-game:");
+		final long startTime = System.currentTimeMillis();
+		final ProofNumberSearch solver = new ProofNumberSearch(Long.MAX_VALUE, TTMEGABYTES);
+		final Integer value = solver.gameValue(new Board(m, n, k), startTime + timeLimit);
+		if (value != null)
+			Files.writeString(MoNKey.configurationFile(directory, m, n, k, MoNKey.VALUEEXTENSION), value + "\n");
+		final String outcome = value == null ? "unknown"
+				: value == Board.VICTORYUTILITY ? "victory" : value == Board.DRAWUTILITY ? "draw" : "loss";
+		System.out.println(" " + outcome + " " + MoNKey.formatTimeInterval(System.currentTimeMillis() - startTime));
+	}
+
+	/** Default time limit of each configuration in milliseconds. */
+	final static private long DEFAULTTIMELIMIT = 10000;
+	/** Default output directory. */
+	final static private String DEFAULTDIRECTORY = "book";
+	/** Memory budget of the transposition table of each search in megabytes. */
+	final static private int TTMEGABYTES = 256;
+
+}
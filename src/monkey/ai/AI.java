@@ -1,31 +1,61 @@
 package monkey.ai;
 
-import java.util.HashMap;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.TimeoutException;
-import monkey.ai.table.Entry;
-import monkey.ai.table.SearchResult;
-import monkey.ai.table.SearchResult.ScoreType;
-import monkey.util.ObjectUtils;
+import java.util.concurrent.atomic.AtomicInteger;
+import jdk.jfr.FlightRecorder;
+import monkey.ai.table.OpeningBook;
+import monkey.ai.table.ScoreType;
+import monkey.ai.table.TranspositionTable;
 
 /**
  * An <code>AI</code> is a generic, backtracking alpha-beta pruner for a
  * deterministic, turn-taking, two-player, zero-sum game of perfect information.
  * See S. Russell, P. Norvig, <i>Artificial Intelligence: A Modern Approach</i>,
- * 3rd ed., Prentice Hall, p. 167f.
+ * 3rd ed., Prentice Hall, p. 167f. Below the root, actions are handled in
+ * their {@link IntState encoded} form only, so that no object is allocated for
+ * each inspected node.
  *
- * @param <S> The type to be used for game {@link State}s.
+ * @param <S> The type to be used for game {@link IntState}s.
  * @param <A> The type of the moves of the game.
  * @author Gaia Clerici
  * @version 1.0
  * @since 1.0
  */
-public class AI<S extends State<S, A>, A> {
+public class AI<S extends IntState<S, A>, A> {
+
+	/**
+	 * An <code>Engine</code> is a driver for the deep search performed at each
+	 * iteration of {@link AI#iterativeDeepeningSearch}.
+	 *
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	public enum Engine {
+
+		/** See {@link AI#bestNodeLimitedSearch}. */
+		BEST_NODE,
+		/** See {@link AI#parallelBestNodeLimitedSearch}. */
+		PARALLEL_BEST_NODE,
+		/** See {@link AI#principalVariationSearch}. */
+		PRINCIPAL_VARIATION,
+		/** See {@link AI#mtdf}. */
+		MTDF
+
+	}
 
 	/**
 	 * Constructs a new {@link AI} for a certain {@link Player} given an initial
-	 * {@link State} and a timeout in milliseconds.
+	 * {@link State} and a timeout in milliseconds. The memory budget of the
+	 * transposition table is derived from the maximum amount of memory the JVM
+	 * will attempt to use.
 	 *
+	 * @see TranspositionTable#defaultMegabytes
 	 * @param p  The player the {@link AI} will play as.
 	 * @param s0 The initial {@link State} of the game.
 	 * @param t  The maximum number of milliseconds usable to select a move.
@@ -35,13 +65,76 @@ public class AI<S extends State<S, A>, A> {
 	 * @since 1.0
 	 */
 	public AI(Player p, S s0, long t) {
+		this(p, s0, t, TranspositionTable.defaultMegabytes());
+	}
+
+	/**
+	 * Constructs a new {@link AI} for a certain {@link Player} given an initial
+	 * {@link State}, a timeout in milliseconds and the memory budget of its
+	 * transposition table.
+	 *
+	 * @param p            The player the {@link AI} will play as.
+	 * @param s0           The initial {@link State} of the game.
+	 * @param t            The maximum number of milliseconds usable to select a
+	 *                     move.
+	 * @param ttMegabytes  The memory budget of the transposition table in
+	 *                     megabytes.
+	 * @throws NullPointerException     Any of the arguments are
+	 *                                  <code>null</code>.
+	 * @throws IllegalArgumentException ttMegabytes is not strictly positive.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	public AI(Player p, S s0, long t, int ttMegabytes) {
 		// if (p == null || s0 == null)
 		// throw new NullPointerException("Some of the arguments are null.");
 		player = p;
 		state = s0;
 		timeLimit = t;
-		final int capacity = state.ttSuggestedCapacity();
-		transpositionTable = new HashMap<Integer, Entry<S, A>>(capacity);
+		transpositionTable = new TranspositionTable(ttMegabytes);
+		ordering = new MoveOrdering(s0.maxActions());
+	}
+
+	/**
+	 * Constructs a new helper {@link AI} for Lazy SMP or a worker for
+	 * {@link #parallelBestNodeLimitedSearch}. It plays as the same
+	 * {@link Player} of its master, searches a clone of its current {@link State}
+	 * and shares its transposition table and time limit.
+	 *
+	 * @param master The {@link AI} to help.
+	 * @throws NullPointerException master is <code>null</code>.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	private AI(AI<S, A> master) {
+		this(master, master.state.clone());
+	}
+
+	/**
+	 * Constructs a new helper {@link AI} searching a certain {@link State}. It
+	 * plays as the same {@link Player} of its master and shares its
+	 * transposition table and time limit.
+	 *
+	 * @param master The {@link AI} to help.
+	 * @param s      The {@link State} to search, which is not shared with the
+	 *               master.
+	 * @throws NullPointerException master or s are <code>null</code>.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	private AI(AI<S, A> master, S s) {
+		player = master.player;
+		state = s;
+		timeLimit = master.timeLimit;
+		transpositionTable = master.transpositionTable;
+		startTime = master.startTime;
+		ordering = new MoveOrdering(state.maxActions());
+		isOrderingEnabled = master.isOrderingEnabled;
+		candidateWidth = master.candidateWidth;
+		stats = master.stats == null ? null : new SearchStats();
 	}
 
 	/**
@@ -72,29 +165,337 @@ public class AI<S extends State<S, A>, A> {
 	 * @since 1.0
 	 */
 	public A iterativeDeepeningSearch() {
+		return iterativeDeepeningSearch(state.overestimatedHeight());
+	}
+
+	/**
+	 * When called in a state in which the player has the move, selects one of the
+	 * legal actions to be played using iterative deepening search up to a certain
+	 * depth. See S. Russell, P. Norvig, <i>Artificial Intelligence: A Modern
+	 * Approach</i>, 3rd ed., Prentice Hall, p. 88f. Pondering is stopped first. If
+	 * an {@link OpeningBook} has been set and contains the current {@link State},
+	 * its action is played at once. The action cached in the transposition table
+	 * for the current {@link State}, if any, is kept as a fallback. If the
+	 * opponent played the reply expected by pondering, the iterations already
+	 * completed by it are skipped, and the cached action is played at once if
+	 * pondering solved the whole game. If a {@link Solver} has been set, it is
+	 * given the chance to find a forced win. Each iteration is driven by the
+	 * current {@link Engine}. If more than one thread is available and the
+	 * {@link Engine} is not parallel itself, Lazy SMP is used: helper threads
+	 * search their own clone of the current {@link State} with staggered depths,
+	 * filling the shared transposition table, while the result of the calling
+	 * thread stays authoritative.
+	 *
+	 * If {@link #setStatistics statistics} are enabled or a Java Flight Recorder
+	 * recording enables the <code>monkey.Search</code> event, the
+	 * {@link SearchStats} of the search are collected and committed as such an
+	 * event.
+	 *
+	 * @see #setThreads
+	 * @see #setEngine
+	 * @see #getSearchStats
+	 * @param maxLimit Maximum depth to be inspected.
+	 * @throws IllegalArgumentException The player does not have the move or if the
+	 *                                  state is terminal.
+	 * @return A legal action to be played.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	public A iterativeDeepeningSearch(int maxLimit) {
+		// loading an event class takes hundreds of milliseconds: not before
+		// Flight Recorder itself is used
+		SearchEvent event = null;
+		if (FlightRecorder.isInitialized()) {
+			event = new SearchEvent();
+			if (event.isEnabled())
+				event.begin();
+			else
+				event = null;
+		}
+		final long startNanos = isStatisticsEnabled || event != null ? System.nanoTime() : 0;
+		stats = isStatisticsEnabled || event != null ? new SearchStats() : null;
+		final A res = selectAction(maxLimit);
+		if (stats != null) {
+			for (AI<S, A> worker : rootWorkers)
+				stats.add(worker.stats);
+			stats.finish(getInspectedNodes(), reachedDepth, System.nanoTime() - startNanos, isPonderHit);
+			if (event != null) {
+				event.set(stats);
+				event.commit();
+			}
+		}
+		return res;
+	}
+
+	/**
+	 * Body of {@link #iterativeDeepeningSearch}, which only adds the collection
+	 * of its {@link SearchStats}.
+	 *
+	 * @param maxLimit Maximum depth to be inspected.
+	 * @return A legal action to be played.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	private A selectAction(int maxLimit) {
+		stopPondering();
 		startTime = System.currentTimeMillis();
+		stopped = false;
+		lastClockReading = startTime;
+		clockCountdown = clockPollInterval = 1;
 		// if (state.terminalTest())
 		// throw new IllegalArgumentException("s is a terminal state.");
 		// if (player != state.player())
 		// throw new IllegalArgumentException("It's not your turn.");
 
-		final S backupState = state.clone();
-		final int maxLimit = state.overestimatedHeight();
+		inspectedNodes = 0;
+		reachedDepth = -1;
+		isPonderHit = false;
+		rootWorkers.clear();
+		idleRootWorkers.clear();
+		if (book != null) {
+			final int bookMove = book.probe(state);
+			if (bookMove >= 0) {
+				ponderer = null;
+				return state.decodeAction(bookMove);
+			}
+		}
+		final int rootMark = state.mark();
+		final int helpersNumber = engine == Engine.PARALLEL_BEST_NODE ? 0 : threads - 1;
+		final ArrayList<AI<S, A>> helpers = new ArrayList<AI<S, A>>(helpersNumber);
+		final ArrayList<Thread> helperThreads = new ArrayList<Thread>(helpersNumber);
+		hasPreviousScore = false;
+		ordering.newSearch();
+		isPonderHit = ponderer != null && ponderer.reachedDepth > 0 && state.longHashCode() == ponderer.ponderKey;
 		A res = null;
-		for (int depthLimit = 0; depthLimit <= maxLimit; ++depthLimit)
-			try {
+		int depthLimit = 0;
+		if (transpositionTable.probe(state, maxLimit, cachedSlot)) {
+			res = state.decodeAction(state.revertFromHashedAction(TranspositionTable.getMove(cachedSlot)));
+			if (isPonderHit && TranspositionTable.getFlag(cachedSlot) == ScoreType.TRUEVALUE) {
+				if (ponderer.isPonderComplete)
+					return res;
+				reachedDepth = TranspositionTable.getDepth(cachedSlot);
+				depthLimit = reachedDepth + 1;
+				previousScore = TranspositionTable.getScore(cachedSlot);
+				hasPreviousScore = true;
+			}
+		}
+		ponderer = null;
+		if (solver != null) {
+			final int winningMove = solver.solve(state, startTime + (long) (timeLimit * SOLVERTIMEFRACTION));
+			if (winningMove >= 0)
+				return state.decodeAction(winningMove);
+		}
+		for (int i = 1; i <= helpersNumber; ++i) {
+			final AI<S, A> helper = new AI<S, A>(this);
+			final int firstDepth = 1 + i % 2;
+			final Thread helperThread = new Thread(() -> helper.helperSearch(firstDepth, maxLimit));
+			helperThread.setDaemon(true);
+			helperThread.start();
+			helpers.add(helper);
+			helperThreads.add(helperThread);
+		}
+		try {
+			for (; depthLimit <= maxLimit; ++depthLimit) {
 				// System.err.println("\t🙈 = " + depthLimit);
-				res = bestNodeLimitedSearch(depthLimit);
-			} catch (TimeoutException e) {
-				state = backupState;
-				return res != null ? res : state.actions().next();
+				res = search(depthLimit);
+				reachedDepth = depthLimit;
 			}
+		} catch (TimeoutException e) {
+			state.rewind(rootMark);
+			if (res == null)
+				res = state.actions().next();
+		} finally {
+			for (AI<S, A> helper : helpers)
+				helper.stopped = true;
+			for (Thread helperThread : helperThreads)
+				try {
+					helperThread.join();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+		}
 		return res;
 	}
 
+	/**
+	 * Sets the {@link Engine} used by {@link #iterativeDeepeningSearch}. Dynamic
+	 * move ordering is enabled along with principal variation search and MTD(f),
+	 * and disabled along with best-node search, which inspects more nodes with it
+	 * on most configurations.
+	 *
+	 * @see #setMoveOrdering
+	 * @param e The new {@link Engine}.
+	 * @throws NullPointerException e is <code>null</code>.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	public void setEngine(Engine e) {
+		if (e == null)
+			throw new NullPointerException("e is null.");
+		engine = e;
+		isOrderingEnabled = e == Engine.PRINCIPAL_VARIATION || e == Engine.MTDF;
+	}
+
+	/**
+	 * Sets the number of threads used by {@link #iterativeDeepeningSearch}. The
+	 * calling thread is included.
+	 *
+	 * @param t The number of threads.
+	 * @throws IllegalArgumentException t is not strictly positive.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	public void setThreads(int t) {
+		if (t <= 0)
+			throw new IllegalArgumentException("t is not strictly positive.");
+		threads = t;
+	}
+
+	/**
+	 * Enables or disables dynamic move ordering. When disabled, actions are
+	 * searched in the static order of the {@link IntState}, except for the one
+	 * cached in the transposition table. Its default depends on the
+	 * {@link Engine}: see {@link #setEngine}.
+	 *
+	 * @see MoveOrdering
+	 * @param enabled <code>true</code> to enable dynamic move ordering.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	public void setMoveOrdering(boolean enabled) {
+		isOrderingEnabled = enabled;
+	}
+
+	/**
+	 * Sets the maximum number of actions searched in each node, root included,
+	 * chosen by {@link IntState#candidateActions}. Pruning makes deeper searches
+	 * affordable when the branching factor is too high, at the cost of their
+	 * exactness. It also keeps the root small enough for
+	 * {@link #bestNodeLimitedSearch} to converge, since each of its passes tests
+	 * every root child.
+	 *
+	 * @param width The maximum number of actions, or <code>0</code> to disable
+	 *              pruning.
+	 * @throws IllegalArgumentException width is negative.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	public void setCandidateWidth(int width) {
+		if (width < 0)
+			throw new IllegalArgumentException("width is negative.");
+		candidateWidth = width;
+	}
+
+	/**
+	 * Sets the {@link Solver} run by {@link #iterativeDeepeningSearch} before the
+	 * search itself. It may use up to {@link #SOLVERTIMEFRACTION} of the time
+	 * limit.
+	 *
+	 * @param s The new {@link Solver}, or <code>null</code> not to use any.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	public void setSolver(Solver<S, A> s) {
+		solver = s;
+	}
+
+	/**
+	 * Sets the {@link OpeningBook} probed by {@link #iterativeDeepeningSearch}
+	 * before any search.
+	 *
+	 * @param b The new {@link OpeningBook}, or <code>null</code> not to use any.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	public void setOpeningBook(OpeningBook b) {
+		book = b;
+	}
+
+	/**
+	 * Starts searching on the opponent's time, after an action has been selected
+	 * but before it is passed to {@link #update}. A background thread searches
+	 * every reply to such action by iterative deepening, from a "min" root, until
+	 * {@link #stopPondering} is called or the time limit of a move is over.
+	 * Whatever the reply, the next call to {@link #iterativeDeepeningSearch} then
+	 * finds the shared transposition table already filled for its shallower
+	 * iterations, especially if the reply is the one expected by the last
+	 * iteration completed. Nothing is done if the game ends before.
+	 *
+	 * @see #isPonderHit
+	 * @param a The legal action selected for the current {@link State}.
+	 * @throws IllegalArgumentException <code>a</code> is an illegal action for the
+	 *                                  current state.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	public void startPondering(A a) {
+		stopPondering();
+		ponderer = null;
+		final S s = state.clone();
+		if (s.result(a).terminalTest())
+			return;
+		ponderer = new AI<S, A>(this, s);
+		ponderer.startTime = System.currentTimeMillis();
+		final AI<S, A> p = ponderer;
+		ponderThread = new Thread(() -> p.ponderSearch(s.overestimatedHeight()));
+		ponderThread.setDaemon(true);
+		ponderThread.start();
+	}
+
+	/**
+	 * Stops the search started by {@link #startPondering}, if any, and waits for
+	 * its thread to end. Since the volatile {@link #stopped} flag is read once per
+	 * node, this only takes a few microseconds. Its results are kept until the
+	 * next call to {@link #iterativeDeepeningSearch}.
+	 *
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	public void stopPondering() {
+		if (ponderThread == null)
+			return;
+		ponderer.stopped = true;
+		try {
+			ponderThread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		ponderThread = null;
+	}
+
+	/**
+	 * Checks whether the opponent played the reply expected by the last
+	 * iteration completed by the search started by {@link #startPondering}
+	 * before the last call to {@link #iterativeDeepeningSearch}.
+	 *
+	 * @return <code>true</code> just in case the expected reply was played.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	public boolean isPonderHit() {
+		return isPonderHit;
+	}
+
 	/**
 	 * When called in a state in which the player has the move, selects one of the
 	 * legal actions to be played using immediate search. See the project report.
+	 * Every child of the root is evaluated first; then, as long as less than
+	 * {@link #IMMEDIATETIMEFRACTION} of the time limit has passed, the
+	 * {@link #IMMEDIATEWIDTH} best ones are searched again one ply deeper, each
+	 * of them being worth its worst reply. Both plies are split across a
+	 * fork-join pool of {@link #setThreads threads}, each of them working on its
+	 * own replica of the current {@link State}.
 	 *
 	 * @throws IllegalArgumentException The player does not have the move or if the
 	 *                                  state is terminal.
@@ -108,25 +509,169 @@ public class AI<S extends State<S, A>, A> {
 		// throw new IllegalArgumentException("s is a terminal state.");
 		// if (player != state.player())
 		// throw new IllegalArgumentException("It's not your turn.");
-		final java.util.ArrayList<A> bestMoves = new java.util.ArrayList<A>(state.countRelevantActions());
-		final Iterator<A> actions = state.actions();
-		A action = actions.next();
-		int maxEval = state.result(action).eval(player);
-		state.revert();
-		bestMoves.add(action);
-		while (actions.hasNext()) {
-			action = actions.next();
-			final int currentEval = state.result(action).eval(player);
-			state.revert();
-			if (currentEval >= maxEval) {
-				if (currentEval > maxEval) {
-					maxEval = currentEval;
-					bestMoves.clear();
+		startTime = System.currentTimeMillis();
+		final int[] children = new int[state.maxActions()];
+		final int childrenCount = state.actions(children);
+		final int[] values = new int[childrenCount];
+		immediateValues(children, values, childrenCount, 1);
+		// most promising children first
+		final int width = Math.min(childrenCount, IMMEDIATEWIDTH);
+		for (int i = 0; i < width; ++i) {
+			int best = i;
+			for (int j = i + 1; j < childrenCount; ++j)
+				if (values[j] > values[best])
+					best = j;
+			swap(children, i, best);
+			swap(values, i, best);
+		}
+		int candidates = childrenCount;
+		if (width > 1) {
+			final int[] deeperValues = new int[width];
+			if (immediateValues(children, deeperValues, width, 2)) {
+				System.arraycopy(deeperValues, 0, values, 0, width);
+				candidates = width;
+			}
+		}
+		int maxValue = values[0], bestCount = 0;
+		for (int i = 0; i < candidates; ++i)
+			if (values[i] >= maxValue) {
+				if (values[i] > maxValue) {
+					maxValue = values[i];
+					bestCount = 0;
 				}
-				bestMoves.add(action);
+				children[bestCount++] = children[i];
+			}
+		return state.decodeAction(children[random.nextInt(bestCount)]);
+	}
+
+	/**
+	 * Computes the values of some children of the current {@link State} for
+	 * {@link #immediateSearch}. With more than one {@link #setThreads thread},
+	 * each child is a task of the fork-join pool, which borrows an idle replica
+	 * of the current {@link State}.
+	 *
+	 * @param children The encoded children to be evaluated.
+	 * @param values   Where to write the value of each child.
+	 * @param count    The number of children to be evaluated.
+	 * @param plies    1 to evaluate the children themselves, 2 to evaluate their
+	 *                 worst replies instead.
+	 * @return <code>false</code> just in case the time ran out before some second
+	 *         ply was completed, in which case values is meaningless.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	private boolean immediateValues(int[] children, int[] values, int count, int plies) {
+		final long deadline = startTime + (long) (timeLimit * IMMEDIATETIMEFRACTION);
+		if (threads == 1) {
+			final int[] replies = plies > 1 ? new int[state.maxActions()] : null;
+			for (int i = 0; i < count; ++i) {
+				if (plies > 1 && System.currentTimeMillis() > deadline)
+					return false;
+				values[i] = immediateValue(state, children[i], replies);
+			}
+			return true;
+		}
+		if (rootPool == null || rootPool.getParallelism() != threads) {
+			if (rootPool != null)
+				rootPool.shutdown();
+			rootPool = new ForkJoinPool(threads);
+		}
+		final int[] history = new int[state.maxActions()];
+		final int historySize = state.history(history);
+		for (S replica : idleReplicas)
+			synchronize(replica, history, historySize);
+		final AtomicInteger completed = new AtomicInteger();
+		final ArrayList<Callable<Void>> tasks = new ArrayList<Callable<Void>>(count);
+		for (int i = 0; i < count; ++i) {
+			final int index = i;
+			tasks.add(() -> {
+				if (plies > 1 && System.currentTimeMillis() > deadline)
+					return null;
+				S replica = idleReplicas.poll();
+				if (replica == null)
+					replica = state.clone();
+				try {
+					values[index] = immediateValue(replica, children[index],
+							plies > 1 ? new int[replica.maxActions()] : null);
+					completed.incrementAndGet();
+				} finally {
+					idleReplicas.add(replica);
+				}
+				return null;
+			});
+		}
+		rootPool.invokeAll(tasks);
+		return completed.get() == count;
+	}
+
+	/**
+	 * Computes the value of a child of a {@link State} for
+	 * {@link #immediateSearch}: either its evaluation or, if a buffer for the
+	 * replies is given, the evaluation of its worst reply. The {@link State} is
+	 * left unchanged.
+	 *
+	 * @param s       The parent {@link State}.
+	 * @param child   The encoded child.
+	 * @param replies A buffer for the encoded replies, or <code>null</code> not to
+	 *                search them.
+	 * @return The value of the child according to {@link #player}.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	private int immediateValue(S s, int child, int[] replies) {
+		s.result(child);
+		int res = s.eval(player);
+		if (replies != null && !s.terminalTest()) {
+			final int repliesCount = candidateWidth > 0 ? s.candidateActions(replies, candidateWidth)
+					: s.actions(replies);
+			res = Integer.MAX_VALUE;
+			for (int i = 0; i < repliesCount; ++i) {
+				res = Math.min(res, s.result(replies[i]).eval(player));
+				s.revert();
 			}
 		}
-		return bestMoves.get(random.nextInt(bestMoves.size()));
+		s.revert();
+		return res;
+	}
+
+	/**
+	 * Brings a replica of a {@link State} up to date with it, reverting the
+	 * actions they do not have in common and replaying the missing ones.
+	 *
+	 * @param replica     The replica to update.
+	 * @param history     The encoded actions applied to the {@link State}.
+	 * @param historySize The number of such actions.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	static <S extends IntState<S, A>, A> void synchronize(S replica, int[] history, int historySize) {
+		final int[] replicaHistory = new int[replica.maxActions()];
+		int replicaSize = replica.history(replicaHistory), common = 0;
+		while (common < Math.min(historySize, replicaSize) && replicaHistory[common] == history[common])
+			++common;
+		for (; replicaSize > common; --replicaSize)
+			replica.revert();
+		for (int i = common; i < historySize; ++i)
+			replica.result(history[i]);
+	}
+
+	/**
+	 * Swaps two elements of an array.
+	 *
+	 * @param array The array.
+	 * @param i     The index of the first element.
+	 * @param j     The index of the second element.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	private static void swap(int[] array, int i, int j) {
+		final int tmp = array[i];
+		array[i] = array[j];
+		array[j] = tmp;
 	}
 
 	/**
@@ -144,34 +689,384 @@ public class AI<S extends State<S, A>, A> {
 	 * @since 1.0
 	 */
 	protected A bestNodeLimitedSearch(int depthLimit) throws TimeoutException {
-		int alpha = state.initialAlpha(player), beta = state.initialBeta(player),
-				subtreeCount = state.countRelevantActions(), betterCount;
-		A bestNode;
+		final int[] children = moveBuffer(depthLimit + 1);
+		final int childrenCount = rootChildren(children, depthLimit);
+		int alpha = state.initialAlpha(player), beta = state.initialBeta(player), subtreeCount = childrenCount,
+				betterCount;
+		int bestNode;
 		do {
-			bestNode = null;
+			if (stats != null)
+				stats.pass();
+			bestNode = NOMOVE;
 			int test = nextGuess(alpha, beta, subtreeCount);
 			// System.err.println("\t\t🌳 × " + subtreeCount + ", 🧱 = " + test + " ∈ [" +
 			// alpha + ", " + beta + "]");
 			betterCount = 0;
-			Iterator<A> actions = state.actions();
-			while (actions.hasNext()) {
-				final A child = actions.next();
-				inspectedNodes = 0;
-				if (minValue(state.result(child), test - 1, test, depthLimit) >= test) {
+			for (int i = 0; i < childrenCount; ++i) {
+				final long previouslyInspectedNodes = inspectedNodes;
+				if (minValue(state.result(children[i]), test - 1, test, depthLimit) >= test) {
 					++betterCount;
-					if (bestNode == null)
-						bestNode = child;
+					if (bestNode == NOMOVE)
+						bestNode = children[i];
 				}
 				state.revert();
+				if (isOrderingEnabled)
+					ordering.addRootNodes(children[i], inspectedNodes - previouslyInspectedNodes);
 			}
-			if (betterCount == 0)
+			if (betterCount == 0) {
 				beta = test;
-			else if (betterCount > 1) {
+				// search instability (e.g. deeper results shared by Lazy SMP helpers)
+				// may have invalidated alpha: widen the window again
+				if (beta - alpha < 2)
+					alpha = state.initialAlpha(player);
+			} else if (betterCount > 1) {
 				subtreeCount = betterCount;
 				alpha = test;
 			}
 		} while (beta - alpha >= 2 && betterCount != 1 || betterCount == 0);
-		return bestNode;
+		return state.decodeAction(bestNode);
+	}
+
+	/**
+	 * Runs a single iteration of {@link #iterativeDeepeningSearch} using the
+	 * current {@link Engine}.
+	 *
+	 * @param depthLimit Maximum depth to be inspected.
+	 * @throws TimeoutException The time limit is almost over.
+	 * @return A legal action to be played.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	protected A search(int depthLimit) throws TimeoutException {
+		switch (engine) {
+		case BEST_NODE:
+			return bestNodeLimitedSearch(depthLimit);
+		case PARALLEL_BEST_NODE:
+			return parallelBestNodeLimitedSearch(depthLimit);
+		case PRINCIPAL_VARIATION:
+			return principalVariationSearch(depthLimit);
+		case MTDF:
+			return mtdf(depthLimit);
+		default:
+			throw new InternalError("Unknown engine.");
+		}
+	}
+
+	/**
+	 * When called in a state in which the player has the move, selects one of the
+	 * legal actions to be played using principal variation search at the root,
+	 * within an aspiration window centered on the score of the previous
+	 * iteration. The first child is searched with the whole window, the others
+	 * with a null window which is widened only if they turn out to be better. If
+	 * the final score falls outside of the aspiration window, the search is
+	 * repeated with the widest window. See T. A. Marsland, <i>A Review of
+	 * Game-Tree Pruning</i>, in <i>ICCA Journal</i>, 9(1), 1986, pp. 3-19.
+	 *
+	 * @see #ASPIRATIONDELTA
+	 * @param depthLimit Maximum depth to be inspected
+	 * @throws TimeoutException The time limit is almost over.
+	 * @return A legal action to be played.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	protected A principalVariationSearch(int depthLimit) throws TimeoutException {
+		final int initialAlpha = state.initialAlpha(player), initialBeta = state.initialBeta(player);
+		int alpha = initialAlpha, beta = initialBeta;
+		if (hasPreviousScore) {
+			alpha = Math.max(initialAlpha, previousScore - ASPIRATIONDELTA);
+			beta = Math.min(initialBeta, previousScore + ASPIRATIONDELTA);
+		}
+		final int[] children = moveBuffer(depthLimit + 1);
+		final int childrenCount = rootChildren(children, depthLimit);
+		int v = principalVariationRoot(children, childrenCount, alpha, beta, depthLimit);
+		if (v <= alpha && alpha > initialAlpha || v >= beta && beta < initialBeta)
+			v = principalVariationRoot(children, childrenCount, initialAlpha, initialBeta, depthLimit);
+		previousScore = v;
+		hasPreviousScore = true;
+		return state.decodeAction(rootBestMove);
+	}
+
+	/**
+	 * When called in a state in which the player has the move, selects one of the
+	 * legal actions to be played using MTD(f), that is a sequence of null-window
+	 * searches converging to the minimax value. The score of the previous
+	 * iteration, or the static evaluation of the current {@link State}, is used
+	 * as first guess. See A. Plaat, J. Schaeffer, W. Pijls, A. de Bruin,
+	 * <i>Best-First Fixed-Depth Minimax Algorithms</i>, in <i>Artificial
+	 * Intelligence</i>, 87(1-2), 1996, pp. 255-293.
+	 *
+	 * @param depthLimit Maximum depth to be inspected
+	 * @throws TimeoutException The time limit is almost over.
+	 * @return A legal action to be played.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	protected A mtdf(int depthLimit) throws TimeoutException {
+		int lowerBound = state.initialAlpha(player), upperBound = state.initialBeta(player);
+		int g = hasPreviousScore ? previousScore : state.eval(player);
+		final int[] children = moveBuffer(depthLimit + 1);
+		final int childrenCount = rootChildren(children, depthLimit);
+		int bestNode = NOMOVE;
+		do {
+			final int beta = Math.max(Math.min(g, upperBound), lowerBound + 1);
+			g = principalVariationRoot(children, childrenCount, beta - 1, beta, depthLimit);
+			if (g < beta)
+				upperBound = g;
+			else {
+				lowerBound = g;
+				bestNode = rootBestMove;
+			}
+		} while (lowerBound < upperBound);
+		previousScore = g;
+		hasPreviousScore = true;
+		return state.decodeAction(bestNode != NOMOVE ? bestNode : rootBestMove);
+	}
+
+	/**
+	 * Searches the root children in order using principal variation search and a
+	 * fail-soft window. The best child found is stored in {@link #rootBestMove}.
+	 *
+	 * @see #principalVariationSearch
+	 * @param children   The encoded legal actions of the current {@link State}.
+	 * @param count      The number of meaningful elements of children.
+	 * @param alpha      The alpha value.
+	 * @param beta       The beta value.
+	 * @param depthLimit Maximum depth to be inspected.
+	 * @throws TimeoutException The time limit is almost over.
+	 * @return The score of the best child, which is only a bound if it falls
+	 *         outside of the window.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	private int principalVariationRoot(int[] children, int count, int alpha, int beta, int depthLimit)
+			throws TimeoutException {
+		if (stats != null)
+			stats.pass();
+		int v = alpha;
+		rootBestMove = NOMOVE;
+		for (int i = 0; i < count; ++i) {
+			final int child = children[i];
+			final long previouslyInspectedNodes = inspectedNodes;
+			int childValue;
+			if (rootBestMove == NOMOVE)
+				childValue = minValue(state.result(child), alpha, beta, depthLimit);
+			else {
+				final int a = Math.max(alpha, v);
+				childValue = minValue(state.result(child), a, a + 1, depthLimit);
+				if (childValue > a && childValue < beta)
+					childValue = minValue(state, childValue, beta, depthLimit);
+			}
+			state.revert();
+			if (isOrderingEnabled)
+				ordering.addRootNodes(child, inspectedNodes - previouslyInspectedNodes);
+			if (rootBestMove == NOMOVE || childValue > v) {
+				v = childValue;
+				rootBestMove = child;
+			}
+			if (v >= beta)
+				break;
+		}
+		return v;
+	}
+
+	/**
+	 * Lists the encoded legal actions of the current {@link State}. If move
+	 * ordering is enabled and a previous iteration took place, they are sorted by
+	 * the number of nodes their subtrees needed, otherwise the one cached in the
+	 * transposition table, if any, is moved to the front.
+	 *
+	 * @see MoveOrdering#sortRoot
+	 * @param children   Where to write the encoded actions.
+	 * @param depthLimit Maximum depth to be inspected.
+	 * @return The number of actions written.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	private int rootChildren(int[] children, int depthLimit) {
+		final int count = candidateWidth == 0 ? state.actions(children)
+				: state.candidateActions(children, candidateWidth);
+		if (isOrderingEnabled && ordering.sortRoot(children, count))
+			return count;
+		if (transpositionTable.probe(state, depthLimit, cachedSlot)) {
+			final int cachedMove = state.revertFromHashedAction(TranspositionTable.getMove(cachedSlot));
+			for (int i = 0; i < count; ++i)
+				if (children[i] == cachedMove) {
+					System.arraycopy(children, 0, children, 1, i);
+					children[0] = cachedMove;
+					break;
+				}
+		}
+		return count;
+	}
+
+	/**
+	 * A parallel version of {@link #bestNodeLimitedSearch}. Within a single pass,
+	 * the null-window tests of the root children are independent, so they are run
+	 * on a fork-join pool of {@link #setThreads threads}, each of them searching
+	 * its own clone of the current {@link State}. A pass stops as soon as more
+	 * than one child passes its test, since the exact count only affects the next
+	 * separation value.
+	 *
+	 * @see #bestNodeLimitedSearch
+	 * @param depthLimit Maximum depth to be inspected
+	 * @throws TimeoutException The time limit is almost over.
+	 * @return A legal action to be played.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	protected A parallelBestNodeLimitedSearch(int depthLimit) throws TimeoutException {
+		if (rootPool == null || rootPool.getParallelism() != threads) {
+			if (rootPool != null)
+				rootPool.shutdown();
+			rootPool = new ForkJoinPool(threads);
+		}
+		final int[] children = moveBuffer(depthLimit + 1);
+		final int childrenCount = rootChildren(children, depthLimit);
+		int alpha = state.initialAlpha(player), beta = state.initialBeta(player), subtreeCount = childrenCount,
+				betterCount;
+		final ArrayList<Callable<Void>> tests = new ArrayList<Callable<Void>>(childrenCount);
+		int bestNode;
+		do {
+			if (stats != null)
+				stats.pass();
+			final int test = nextGuess(alpha, beta, subtreeCount);
+			final AtomicInteger better = new AtomicInteger(), bestIndex = new AtomicInteger(childrenCount);
+			for (AI<S, A> worker : rootWorkers)
+				worker.stopped = false;
+			tests.clear();
+			for (int i = 0; i < childrenCount; ++i) {
+				final int index = i;
+				tests.add(() -> {
+					nullWindowTest(children[index], index, test, depthLimit, better, bestIndex);
+					return null;
+				});
+			}
+			rootPool.invokeAll(tests);
+			if (isOrderingEnabled)
+				for (AI<S, A> worker : rootWorkers)
+					ordering.mergeRootNodes(worker.ordering);
+			if (clockCheck())
+				throw SearchTimeoutException.INSTANCE;
+			betterCount = better.get();
+			bestNode = betterCount == 0 ? NOMOVE : children[bestIndex.get()];
+			if (betterCount == 0) {
+				beta = test;
+				if (beta - alpha < 2)
+					alpha = state.initialAlpha(player);
+			} else if (betterCount > 1) {
+				subtreeCount = betterCount;
+				alpha = test;
+			}
+		} while (beta - alpha >= 2 && betterCount != 1 || betterCount == 0);
+		return state.decodeAction(bestNode);
+	}
+
+	/**
+	 * Runs the null-window test of a single root child on behalf of
+	 * {@link #parallelBestNodeLimitedSearch}, using an idle root worker. A worker
+	 * whose search was interrupted gets a fresh clone of the current
+	 * {@link State}. The first worker finding out that the time is over stops
+	 * every other one, so that none of them waits for its next clock reading. The
+	 * size of the subtree is recorded by the {@link MoveOrdering} of the worker,
+	 * and merged into the one of this {@link AI} once the pass is over.
+	 *
+	 * @param child      The encoded root child to test.
+	 * @param index      The position of the child in the root sequence.
+	 * @param test       The separation value.
+	 * @param depthLimit Maximum depth to be inspected.
+	 * @param better     Number of children which passed the test so far.
+	 * @param bestIndex  Lowest index of a child which passed the test so far.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	private void nullWindowTest(int child, int index, int test, int depthLimit, AtomicInteger better,
+			AtomicInteger bestIndex) {
+		if (better.get() > 1 || stopped)
+			return;
+		AI<S, A> worker = idleRootWorkers.poll();
+		if (worker == null)
+			rootWorkers.add(worker = new AI<S, A>(this));
+		try {
+			final long previouslyInspectedNodes = worker.inspectedNodes;
+			if (worker.minValue(worker.state.result(child), test - 1, test, depthLimit) >= test) {
+				bestIndex.accumulateAndGet(index, Math::min);
+				if (better.incrementAndGet() > 1)
+					for (AI<S, A> w : rootWorkers)
+						w.stopped = true;
+			}
+			worker.state.revert();
+			if (isOrderingEnabled)
+				worker.ordering.addRootNodes(child, worker.inspectedNodes - previouslyInspectedNodes);
+		} catch (TimeoutException e) {
+			worker.state.rewind(state.mark());
+			// not an early stop: the time is over, so the other workers must not wait
+			// for their next clock reading
+			if (better.get() <= 1) {
+				stopped = true;
+				for (AI<S, A> w : rootWorkers)
+					w.stopped = true;
+			}
+		} finally {
+			idleRootWorkers.add(worker);
+		}
+	}
+
+	/**
+	 * Lazy SMP helper loop: repeats {@link #bestNodeLimitedSearch} with increasing
+	 * depths until the master {@link AI} stops it, the time is almost over or the
+	 * maximum depth is reached. Its results only matter through the shared
+	 * transposition table.
+	 *
+	 * @param firstDepth First depth to be inspected.
+	 * @param maxLimit   Maximum depth to be inspected.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	private void helperSearch(int firstDepth, int maxLimit) {
+		try {
+			for (int depthLimit = firstDepth; depthLimit <= maxLimit; ++depthLimit)
+				bestNodeLimitedSearch(depthLimit);
+		} catch (TimeoutException e) {
+			// stopped by the master or out of time: nothing to report
+		}
+	}
+
+	/**
+	 * Body of the thread started by {@link #startPondering}. Like
+	 * {@link #helperSearch}, it searches by iterative deepening until it is
+	 * stopped, but its root is a "min" node and the {@link State} reached by the
+	 * best reply of each completed iteration is recorded.
+	 *
+	 * @param maxLimit Maximum depth to be inspected.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	private void ponderSearch(int maxLimit) {
+		lastClockReading = startTime;
+		ordering.newSearch();
+		try {
+			for (int depthLimit = 1; depthLimit <= maxLimit; ++depthLimit) {
+				minValue(state, state.initialAlpha(player), state.initialBeta(player), depthLimit);
+				if (transpositionTable.probe(state, depthLimit, cachedSlot)) {
+					ponderKey = state.result(state.revertFromHashedAction(TranspositionTable.getMove(cachedSlot)))
+							.longHashCode();
+					state.revert();
+				}
+				reachedDepth = depthLimit;
+			}
+			isPonderComplete = true;
+		} catch (TimeoutException e) {
+			// stopped by the master or out of time: the last iteration is lost
+		}
 	}
 
 	/**
@@ -224,71 +1119,89 @@ public class AI<S extends State<S, A>, A> {
 			return s.eval(player);
 
 		// transposition table lookup
-		final Entry<S, A> cachedEntry = transpositionTable.get(s.hashCode());
-		timeCheck();
-		A bestOrRefutationMove = null, cachedMove = null;
-		if (cachedEntry != null) {
-			final SearchResult<A> cachedSearchResult = cachedEntry.pickSearchResult(s, depthLimit);
-			if (cachedSearchResult != null) {
-				if (depthLimit <= cachedSearchResult.SEARCHDEPTH) {
-					switch (cachedSearchResult.FLAG) {
-					case TRUEVALUE: // purpose 1
-						return cachedSearchResult.SCORE;
-					case UPPERBOUND: // purpose 2
-						beta = objectUtils.min(beta, cachedSearchResult.SCORE);
-						break;
-					case LOWERBOUND: // purpose 2 (sic.)
-						alpha = objectUtils.max(alpha, cachedSearchResult.SCORE);
-						break;
-					default:
-						throw new InternalError("Unknown score type.");
-					}
-					if (alpha >= beta)
-						return alpha;
+		final boolean isCached = transpositionTable.probe(s, depthLimit, cachedSlot);
+		if (stats != null)
+			stats.probe(isCached, transpositionTable.countCollisions(s));
+		int bestOrRefutationMove = NOMOVE, cachedMove = NOMOVE;
+		if (isCached) {
+			if (depthLimit <= TranspositionTable.getDepth(cachedSlot)) {
+				final int cachedScore = TranspositionTable.getScore(cachedSlot);
+				switch (TranspositionTable.getFlag(cachedSlot)) {
+				case TRUEVALUE: // purpose 1
+					if (stats != null)
+						stats.tableCutoff(ScoreType.TRUEVALUE);
+					return cachedScore;
+				case UPPERBOUND: // purpose 2
+					beta = Math.min(beta, cachedScore);
+					break;
+				case LOWERBOUND: // purpose 2 (sic.)
+					alpha = Math.max(alpha, cachedScore);
+					break;
+				default:
+					throw new InternalError("Unknown score type.");
+				}
+				if (alpha >= beta) {
+					if (stats != null)
+						stats.tableCutoff(TranspositionTable.getFlag(cachedSlot));
+					return alpha;
 				}
-				// purposes 2 and 3
-				bestOrRefutationMove = s.revertFromHashedAction(cachedSearchResult.MOVE);
-				cachedMove = bestOrRefutationMove;
 			}
+			// purposes 2 and 3
+			bestOrRefutationMove = s.revertFromHashedAction(TranspositionTable.getMove(cachedSlot));
+			cachedMove = bestOrRefutationMove;
 		}
 
 		// check best/refutation move first
-		Integer v = null;
+		int v = Integer.MIN_VALUE;
+		// if no action beats it, v is just an upper bound
+		final int windowAlpha = alpha;
 
-		if (bestOrRefutationMove != null) {
+		final Player mover = s.player();
+		final int lastAction = s.lastAction();
+		if (bestOrRefutationMove != NOMOVE) {
 			v = minValue(s.result(bestOrRefutationMove), alpha, beta, depthLimit - 1);
 			s.revert();
-			timeCheck();
-			if (v.compareTo(beta) >= 0) {
-				addSearchResult(cachedEntry, new SearchResult<A>(s.convertToHashedAction(bestOrRefutationMove), v,
-						ScoreType.LOWERBOUND, depthLimit, inspectedNodes - previouslyInspectedNodes));
+			if (v >= beta) {
+				if (stats != null)
+					stats.cutoff(true);
+				if (isOrderingEnabled)
+					ordering.cutoff(bestOrRefutationMove, depthLimit, mover, lastAction);
+				addSearchResult(s, bestOrRefutationMove, v, ScoreType.LOWERBOUND, depthLimit,
+						inspectedNodes - previouslyInspectedNodes);
 				return v;
 			}
-			alpha = objectUtils.max(alpha, v);
+			alpha = Math.max(alpha, v);
 		}
 
 		// check other moves next
-		final Iterator<A> actions = s.actions();
-		while (actions.hasNext()) {
-			final A toChild = actions.next();
-			if (!toChild.equals(cachedMove)) {
+		final int[] actions = moveBuffer(depthLimit), scores = scoreBuffers[depthLimit];
+		final int actionsCount = candidateWidth == 0 ? s.actions(actions) : s.candidateActions(actions, candidateWidth);
+		if (isOrderingEnabled)
+			ordering.score(actions, actionsCount, scores, depthLimit, mover, lastAction);
+		for (int i = 0; i < actionsCount; ++i) {
+			final int toChild = isOrderingEnabled ? MoveOrdering.selectNext(actions, scores, i, actionsCount)
+					: actions[i];
+			if (toChild != cachedMove) {
 				final int newV = minValue(s.result(toChild), alpha, beta, depthLimit - 1);
-				if (v == null || newV > v) {
+				if (newV > v) {
 					v = newV;
 					bestOrRefutationMove = toChild;
 				}
 				s.revert();
-				timeCheck();
-				if (v.compareTo(beta) >= 0) {
-					addSearchResult(cachedEntry, new SearchResult<A>(s.convertToHashedAction(bestOrRefutationMove), v,
-							ScoreType.LOWERBOUND, depthLimit, inspectedNodes - previouslyInspectedNodes));
+				if (v >= beta) {
+					if (stats != null)
+						stats.cutoff(cachedMove == NOMOVE && i == 0);
+					if (isOrderingEnabled)
+						ordering.cutoff(bestOrRefutationMove, depthLimit, mover, lastAction);
+					addSearchResult(s, bestOrRefutationMove, v, ScoreType.LOWERBOUND, depthLimit,
+							inspectedNodes - previouslyInspectedNodes);
 					return v;
 				}
-				alpha = objectUtils.max(alpha, v);
+				alpha = Math.max(alpha, v);
 			}
 		}
-		addSearchResult(cachedEntry, new SearchResult<A>(s.convertToHashedAction(bestOrRefutationMove), v,
-				ScoreType.TRUEVALUE, depthLimit, inspectedNodes - previouslyInspectedNodes));
+		addSearchResult(s, bestOrRefutationMove, v, v > windowAlpha ? ScoreType.TRUEVALUE : ScoreType.UPPERBOUND,
+				depthLimit, inspectedNodes - previouslyInspectedNodes);
 		return v;
 	}
 
@@ -323,74 +1236,166 @@ public class AI<S extends State<S, A>, A> {
 			return s.eval(player);
 
 		// transposition table lookup
-		final Entry<S, A> cachedEntry = transpositionTable.get(s.hashCode());
-		timeCheck();
-		A bestOrRefutationMove = null, cachedMove = null;
-		if (cachedEntry != null) {
-			final SearchResult<A> cachedSearchResult = cachedEntry.pickSearchResult(s, depthLimit);
-			if (cachedSearchResult != null) {
-				if (depthLimit <= cachedSearchResult.SEARCHDEPTH) {
-					switch (cachedSearchResult.FLAG) {
-					case TRUEVALUE: // purpose 1
-						return cachedSearchResult.SCORE;
-					case UPPERBOUND: // purpose 2
-						beta = objectUtils.min(beta, cachedSearchResult.SCORE);
-						break;
-					case LOWERBOUND: // purpose 2 (sic.)
-						alpha = objectUtils.max(alpha, cachedSearchResult.SCORE);
-						break;
-					default:
-						throw new InternalError("Unknown score type.");
-					}
-					if (beta <= alpha)
-						return beta;
+		final boolean isCached = transpositionTable.probe(s, depthLimit, cachedSlot);
+		if (stats != null)
+			stats.probe(isCached, transpositionTable.countCollisions(s));
+		int bestOrRefutationMove = NOMOVE, cachedMove = NOMOVE;
+		if (isCached) {
+			if (depthLimit <= TranspositionTable.getDepth(cachedSlot)) {
+				final int cachedScore = TranspositionTable.getScore(cachedSlot);
+				switch (TranspositionTable.getFlag(cachedSlot)) {
+				case TRUEVALUE: // purpose 1
+					if (stats != null)
+						stats.tableCutoff(ScoreType.TRUEVALUE);
+					return cachedScore;
+				case UPPERBOUND: // purpose 2
+					beta = Math.min(beta, cachedScore);
+					break;
+				case LOWERBOUND: // purpose 2 (sic.)
+					alpha = Math.max(alpha, cachedScore);
+					break;
+				default:
+					throw new InternalError("Unknown score type.");
+				}
+				if (beta <= alpha) {
+					if (stats != null)
+						stats.tableCutoff(TranspositionTable.getFlag(cachedSlot));
+					return beta;
 				}
-				// purposes 2 and 3
-				bestOrRefutationMove = s.revertFromHashedAction(cachedSearchResult.MOVE);
-				cachedMove = bestOrRefutationMove;
 			}
+			// purposes 2 and 3
+			bestOrRefutationMove = s.revertFromHashedAction(TranspositionTable.getMove(cachedSlot));
+			cachedMove = bestOrRefutationMove;
 		}
 
 		// check best/refutation move first
-		Integer v = null;
+		int v = Integer.MAX_VALUE;
+		// if no action beats it, v is just a lower bound
+		final int windowBeta = beta;
 
-		if (bestOrRefutationMove != null) {
+		final Player mover = s.player();
+		final int lastAction = s.lastAction();
+		if (bestOrRefutationMove != NOMOVE) {
 			v = maxValue(s.result(bestOrRefutationMove), alpha, beta, depthLimit - 1);
 			s.revert();
-			timeCheck();
-			if (v.compareTo(alpha) <= 0) {
-				addSearchResult(cachedEntry, new SearchResult<A>(s.convertToHashedAction(bestOrRefutationMove), v,
-						ScoreType.UPPERBOUND, depthLimit, inspectedNodes - previouslyInspectedNodes));
+			if (v <= alpha) {
+				if (stats != null)
+					stats.cutoff(true);
+				if (isOrderingEnabled)
+					ordering.cutoff(bestOrRefutationMove, depthLimit, mover, lastAction);
+				addSearchResult(s, bestOrRefutationMove, v, ScoreType.UPPERBOUND, depthLimit,
+						inspectedNodes - previouslyInspectedNodes);
 				return v;
 			}
-			beta = objectUtils.min(beta, v);
+			beta = Math.min(beta, v);
 		}
 
 		// check other moves next
-		final Iterator<A> actions = s.actions();
-		while (actions.hasNext()) {
-			final A toChild = actions.next();
-			if (!toChild.equals(cachedMove)) {
+		final int[] actions = moveBuffer(depthLimit), scores = scoreBuffers[depthLimit];
+		final int actionsCount = candidateWidth == 0 ? s.actions(actions) : s.candidateActions(actions, candidateWidth);
+		if (isOrderingEnabled)
+			ordering.score(actions, actionsCount, scores, depthLimit, mover, lastAction);
+		for (int i = 0; i < actionsCount; ++i) {
+			final int toChild = isOrderingEnabled ? MoveOrdering.selectNext(actions, scores, i, actionsCount)
+					: actions[i];
+			if (toChild != cachedMove) {
 				final int newV = maxValue(s.result(toChild), alpha, beta, depthLimit - 1);
-				if (v == null || newV < v) {
+				if (newV < v) {
 					v = newV;
 					bestOrRefutationMove = toChild;
 				}
 				s.revert();
-				timeCheck();
-				if (v.compareTo(alpha) <= 0) {
-					addSearchResult(cachedEntry, new SearchResult<A>(s.convertToHashedAction(bestOrRefutationMove), v,
-							ScoreType.UPPERBOUND, depthLimit, inspectedNodes - previouslyInspectedNodes));
+				if (v <= alpha) {
+					if (stats != null)
+						stats.cutoff(cachedMove == NOMOVE && i == 0);
+					if (isOrderingEnabled)
+						ordering.cutoff(bestOrRefutationMove, depthLimit, mover, lastAction);
+					addSearchResult(s, bestOrRefutationMove, v, ScoreType.UPPERBOUND, depthLimit,
+							inspectedNodes - previouslyInspectedNodes);
 					return v;
 				}
-				beta = objectUtils.min(beta, v);
+				beta = Math.min(beta, v);
 			}
 		}
-		addSearchResult(cachedEntry, new SearchResult<A>(s.convertToHashedAction(bestOrRefutationMove), v,
-				ScoreType.TRUEVALUE, depthLimit, inspectedNodes - previouslyInspectedNodes));
+		addSearchResult(s, bestOrRefutationMove, v, v < windowBeta ? ScoreType.TRUEVALUE : ScoreType.LOWERBOUND,
+				depthLimit, inspectedNodes - previouslyInspectedNodes);
 		return v;
 	}
 
+	/**
+	 * A getter for the {@link TranspositionTable} of this {@link AI}. Hit and
+	 * collision rates are measured by {@link #getSearchStats} instead.
+	 *
+	 * @return The transposition table.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	public TranspositionTable getTranspositionTable() {
+		return transpositionTable;
+	}
+
+	/**
+	 * Returns the number of nodes inspected since the beginning of the last call
+	 * to {@link #iterativeDeepeningSearch}, including the ones inspected by the
+	 * workers of {@link #parallelBestNodeLimitedSearch} but not the ones
+	 * inspected by Lazy SMP helpers.
+	 *
+	 * @return The number of inspected nodes.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	public long getInspectedNodes() {
+		long res = inspectedNodes;
+		for (AI<S, A> worker : rootWorkers)
+			res += worker.inspectedNodes;
+		return res;
+	}
+
+	/**
+	 * Enables or disables the collection of the {@link SearchStats} of each call
+	 * to {@link #iterativeDeepeningSearch}. They are disabled by default, in which
+	 * case they cost nothing, unless a Java Flight Recorder recording enables the
+	 * <code>monkey.Search</code> event.
+	 *
+	 * @param enabled <code>true</code> to collect statistics.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	public void setStatistics(boolean enabled) {
+		isStatisticsEnabled = enabled;
+	}
+
+	/**
+	 * Returns the statistics of the last call to
+	 * {@link #iterativeDeepeningSearch}.
+	 *
+	 * @see #setStatistics
+	 * @return The statistics, or <code>null</code> if they were not collected.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	public SearchStats getSearchStats() {
+		return stats;
+	}
+
+	/**
+	 * Returns the depth of the last iteration completed by the last call to
+	 * {@link #iterativeDeepeningSearch}.
+	 *
+	 * @return The reached depth, or <code>-1</code> if not even the first
+	 *         iteration was completed.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	public int getReachedDepth() {
+		return reachedDepth;
+	}
+
 	/**
 	 * During an alpha-beta search, decides when to apply {@link State#eval}. See S.
 	 * Russell, P. Norvig, <i>Artificial Intelligence: A Modern Approach</i>, 3rd
@@ -408,9 +1413,12 @@ public class AI<S extends State<S, A>, A> {
 	}
 
 	/**
-	 * Asserts the fact that the time is not almost over, or throws an exception if
-	 * this is not the case. This can be useful right after a frequent and/or
-	 * time-consuming operation.
+	 * Asserts the fact that the time is not almost over and that this helper has
+	 * not been stopped, or throws an exception if this is not the case. It is
+	 * called once per node, so the clock is only read every
+	 * {@link #clockPollInterval} calls: in between, only the volatile
+	 * {@link #stopped} flag is read. The exception is preallocated and carries no
+	 * stack trace.
 	 *
 	 * @throws TimeoutException The time limit is almost over.
 	 * @author Stefano Volpe
@@ -418,30 +1426,82 @@ public class AI<S extends State<S, A>, A> {
 	 * @since 1.0
 	 */
 	protected void timeCheck() throws TimeoutException {
-		if (System.currentTimeMillis() - startTime > timeLimit * RELAXATION)
-			throw new TimeoutException();
+		if (stopped || --clockCountdown <= 0 && clockCheck())
+			throw SearchTimeoutException.INSTANCE;
 	}
 
 	/**
-	 * Adds a new {@link SearchResult} to the {@link #transpositionTable}.
+	 * Reads the clock, stopping this {@link AI} if the time is almost over, and
+	 * restarts the countdown of {@link #timeCheck}. The interval between two
+	 * readings adapts to the cost of a node, which is much higher before the code
+	 * is compiled just in time or on big boards: it is halved whenever at least
+	 * {@link #CLOCKPOLLPERIOD} milliseconds have passed since the previous
+	 * reading, and doubled up to {@link #CLOCKPOLLINTERVAL} whenever the clock has
+	 * not ticked at all. If statistics are being collected, the time spent is
+	 * measured as well.
 	 *
-	 * @param cachedEntry     The correct retrieved {@link monkey.ai.table.Entry},
-	 *                        or <code>null</code> if no
-	 *                        {@link monkey.ai.table.Entry Entries} were present.
-	 * @param newSearchResult The {@link monkey.ai.table.SearchResult} to be added.
-	 *                        Cannot be <code>null</code>.
-	 * @throws NullPointerException newSearchResult is <code>null</code>.
-	 * @throws TimeoutException     The time limit is almost over.
+	 * @return <code>true</code> just in case this {@link AI} has been stopped.
 	 * @author Stefano Volpe
 	 * @version 1.0
 	 * @since 1.0
 	 */
-	private void addSearchResult(Entry<S, A> cachedEntry, SearchResult<A> newSearchResult) throws TimeoutException {
-		if (cachedEntry == null)
-			transpositionTable.put(state.hashCode(), new Entry<S, A>(newSearchResult));
-		else
-			cachedEntry.add(newSearchResult);
-		timeCheck();
+	private boolean clockCheck() {
+		final long startNanos = stats != null ? System.nanoTime() : 0;
+		final long now = System.currentTimeMillis();
+		if (now - lastClockReading >= CLOCKPOLLPERIOD)
+			clockPollInterval = Math.max(1, clockPollInterval / 2);
+		else if (now == lastClockReading)
+			clockPollInterval = Math.min(CLOCKPOLLINTERVAL, clockPollInterval * 2);
+		lastClockReading = now;
+		clockCountdown = clockPollInterval;
+		if (now - startTime > timeLimit * RELAXATION)
+			stopped = true;
+		if (stats != null)
+			stats.clockReading(System.nanoTime() - startNanos);
+		return stopped;
+	}
+
+	/**
+	 * Adds a new search result to the {@link #transpositionTable}.
+	 *
+	 * @param s             The searched state.
+	 * @param move          The encoded best/refutation move.
+	 * @param score         The computed score.
+	 * @param flag          The nature of the score.
+	 * @param searchDepth   The depth of the search.
+	 * @param searchedNodes The number of nodes of the subtree searched.
+	 * @throws NullPointerException s or flag are <code>null</code>.
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	private void addSearchResult(S s, int move, int score, ScoreType flag, int searchDepth, long searchedNodes) {
+		transpositionTable.store(s.longHashCode(), s.convertToHashedAction(move), score, flag, searchDepth,
+				searchedNodes);
+	}
+
+	/**
+	 * Returns the buffer where the encoded actions of the nodes with a certain
+	 * remaining depth are written. Since at most one such node is being expanded
+	 * at any time, buffers are allocated once and reused by every later search.
+	 * The matching buffer of {@link #scoreBuffers} is allocated as well.
+	 *
+	 * @param depthLimit The remaining depth of the node to expand.
+	 * @return A buffer of at least {@link IntState#maxActions} elements.
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	private int[] moveBuffer(int depthLimit) {
+		if (depthLimit >= moveBuffers.length) {
+			moveBuffers = java.util.Arrays.copyOf(moveBuffers, depthLimit + 1);
+			scoreBuffers = java.util.Arrays.copyOf(scoreBuffers, depthLimit + 1);
+		}
+		if (moveBuffers[depthLimit] == null) {
+			moveBuffers[depthLimit] = new int[state.maxActions()];
+			scoreBuffers[depthLimit] = new int[state.maxActions()];
+		}
+		return moveBuffers[depthLimit];
 	}
 
 	/**
@@ -452,19 +1512,153 @@ public class AI<S extends State<S, A>, A> {
 	private S state;
 	/** The maximum number of milliseconds usable to select a move. */
 	final private long timeLimit;
-	/** Utilities instance for generic objects. */
-	final private ObjectUtils objectUtils = new ObjectUtils();
+	/** Marks the absence of an encoded action. */
+	final private static int NOMOVE = -1;
+	/**
+	 * Half width of the aspiration window used by
+	 * {@link #principalVariationSearch}.
+	 */
+	final private static int ASPIRATIONDELTA = 1000;
 	/** The higher, the more time is used at most for each search. */
 	final private float RELAXATION = 0.94f;
-	/** A transposition table for this instance of the {@link AI}. */
-	final private HashMap<Integer, Entry<S, A>> transpositionTable;
+	/** Maximum number of calls to {@link #timeCheck} between two clock readings. */
+	final private static int CLOCKPOLLINTERVAL = 1024;
+	/**
+	 * Milliseconds between two clock readings above which
+	 * {@link #clockPollInterval} is reduced.
+	 */
+	final private static long CLOCKPOLLPERIOD = 2;
+	/**
+	 * A transposition table for this instance of the {@link AI}. Lazy SMP helpers
+	 * share the one of their master.
+	 */
+	final private TranspositionTable transpositionTable;
+	/**
+	 * Buffer where {@link TranspositionTable#probe} copies the selected slot. Its
+	 * content is always read before the next probe.
+	 */
+	final private long[] cachedSlot = new long[TranspositionTable.LONGSPERSLOT];
+	/**
+	 * Per-depth buffers of encoded actions, indexed by remaining depth and
+	 * allocated lazily by {@link #moveBuffer}.
+	 */
+	private int[][] moveBuffers = new int[0][];
+	/**
+	 * Ordering scores of the actions in {@link #moveBuffers}, allocated along with
+	 * them.
+	 */
+	private int[][] scoreBuffers = new int[0][];
+	/** Killer moves, history and root statistics of this {@link AI}. */
+	final private MoveOrdering ordering;
+	/**
+	 * Whether {@link #ordering} is used to sort actions. It is disabled along with
+	 * the default {@link #engine}.
+	 */
+	private boolean isOrderingEnabled = false;
+	/**
+	 * Maximum number of actions searched in each node, or <code>0</code> if there
+	 * is no such limit.
+	 */
+	private int candidateWidth = 0;
+	/** Number of threads used by {@link #iterativeDeepeningSearch}. */
+	private int threads = 1;
+	/**
+	 * The {@link Solver} run before each search, or <code>null</code> if there is
+	 * none.
+	 */
+	private Solver<S, A> solver = null;
+	/** Maximum fraction of the time limit usable by the {@link #solver}. */
+	final private static float SOLVERTIMEFRACTION = 0.25f;
+	/**
+	 * Fraction of the time limit after which {@link #immediateSearch} gives up
+	 * its second ply.
+	 */
+	final private static float IMMEDIATETIMEFRACTION = 0.5f;
+	/**
+	 * Number of children searched again by the second ply of
+	 * {@link #immediateSearch}.
+	 */
+	final private static int IMMEDIATEWIDTH = 10;
+	/**
+	 * Replicas of {@link #state} owned by the threads of {@link #immediateSearch}
+	 * and not in use. They are kept from a call to the next one, and brought up to
+	 * date by replaying the actions played in between.
+	 */
+	final private ConcurrentLinkedQueue<S> idleReplicas = new ConcurrentLinkedQueue<S>();
+	/** {@link OpeningBook} probed before each search, if any. */
+	private OpeningBook book = null;
+	/** The {@link Engine} used by {@link #iterativeDeepeningSearch}. */
+	private Engine engine = Engine.BEST_NODE;
+	/**
+	 * Pool running the root children tests of
+	 * {@link #parallelBestNodeLimitedSearch}, or <code>null</code> if it has not
+	 * been needed yet.
+	 */
+	private ForkJoinPool rootPool = null;
+	/** Every worker created by {@link #parallelBestNodeLimitedSearch}. */
+	final private java.util.List<AI<S, A>> rootWorkers = new java.util.concurrent.CopyOnWriteArrayList<AI<S, A>>();
+	/** The workers not currently used by {@link #parallelBestNodeLimitedSearch}. */
+	final private ConcurrentLinkedQueue<AI<S, A>> idleRootWorkers = new ConcurrentLinkedQueue<AI<S, A>>();
+	/**
+	 * Set when the time is almost over, or by the master {@link AI} to stop a
+	 * helper or a worker.
+	 */
+	private volatile boolean stopped = false;
+	/** Calls to {@link #timeCheck} left before the next clock reading. */
+	private int clockCountdown = 1;
+	/**
+	 * Current number of calls to {@link #timeCheck} between two clock readings.
+	 */
+	private int clockPollInterval = 1;
+	/** Time of the last clock reading. */
+	private long lastClockReading;
 	/** Start time of the current turn. */
 	private long startTime;
 	/**
-	 * Number of nodes actually inspected since the beginning of the last alpha-beta
-	 * search.
+	 * Number of nodes actually inspected since the beginning of the last call to
+	 * {@link #iterativeDeepeningSearch}.
 	 */
 	private long inspectedNodes;
+	/**
+	 * Depth of the last iteration completed by the last call to
+	 * {@link #iterativeDeepeningSearch}.
+	 */
+	private int reachedDepth = -1;
+	/**
+	 * Score of the previous iteration of {@link #principalVariationSearch} or
+	 * {@link #mtdf}. Only meaningful if {@link #hasPreviousScore} is
+	 * <code>true</code>.
+	 */
+	private int previousScore;
+	/** Whether {@link #previousScore} refers to the current search or not. */
+	private boolean hasPreviousScore = false;
+	/**
+	 * Encoded best root child found by the last call to
+	 * {@link #principalVariationRoot}.
+	 */
+	private int rootBestMove = NOMOVE;
+	/** The {@link AI} searching on the opponent's time, if any. */
+	private AI<S, A> ponderer = null;
+	/** The thread running {@link #ponderer}, if it has not been stopped yet. */
+	private Thread ponderThread = null;
+	/**
+	 * Hash code of the {@link State} reached by the best reply found by the last
+	 * iteration completed by {@link #ponderSearch}.
+	 */
+	private long ponderKey;
+	/** Whether {@link #ponderSearch} completed its last iteration. */
+	private boolean isPonderComplete = false;
+	/**
+	 * Whether the last call to {@link #iterativeDeepeningSearch} was a ponder hit.
+	 */
+	private boolean isPonderHit = false;
+	/** Whether {@link #setStatistics statistics} are enabled. */
+	private boolean isStatisticsEnabled = false;
+	/**
+	 * Statistics of the current or last search, or <code>null</code> if they are
+	 * not being collected. Workers and helpers have their own.
+	 */
+	private SearchStats stats = null;
 	/** Random number generator. */
 	final private java.util.Random random = new java.util.Random(System.currentTimeMillis());
 
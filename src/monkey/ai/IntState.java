@@ -0,0 +1,167 @@
+package monkey.ai;
+
+/**
+ * An <code>IntState</code> is a {@link State} whose actions can also be
+ * represented as non-negative <code>int</code>s. Every method working on
+ * encoded actions mirrors one of {@link State}, so that a search can be carried
+ * out without allocating any object for each node: the encoded actions are
+ * written into buffers provided by the caller, and no <code>Action</code>
+ * instance is needed until the final decision has been made.
+ *
+ * @param <Self>   The class implementing the interface.
+ * @param <Action> The type of the moves of the game.
+ * @author Stefano Volpe
+ * @version 1.0
+ * @since 1.0
+ */
+public interface IntState<Self extends IntState<Self, Action>, Action> extends State<Self, Action> {
+
+	/**
+	 * Encodes an action as a non-negative integer, so that it can be stored in
+	 * primitive data structures such as a
+	 * {@link monkey.ai.table.TranspositionTable}.
+	 *
+	 * @see #decodeAction
+	 * @param a The action to encode.
+	 * @throws NullPointerException a is <code>null</code>.
+	 * @return The encoded action.
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	public int encodeAction(Action a);
+
+	/**
+	 * Decodes an action previously encoded by {@link #encodeAction}.
+	 *
+	 * @see #encodeAction
+	 * @param i The encoded action.
+	 * @throws IndexOutOfBoundsException i is not a valid encoding.
+	 * @return The decoded action.
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	public Action decodeAction(int i);
+
+	/**
+	 * An upper bound to the number of actions which can be written by
+	 * {@link #actions(int[])}, i.e. the minimum length of its buffer.
+	 *
+	 * @return The maximum number of encoded actions.
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	public int maxActions();
+
+	/**
+	 * Checks if a certain encoded action is legal.
+	 *
+	 * @see State#isLegal
+	 * @param a The encoded action to test.
+	 * @throws IndexOutOfBoundsException a is not a valid encoding.
+	 * @return <code>true</code> just in case a is legal.
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	public boolean isLegal(int a);
+
+	/**
+	 * Writes the same actions of {@link State#actions()}, encoded and in the same
+	 * order, at the beginning of a buffer.
+	 *
+	 * @param buffer Where to write the encoded actions. Its length must not be
+	 *               less than {@link #maxActions}.
+	 * @throws NullPointerException      buffer is <code>null</code>.
+	 * @throws IndexOutOfBoundsException buffer is too short.
+	 * @return The number of actions written.
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	public int actions(int[] buffer);
+
+	/**
+	 * Writes a subset of the encoded actions of {@link #actions(int[])} at the
+	 * beginning of a buffer: at most a certain number of them, the most promising
+	 * ones first according to a cheap static estimate. Used to prune the search
+	 * when the branching factor is too high for a full-width one.
+	 *
+	 * @param buffer Where to write the encoded actions. Its length must not be
+	 *               less than {@link #maxActions}.
+	 * @param width  The maximum number of actions to be written.
+	 * @throws NullPointerException      buffer is <code>null</code>.
+	 * @throws IndexOutOfBoundsException buffer is too short.
+	 * @throws IllegalArgumentException  width is not strictly positive.
+	 * @return The number of actions written.
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	public int candidateActions(int[] buffer, int width);
+
+	/**
+	 * Returns the last action applied to this {@link IntState}, encoded.
+	 *
+	 * @return The last encoded action, or a negative value if no action has been
+	 *         applied yet.
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	public int lastAction();
+
+	/**
+	 * Writes every action applied to this {@link IntState} so far, encoded and
+	 * in the order they were applied, at the beginning of a buffer. Replaying
+	 * them on an initial {@link IntState} leads to this one.
+	 *
+	 * @param buffer Where to write the encoded actions. Its length must not be
+	 *               less than {@link #maxActions}.
+	 * @throws NullPointerException      buffer is <code>null</code>.
+	 * @throws IndexOutOfBoundsException buffer is too short.
+	 * @return The number of actions written.
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	public int history(int[] buffer);
+
+	/**
+	 * Applies an encoded action to this {@link IntState}.
+	 *
+	 * @see State#result
+	 * @param a The encoded action to apply.
+	 * @throws IndexOutOfBoundsException a is not a valid encoding.
+	 * @return This {@link IntState}, after the update.
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	public Self result(int a);
+
+	/**
+	 * Encoded version of {@link State#convertToHashedAction}.
+	 *
+	 * @param a A legal encoded action for this {@link IntState}.
+	 * @return The computed encoded action.
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	public int convertToHashedAction(int a);
+
+	/**
+	 * Encoded version of {@link State#revertFromHashedAction}.
+	 *
+	 * @param a A legal encoded action for the hashing representant.
+	 * @return The computed encoded action.
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	public int revertFromHashedAction(int a);
+
+}
@@ -0,0 +1,544 @@
+package monkey.ai;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * An <code>MCTS</code> is a Monte Carlo tree search engine for the same games
+ * as an {@link AI}. See C. Browne et al., <i>A Survey of Monte Carlo Tree
+ * Search Methods</i>, IEEE Transactions on Computational Intelligence and AI in
+ * Games, vol. 4, no. 1, 2012. Children are selected by UCT blended with the
+ * all-moves-as-first (RAVE) heuristic, see S. Gelly, D. Silver, <i>Monte-Carlo
+ * tree search and rapid action value estimation in computer Go</i>, Artificial
+ * Intelligence, vol. 175, no. 11, 2011. Playouts follow the cheap static
+ * estimate of {@link IntState#candidateActions} and are cut off after
+ * {@link #PLAYOUTPLIES} plies, the reached {@link State} being scored by
+ * {@link State#eval}.
+ * <p>
+ * Every thread plays out on its own replica of the current {@link State},
+ * while the tree is shared: selection, expansion and backpropagation hold its
+ * lock, and a visit is counted as soon as a node is selected, so that it acts
+ * as a virtual loss steering the other threads elsewhere until the playout is
+ * over. The nodes live in a pool of parallel primitive arrays whose size
+ * depends on a memory budget: once it is full, the tree stops growing. After
+ * an {@link #update}, the subtree of the action played is kept and compacted
+ * at the beginning of the pool.
+ *
+ * @param <S> The type to be used for game {@link IntState}s.
+ * @param <A> The type of the moves of the game.
+ * @author Gaia Clerici
+ * @version 1.0
+ * @since 1.0
+ */
+public class MCTS<S extends IntState<S, A>, A> {
+
+	/**
+	 * Constructs a new {@link MCTS} for a certain {@link Player} given an initial
+	 * {@link State}, a timeout in milliseconds and the memory budget of its tree.
+	 *
+	 * @param p         The player the {@link MCTS} will play as.
+	 * @param s0        The initial {@link State} of the game.
+	 * @param t         The maximum number of milliseconds usable to select a move.
+	 * @param megabytes The memory budget of the tree in megabytes.
+	 * @throws NullPointerException     p or s0 are <code>null</code>.
+	 * @throws IllegalArgumentException megabytes is not strictly positive.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	public MCTS(Player p, S s0, long t, int megabytes) {
+		// if (p == null || s0 == null)
+		// throw new NullPointerException("Some of the arguments are null.");
+		if (megabytes <= 0)
+			throw new IllegalArgumentException("megabytes is not strictly positive.");
+		player = p;
+		state = s0;
+		timeLimit = t;
+		CAPACITY = (int) Math.min(MAXNODES, ((long) megabytes << 20) / BYTESPERNODE);
+		moves = new int[CAPACITY];
+		firstChildren = new int[CAPACITY];
+		childrenCounts = new int[CAPACITY];
+		visits = new int[CAPACITY];
+		rewards = new float[CAPACITY];
+		raveVisits = new int[CAPACITY];
+		raveRewards = new float[CAPACITY];
+		compactionMap = new int[CAPACITY];
+		clearTree();
+	}
+
+	/**
+	 * Updates the current {@link State} with the given action, keeping the
+	 * subtree of such action, if any.
+	 *
+	 * @param a A legal action to inform this {@link MCTS} about.
+	 * @throws IllegalArgumentException <code>a</code> is an illegal action for the
+	 *                                  current state.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	public void update(A a) {
+		final int encoded = state.encodeAction(a);
+		state.result(a);
+		if (firstChildren[ROOT] != NOTEXPANDED)
+			for (int c = firstChildren[ROOT], end = c + childrenCounts[ROOT]; c < end; ++c)
+				if (moves[c] == encoded) {
+					compact(c);
+					return;
+				}
+		clearTree();
+	}
+
+	/**
+	 * When called in a state in which the player has the move, selects one of the
+	 * legal actions to be played by Monte Carlo tree search: playouts are run
+	 * until the time is almost over, and the most visited child of the root is
+	 * returned. If a {@link Solver} has been set, it is run first.
+	 *
+	 * @throws IllegalArgumentException The player does not have the move or if the
+	 *                                  state is terminal.
+	 * @return A legal action to be played.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	public A selectAction() {
+		// if (state.terminalTest())
+		// throw new IllegalArgumentException("s is a terminal state.");
+		// if (player != state.player())
+		// throw new IllegalArgumentException("It's not your turn.");
+		startTime = System.currentTimeMillis();
+		playouts = 0;
+		if (solver != null) {
+			final int winningMove = solver.solve(state, startTime + (long) (timeLimit * SOLVERTIMEFRACTION));
+			if (winningMove >= 0)
+				return state.decodeAction(winningMove);
+		}
+		if (firstChildren[ROOT] == NOTEXPANDED)
+			expand(ROOT, state, new int[state.maxActions()]);
+		if (childrenCounts[ROOT] == 0)
+			return state.actions().next();
+		if (childrenCounts[ROOT] > 1) {
+			final long deadline = startTime + (long) (timeLimit * RELAXATION);
+			final int[] history = new int[state.maxActions()];
+			final int historySize = state.history(history);
+			final ArrayList<Thread> helperThreads = new ArrayList<Thread>(threads - 1);
+			for (int i = 1; i < threads; ++i) {
+				if (replicas.size() < i)
+					replicas.add(state.clone());
+				final S replica = replicas.get(i - 1);
+				AI.synchronize(replica, history, historySize);
+				final Random r = new Random(random.nextLong());
+				final Thread helperThread = new Thread(() -> playOut(replica, r, deadline));
+				helperThread.setDaemon(true);
+				helperThread.start();
+				helperThreads.add(helperThread);
+			}
+			playOut(state, random, deadline);
+			for (Thread helperThread : helperThreads)
+				try {
+					helperThread.join();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+		}
+		int best = firstChildren[ROOT];
+		for (int c = best + 1, end = best + childrenCounts[ROOT]; c < end; ++c)
+			if (visits[c] > visits[best])
+				best = c;
+		return state.decodeAction(moves[best]);
+	}
+
+	/**
+	 * Sets the number of threads used by {@link #selectAction}: the calling one
+	 * and <code>t - 1</code> helpers.
+	 *
+	 * @param t The number of threads.
+	 * @throws IllegalArgumentException t is not strictly positive.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	public void setThreads(int t) {
+		if (t <= 0)
+			throw new IllegalArgumentException("t is not strictly positive.");
+		threads = t;
+	}
+
+	/**
+	 * Sets the maximum number of children of each node of the tree: if positive,
+	 * only the most promising actions according to
+	 * {@link IntState#candidateActions} are expanded. The default value is 0,
+	 * i.e. every action is expanded.
+	 *
+	 * @param width The maximum number of children, or 0 for no limit.
+	 * @throws IllegalArgumentException width is negative.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	public void setCandidateWidth(int width) {
+		if (width < 0)
+			throw new IllegalArgumentException("width is negative.");
+		candidateWidth = width;
+	}
+
+	/**
+	 * Sets the {@link Solver} run by {@link #selectAction} before the tree
+	 * search, with {@link #SOLVERTIMEFRACTION} of the time limit.
+	 *
+	 * @param s The {@link Solver} to run, or <code>null</code> not to run any.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	public void setSolver(Solver<S, A> s) {
+		solver = s;
+	}
+
+	/**
+	 * Returns the number of playouts run by the last call to
+	 * {@link #selectAction}.
+	 *
+	 * @return The number of playouts.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	public long getPlayouts() {
+		return playouts;
+	}
+
+	/**
+	 * Returns the number of nodes currently in the tree.
+	 *
+	 * @return The size of the tree.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	public int getTreeSize() {
+		return size;
+	}
+
+	/**
+	 * Runs playouts from the root on a replica of the current {@link State} until
+	 * a deadline. Each one descends the tree, expands the node it reaches if it
+	 * was already visited, plays out from there and backpropagates the result.
+	 * The replica is rewound to the root after each playout.
+	 *
+	 * @param s        The replica, which must be in the current {@link State}.
+	 * @param r        The source of randomness of the playouts.
+	 * @param deadline The time, as returned by {@link System#currentTimeMillis},
+	 *                 after which no playout is started.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	private void playOut(S s, Random r, long deadline) {
+		final int rootMark = s.mark();
+		final int[] path = new int[s.maxActions() + 1], played = new int[s.maxActions()],
+				buffer = new int[s.maxActions()];
+		final byte[] movers = new byte[s.maxActions()];
+		final Player rootPlayer = s.player();
+		while (System.currentTimeMillis() < deadline) {
+			int depth = 0;
+			synchronized (this) {
+				int node = ROOT;
+				path[0] = node;
+				++visits[node];
+				while (true) {
+					if (firstChildren[node] == NOTEXPANDED
+							&& (node != ROOT && visits[node] < EXPANSIONVISITS || !expand(node, s, buffer)))
+						break;
+					if (childrenCounts[node] == 0)
+						break;
+					node = select(node);
+					s.result(moves[node]);
+					played[depth] = moves[node];
+					path[++depth] = node;
+					// virtual loss until the playout is over
+					++visits[node];
+				}
+			}
+			int playedCount = depth;
+			for (int ply = 0; ply < PLAYOUTPLIES && !s.terminalTest(); ++ply) {
+				final int count = s.candidateActions(buffer, PLAYOUTWIDTH);
+				final int a = r.nextFloat() < PLAYOUTGREEDINESS ? buffer[0] : buffer[r.nextInt(count)];
+				s.result(a);
+				played[playedCount++] = a;
+			}
+			final float reward = reward(s, rootPlayer);
+			s.rewind(rootMark);
+			backPropagate(path, depth, played, playedCount, movers, reward);
+		}
+	}
+
+	/**
+	 * Selects the child of a node to be descended into, maximizing the upper
+	 * confidence bound of its value blended with its all-moves-as-first value.
+	 * Unvisited children without all-moves-as-first statistics come first.
+	 *
+	 * @param node An expanded node with some children.
+	 * @return The selected child.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	private int select(int node) {
+		final double logVisits = Math.log(visits[node]);
+		int res = firstChildren[node];
+		double bestValue = Double.NEGATIVE_INFINITY;
+		for (int c = res, end = c + childrenCounts[node]; c < end; ++c) {
+			final int v = visits[c], rv = raveVisits[c];
+			double value;
+			if (v == 0 && rv == 0)
+				value = FIRSTPLAYURGENCY;
+			else {
+				final double beta = rv / (v + rv + RAVEBIAS * v * rv),
+						q = v == 0 ? 0 : rewards[c] / v, raveQ = rv == 0 ? 0 : raveRewards[c] / rv;
+				value = (1 - beta) * q + beta * raveQ;
+			}
+			value += EXPLORATION * Math.sqrt(logVisits / (v + 1));
+			if (value > bestValue) {
+				bestValue = value;
+				res = c;
+			}
+		}
+		return res;
+	}
+
+	/**
+	 * Expands a node, whose children are allocated at the end of the pool.
+	 *
+	 * @param node   The node to expand.
+	 * @param s      The {@link State} of the node.
+	 * @param buffer A buffer for the encoded actions.
+	 * @return <code>false</code> just in case the pool is too full for the
+	 *         children, which are not allocated.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	private boolean expand(int node, S s, int[] buffer) {
+		final int count = s.terminalTest() ? 0
+				: candidateWidth > 0 ? s.candidateActions(buffer, candidateWidth) : s.actions(buffer);
+		if (size + count > CAPACITY)
+			return false;
+		for (int i = 0; i < count; ++i)
+			newNode(size + i, buffer[i]);
+		firstChildren[node] = size;
+		childrenCounts[node] = count;
+		size += count;
+		return true;
+	}
+
+	/**
+	 * Scores the end of a playout.
+	 *
+	 * @param s          The {@link State} reached by the playout.
+	 * @param rootPlayer The {@link Player} who has the move at the root.
+	 * @return The reward of rootPlayer in [0, 1]: 1 for a victory, 0.5 for a
+	 *         draw and 0 for a loss, or a logistic function of the evaluation if
+	 *         the game is not over.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	private static <S extends IntState<S, A>, A> float reward(S s, Player rootPlayer) {
+		if (!s.terminalTest())
+			return (float) (1 / (1 + Math.exp(-s.eval(rootPlayer) / EVALSCALE)));
+		final int own = s.utility(rootPlayer), other = s.utility(rootPlayer.not());
+		return own > other ? 1 : own < other ? 0 : 0.5f;
+	}
+
+	/**
+	 * Backpropagates the reward of a playout along the path of the tree it
+	 * descended, updating the all-moves-as-first statistics of the siblings of
+	 * the path too: a child counts as played if its action was played later in
+	 * the same playout by the same {@link Player}.
+	 *
+	 * @param path        The nodes descended, from the root.
+	 * @param depth       The depth of the last node of path.
+	 * @param played      The actions played, from the root.
+	 * @param playedCount The number of actions played.
+	 * @param movers      A buffer, indexed by action, filled with zeros.
+	 * @param reward      The reward of the {@link Player} who has the move at the
+	 *                    root.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	private synchronized void backPropagate(int[] path, int depth, int[] played, int playedCount, byte[] movers,
+			float reward) {
+		// the first time each action was played below the current node, by the
+		// player at the root (1) or by the other one (2)
+		for (int i = playedCount - 1; i >= depth; --i)
+			movers[played[i]] = (byte) (1 + i % 2);
+		for (int d = depth; d >= 0; --d) {
+			final int node = path[d];
+			// a node at an odd depth was reached by a move of the player at the root
+			rewards[node] += d % 2 == 1 ? reward : 1 - reward;
+			if (firstChildren[node] != NOTEXPANDED) {
+				final byte mover = (byte) (1 + d % 2);
+				final float childReward = d % 2 == 0 ? reward : 1 - reward;
+				for (int c = firstChildren[node], end = c + childrenCounts[node]; c < end; ++c)
+					if (movers[moves[c]] == mover) {
+						++raveVisits[c];
+						raveRewards[c] += childReward;
+					}
+			}
+			if (d > 0)
+				movers[played[d - 1]] = (byte) (1 + (d - 1) % 2);
+		}
+		for (int i = 0; i < playedCount; ++i)
+			movers[played[i]] = 0;
+		++playouts;
+	}
+
+	/**
+	 * Makes a child of the root the new root, discarding every node outside of
+	 * its subtree and moving the other ones at the beginning of the pool. Since
+	 * children are allocated after their parents and siblings next to each other,
+	 * moving each node to its rank among the kept ones preserves both properties.
+	 * Takes Θ(size of the pool) time.
+	 *
+	 * @param newRoot The child of the root to keep.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	private void compact(int newRoot) {
+		Arrays.fill(compactionMap, 0, size, NOTEXPANDED);
+		compactionMap[newRoot] = 0;
+		int newSize = 0;
+		for (int i = newRoot; i < size; ++i)
+			if (compactionMap[i] != NOTEXPANDED) {
+				compactionMap[i] = newSize++;
+				if (firstChildren[i] != NOTEXPANDED)
+					Arrays.fill(compactionMap, firstChildren[i], firstChildren[i] + childrenCounts[i], 0);
+			}
+		for (int i = newRoot; i < size; ++i) {
+			final int j = compactionMap[i];
+			if (j == NOTEXPANDED)
+				continue;
+			moves[j] = moves[i];
+			// a terminal node is expanded with no children
+			firstChildren[j] = firstChildren[i] == NOTEXPANDED || childrenCounts[i] == 0 ? firstChildren[i]
+					: compactionMap[firstChildren[i]];
+			childrenCounts[j] = childrenCounts[i];
+			visits[j] = visits[i];
+			rewards[j] = rewards[i];
+			raveVisits[j] = raveVisits[i];
+			raveRewards[j] = raveRewards[i];
+		}
+		size = newSize;
+	}
+
+	/**
+	 * Discards the whole tree, leaving an unexpanded root.
+	 *
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	private void clearTree() {
+		newNode(ROOT, NOMOVE);
+		size = 1;
+	}
+
+	/**
+	 * Initializes an unexpanded, unvisited node of the pool.
+	 *
+	 * @param node The node to initialize.
+	 * @param move The encoded action leading to it.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	private void newNode(int node, int move) {
+		moves[node] = move;
+		firstChildren[node] = NOTEXPANDED;
+		childrenCounts[node] = 0;
+		visits[node] = 0;
+		rewards[node] = 0;
+		raveVisits[node] = 0;
+		raveRewards[node] = 0;
+	}
+
+	/** The player this {@link MCTS} plays as. */
+	final private Player player;
+	/** The current {@link State} of the game. */
+	final private S state;
+	/** The maximum number of milliseconds usable to select a move. */
+	final private long timeLimit;
+	/** Maximum number of nodes of the pool. */
+	final private int CAPACITY;
+	/** Index of the root in the pool. */
+	final private static int ROOT = 0;
+	/** Marks an unexpanded node in {@link #firstChildren}. */
+	final private static int NOTEXPANDED = -1;
+	/** The action leading to the root. */
+	final private static int NOMOVE = -1;
+	/** Bytes taken by each node of the pool. */
+	final private static int BYTESPERNODE = 8 * Integer.BYTES;
+	/** Maximum number of nodes of the pool, whatever the memory budget. */
+	final private static int MAXNODES = 1 << 28;
+	/** Number of visits a node needs before being expanded. */
+	final private static int EXPANSIONVISITS = 2;
+	/** Weight of the exploration term of the upper confidence bound. */
+	final private static double EXPLORATION = 0.4;
+	/** How fast the weight of the all-moves-as-first value decreases. */
+	final private static double RAVEBIAS = 0.001;
+	/** Value of an unvisited child with no all-moves-as-first statistics. */
+	final private static double FIRSTPLAYURGENCY = 1.1;
+	/** Maximum number of plies of a playout below the tree. */
+	final private static int PLAYOUTPLIES = 20;
+	/** Number of most promising actions a playout chooses from. */
+	final private static int PLAYOUTWIDTH = 5;
+	/** Probability of a playout choosing the most promising action. */
+	final private static float PLAYOUTGREEDINESS = 0.5f;
+	/** Scale of the logistic function turning an evaluation into a reward. */
+	final private static double EVALSCALE = 2000;
+	/** Fraction of the time limit used by the {@link Solver}. */
+	final private static float SOLVERTIMEFRACTION = 0.25f;
+	/** Fraction of the time limit after which no playout is started. */
+	final private static float RELAXATION = 0.9f;
+	/** For each node, the encoded action leading to it. */
+	final private int[] moves;
+	/** For each node, its first child or {@link #NOTEXPANDED}. */
+	final private int[] firstChildren;
+	/** For each node, the number of its children, which are contiguous. */
+	final private int[] childrenCounts;
+	/** For each node, the number of playouts through it, including running ones. */
+	final private int[] visits;
+	/**
+	 * For each node, the sum of the rewards of the {@link Player} who moved into
+	 * it.
+	 */
+	final private float[] rewards;
+	/** For each node, the number of all-moves-as-first updates. */
+	final private int[] raveVisits;
+	/** For each node, the sum of its all-moves-as-first rewards. */
+	final private float[] raveRewards;
+	/** For each node, its new index during {@link #compact}. */
+	final private int[] compactionMap;
+	/** Number of nodes of the pool in use. */
+	private int size;
+	/** The replicas of {@link #state} searched by the helper threads. */
+	final private ArrayList<S> replicas = new ArrayList<S>();
+	/** Number of threads used by {@link #selectAction}. */
+	private int threads = 1;
+	/** See {@link #setCandidateWidth}. */
+	private int candidateWidth = 0;
+	/** See {@link #setSolver}. */
+	private Solver<S, A> solver = null;
+	/** Starting time of the current search. */
+	private long startTime;
+	/** Number of playouts of the current search. */
+	private long playouts;
+	/** Source of randomness of the calling thread. */
+	final private Random random = new Random(System.currentTimeMillis());
+
+}
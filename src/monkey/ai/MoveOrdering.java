@@ -0,0 +1,254 @@
+package monkey.ai;
+
+import java.util.Arrays;
+
+/**
+ * A <code>MoveOrdering</code> sorts the encoded actions of an {@link IntState}
+ * so that the ones most likely to cause a cutoff are searched first. Below the
+ * root, killer moves, counter-moves and the history heuristic are used. See J.
+ * Schaeffer, <i>The History Heuristic and Alpha-Beta Search Enhancements in
+ * Practice</i>, in <i>IEEE Transactions on Pattern Analysis and Machine
+ * Intelligence</i>, 11(11), 1989, pp. 1203-1212. At the root, actions are
+ * sorted by the number of nodes their subtrees needed during the previous
+ * iteration. Instances are not thread-safe: each {@link AI} owns one, and the
+ * root workers of a parallel search record their root statistics in their own
+ * instance, which is then merged into the one of the master by
+ * {@link #mergeRootNodes}.
+ *
+ * @author Gaia Clerici
+ * @version 1.0
+ * @since 1.0
+ */
+public class MoveOrdering {
+
+	/**
+	 * Constructs a new {@link MoveOrdering} given the number of distinct encoded
+	 * actions.
+	 *
+	 * @param actions The number of distinct encoded actions.
+	 * @throws IllegalArgumentException actions is negative.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	public MoveOrdering(int actions) {
+		// if (actions < 0)
+		// throw new IllegalArgumentException("actions is negative.");
+		history = new int[Player.values().length][actions];
+		counterMoves = new int[actions];
+		Arrays.fill(counterMoves, NOMOVE);
+		rootNodes = new long[actions];
+	}
+
+	/**
+	 * Prepares this {@link MoveOrdering} for the search of a new move: killer
+	 * moves and root statistics are forgotten, while the history table is aged.
+	 *
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	public void newSearch() {
+		for (int[] k : killers)
+			Arrays.fill(k, NOMOVE);
+		for (int[] h : history)
+			for (int i = 0; i < h.length; ++i)
+				h[i] >>= 1;
+		Arrays.fill(rootNodes, 0);
+		hasRootNodes = false;
+	}
+
+	/**
+	 * Computes the ordering score of each encoded action of a node. Killer moves
+	 * come first, then the counter-move, then the other actions by decreasing
+	 * history score.
+	 *
+	 * @see #selectNext
+	 * @param actions    The encoded actions of the node.
+	 * @param count      The number of meaningful elements of actions.
+	 * @param scores     Where to write the scores.
+	 * @param depthLimit The remaining depth of the node.
+	 * @param p          The {@link Player} who has the move.
+	 * @param lastAction The encoded action leading to the node, or a negative
+	 *                   value.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	public void score(int[] actions, int count, int[] scores, int depthLimit, Player p, int lastAction) {
+		final int[] k = killers(depthLimit), h = history[p.ordinal()];
+		final int counterMove = lastAction < 0 ? NOMOVE : counterMoves[lastAction];
+		for (int i = 0; i < count; ++i) {
+			final int a = actions[i];
+			if (a == k[0])
+				scores[i] = KILLERSCORE;
+			else if (a == k[1])
+				scores[i] = KILLERSCORE - 1;
+			else if (a == counterMove)
+				scores[i] = KILLERSCORE - 2;
+			else
+				scores[i] = h[a];
+		}
+	}
+
+	/**
+	 * Moves the encoded action with the highest score among the ones from a
+	 * certain index on to such index, shifting the ones in between. Ties are
+	 * broken in favour of the earliest action, and the relative order of the
+	 * other actions is preserved, so that the static order of the
+	 * {@link IntState} still applies among equal scores. Selecting lazily is
+	 * cheaper than sorting, since a cutoff often makes the remaining actions
+	 * useless.
+	 *
+	 * @param actions The encoded actions of the node.
+	 * @param scores  The scores computed by {@link #score}.
+	 * @param from    The index to fill.
+	 * @param count   The number of meaningful elements of actions.
+	 * @return The selected encoded action.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	public static int selectNext(int[] actions, int[] scores, int from, int count) {
+		int best = from;
+		for (int i = from + 1; i < count; ++i)
+			if (scores[i] > scores[best])
+				best = i;
+		if (best != from) {
+			final int action = actions[best], score = scores[best];
+			System.arraycopy(actions, from, actions, from + 1, best - from);
+			System.arraycopy(scores, from, scores, from + 1, best - from);
+			actions[from] = action;
+			scores[from] = score;
+		}
+		return actions[from];
+	}
+
+	/**
+	 * Updates killer moves, history and counter-moves after an encoded action
+	 * caused a cutoff.
+	 *
+	 * @param action     The encoded action causing the cutoff.
+	 * @param depthLimit The remaining depth of the node.
+	 * @param p          The {@link Player} who has the move.
+	 * @param lastAction The encoded action leading to the node, or a negative
+	 *                   value.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	public void cutoff(int action, int depthLimit, Player p, int lastAction) {
+		final int[] k = killers(depthLimit);
+		if (k[0] != action) {
+			k[1] = k[0];
+			k[0] = action;
+		}
+		final int[] h = history[p.ordinal()];
+		h[action] += depthLimit * depthLimit;
+		if (h[action] > MAXHISTORY)
+			for (int[] row : history)
+				for (int i = 0; i < row.length; ++i)
+					row[i] >>= 1;
+		if (lastAction >= 0)
+			counterMoves[lastAction] = action;
+	}
+
+	/**
+	 * Adds a number of nodes to the subtree statistics of a root action.
+	 *
+	 * @param action The encoded root action.
+	 * @param nodes  The number of nodes searched in its subtree.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	public void addRootNodes(int action, long nodes) {
+		rootNodes[action] += nodes;
+	}
+
+	/**
+	 * Adds the subtree statistics of the root actions collected by another
+	 * {@link MoveOrdering} to the ones of this instance, then resets the former.
+	 * It must not be called while the other instance is being updated.
+	 *
+	 * @param other The {@link MoveOrdering} to merge.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	public void mergeRootNodes(MoveOrdering other) {
+		for (int i = 0; i < rootNodes.length; ++i)
+			rootNodes[i] += other.rootNodes[i];
+		Arrays.fill(other.rootNodes, 0);
+	}
+
+	/**
+	 * Sorts the encoded root actions by decreasing number of nodes searched in
+	 * their subtrees since the previous call, then resets such statistics. The
+	 * sort is stable, so that the static order of the {@link IntState} breaks
+	 * ties.
+	 *
+	 * @param actions The encoded root actions.
+	 * @param count   The number of meaningful elements of actions.
+	 * @return <code>true</code> just in case any statistic was available.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	public boolean sortRoot(int[] actions, int count) {
+		final boolean res = hasRootNodes;
+		if (res)
+			for (int i = 1; i < count; ++i) {
+				final int action = actions[i];
+				int j = i;
+				for (; j > 0 && rootNodes[actions[j - 1]] < rootNodes[action]; --j)
+					actions[j] = actions[j - 1];
+				actions[j] = action;
+			}
+		Arrays.fill(rootNodes, 0);
+		hasRootNodes = true;
+		return res;
+	}
+
+	/**
+	 * Returns the killer moves for a certain remaining depth, which identifies a
+	 * ply within an iteration of {@link AI#iterativeDeepeningSearch}.
+	 *
+	 * @param depthLimit The remaining depth of the node.
+	 * @return The killer moves.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	private int[] killers(int depthLimit) {
+		if (depthLimit >= killers.length) {
+			final int oldLength = killers.length;
+			killers = Arrays.copyOf(killers, depthLimit + 1);
+			for (int i = oldLength; i < killers.length; ++i) {
+				killers[i] = new int[KILLERS];
+				Arrays.fill(killers[i], NOMOVE);
+			}
+		}
+		return killers[depthLimit];
+	}
+
+	/** Marks the absence of an encoded action. */
+	final private static int NOMOVE = -1;
+	/** Number of killer moves per ply. */
+	final private static int KILLERS = 2;
+	/** Score of the first killer move. It is higher than any history score. */
+	final private static int KILLERSCORE = Integer.MAX_VALUE;
+	/** History scores are halved when one of them exceeds this value. */
+	final private static int MAXHISTORY = 1 << 24;
+	/** Killer moves, indexed by remaining depth. */
+	private int[][] killers = new int[0][];
+	/** History scores, indexed by {@link Player} and encoded action. */
+	final private int[][] history;
+	/** Last refutation of each encoded action, or {@link #NOMOVE}. */
+	final private int[] counterMoves;
+	/** Nodes searched in the subtree of each encoded root action. */
+	final private long[] rootNodes;
+	/** Whether {@link #rootNodes} has been filled by a previous iteration. */
+	private boolean hasRootNodes = false;
+
+}
@@ -0,0 +1,111 @@
+package monkey.ai;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Percentage;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+import monkey.ai.table.ScoreType;
+
+/**
+ * A Java Flight Recorder event committed by an {@link AI} for the search of
+ * every move, carrying its {@link SearchStats}. The duration of the event is
+ * the one of the search. Since loading an event class is expensive, it is
+ * only created once Flight Recorder has been initialized, and its fields are
+ * only set if a recording enables it.
+ *
+ * @author Gaia Clerici
+ * @version 1.0
+ * @since 1.0
+ */
+@Name("monkey.Search")
+@Label("Search")
+@Category("MoNKey")
+@Description("Statistics of the search of a single move")
+@StackTrace(false)
+final class SearchEvent extends Event {
+
+	/**
+	 * Copies some {@link SearchStats} into this event.
+	 *
+	 * @param s The statistics of the search.
+	 * @throws NullPointerException s is <code>null</code>.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	void set(SearchStats s) {
+		nodes = s.getNodes();
+		nodesPerSecond = s.getNodesPerSecond();
+		depth = s.getReachedDepth();
+		tableProbes = s.getTableProbes();
+		tableHits = s.getTableHits();
+		tableCollisions = s.getTableCollisions();
+		trueValueCutoffs = s.getTableCutoffs(ScoreType.TRUEVALUE);
+		upperBoundCutoffs = s.getTableCutoffs(ScoreType.UPPERBOUND);
+		lowerBoundCutoffs = s.getTableCutoffs(ScoreType.LOWERBOUND);
+		passes = s.getPasses();
+		cutoffs = s.getCutoffs();
+		firstMoveCutoffRate = s.getFirstMoveCutoffRate();
+		clockReadings = s.getClockReadings();
+		clockNanos = s.getClockNanos();
+		clockOverhead = s.getClockOverhead();
+		ponderHit = s.isPonderHit();
+	}
+
+	/** See {@link SearchStats#getNodes}. */
+	@Label("Nodes")
+	long nodes;
+	/** See {@link SearchStats#getNodesPerSecond}. */
+	@Label("Nodes per Second")
+	double nodesPerSecond;
+	/** See {@link SearchStats#getReachedDepth}. */
+	@Label("Depth")
+	int depth;
+	/** See {@link SearchStats#getTableProbes}. */
+	@Label("Table Probes")
+	long tableProbes;
+	/** See {@link SearchStats#getTableHits}. */
+	@Label("Table Hits")
+	long tableHits;
+	/** See {@link SearchStats#getTableCollisions}. */
+	@Label("Table Collisions")
+	long tableCollisions;
+	/** See {@link SearchStats#getTableCutoffs}. */
+	@Label("True Value Cutoffs")
+	long trueValueCutoffs;
+	/** See {@link SearchStats#getTableCutoffs}. */
+	@Label("Upper Bound Cutoffs")
+	long upperBoundCutoffs;
+	/** See {@link SearchStats#getTableCutoffs}. */
+	@Label("Lower Bound Cutoffs")
+	long lowerBoundCutoffs;
+	/** See {@link SearchStats#getPasses}. */
+	@Label("Root Passes")
+	long passes;
+	/** See {@link SearchStats#getCutoffs}. */
+	@Label("Beta Cutoffs")
+	long cutoffs;
+	/** See {@link SearchStats#getFirstMoveCutoffRate}. */
+	@Label("First-Move Cutoff Rate")
+	@Percentage
+	double firstMoveCutoffRate;
+	/** See {@link SearchStats#getClockReadings}. */
+	@Label("Clock Readings")
+	long clockReadings;
+	/** See {@link SearchStats#getClockNanos}. */
+	@Label("Clock Time")
+	@Timespan(Timespan.NANOSECONDS)
+	long clockNanos;
+	/** See {@link SearchStats#getClockOverhead}. */
+	@Label("Clock Overhead")
+	@Percentage
+	double clockOverhead;
+	/** See {@link SearchStats#isPonderHit}. */
+	@Label("Ponder Hit")
+	boolean ponderHit;
+
+}
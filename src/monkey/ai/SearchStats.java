@@ -0,0 +1,367 @@
+package monkey.ai;
+
+import monkey.ai.table.ScoreType;
+import monkey.ai.table.TranspositionTable;
+
+/**
+ * A <code>SearchStats</code> collects the statistics of the search of a single
+ * move by an {@link AI}: inspected nodes, speed, completed depth, transposition
+ * table usage, passes at the root, beta cutoffs and the overhead of the clock
+ * readings. Counters are only updated by the thread owning the {@link AI}, and
+ * an {@link AI} only collects them when asked to, so that they cost nothing
+ * otherwise.
+ *
+ * @see AI#setStatistics
+ * @see AI#getSearchStats
+ * @author Gaia Clerici
+ * @version 1.0
+ * @since 1.0
+ */
+public class SearchStats {
+
+	/**
+	 * Returns the number of nodes inspected, including the ones inspected by the
+	 * workers of {@link AI#parallelBestNodeLimitedSearch} but not the ones
+	 * inspected by Lazy SMP helpers.
+	 *
+	 * @return The number of inspected nodes.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	public long getNodes() {
+		return nodes;
+	}
+
+	/**
+	 * Returns the number of nodes inspected per second.
+	 *
+	 * @return The number of nodes per second, or <code>0</code> if no time was
+	 *         measured.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	public double getNodesPerSecond() {
+		return elapsedNanos == 0 ? 0 : nodes * 1e9 / elapsedNanos;
+	}
+
+	/**
+	 * Returns the depth of the last iteration completed.
+	 *
+	 * @return The completed depth, or <code>-1</code> if not even the first
+	 *         iteration was completed.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	public int getReachedDepth() {
+		return reachedDepth;
+	}
+
+	/**
+	 * Returns the time spent selecting the move.
+	 *
+	 * @return The elapsed time in nanoseconds.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	public long getElapsedNanos() {
+		return elapsedNanos;
+	}
+
+	/**
+	 * Returns the number of transposition table probes made by inner nodes.
+	 *
+	 * @return The number of probes.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	public long getTableProbes() {
+		return tableProbes;
+	}
+
+	/**
+	 * Returns the number of transposition table probes which found a slot for
+	 * the probed state.
+	 *
+	 * @return The number of hits.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	public long getTableHits() {
+		return tableHits;
+	}
+
+	/**
+	 * Returns the number of slots discarded by transposition table probes because
+	 * their key matched but their move was illegal. The ratio between this value
+	 * and {@link #getTableHits} estimates the false-hit rate of the table.
+	 *
+	 * @see TranspositionTable#countCollisions
+	 * @return The number of collisions.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	public long getTableCollisions() {
+		return tableCollisions;
+	}
+
+	/**
+	 * Returns the number of nodes whose search was cut off by a cached score of
+	 * a certain type, either because it is a true value or because it is a bound
+	 * closing the alpha-beta window.
+	 *
+	 * @param flag The type of the cached score.
+	 * @return The number of cutoffs.
+	 * @throws NullPointerException flag is <code>null</code>.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	public long getTableCutoffs(ScoreType flag) {
+		return tableCutoffs[flag.ordinal()];
+	}
+
+	/**
+	 * Returns the number of passes made at the root: the null-window passes of a
+	 * best node search or of MTD(f), or the full searches of the root children by
+	 * principal variation search, including the ones repeated after the
+	 * aspiration window failed.
+	 *
+	 * @return The number of root passes.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	public long getPasses() {
+		return passes;
+	}
+
+	/**
+	 * Returns the number of beta cutoffs caused by a child search.
+	 *
+	 * @return The number of cutoffs.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	public long getCutoffs() {
+		return cutoffs;
+	}
+
+	/**
+	 * Returns the fraction of the beta cutoffs caused by the first child
+	 * searched, which measures the quality of move ordering.
+	 *
+	 * @return The first-move cutoff rate, or <code>0</code> if there were no
+	 *         cutoffs.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	public double getFirstMoveCutoffRate() {
+		return cutoffs == 0 ? 0 : (double) firstMoveCutoffs / cutoffs;
+	}
+
+	/**
+	 * Returns the number of times the clock was read to check the time limit.
+	 *
+	 * @return The number of clock readings.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	public long getClockReadings() {
+		return clockReadings;
+	}
+
+	/**
+	 * Returns the time spent reading the clock to check the time limit.
+	 *
+	 * @return The time spent in nanoseconds.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	public long getClockNanos() {
+		return clockNanos;
+	}
+
+	/**
+	 * Returns the fraction of the elapsed time spent reading the clock.
+	 *
+	 * @return The time check overhead, or <code>0</code> if no time was measured.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	public double getClockOverhead() {
+		return elapsedNanos == 0 ? 0 : (double) clockNanos / elapsedNanos;
+	}
+
+	/**
+	 * Checks whether the opponent played the reply expected by pondering.
+	 *
+	 * @return <code>true</code> just in case the search was a ponder hit.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	public boolean isPonderHit() {
+		return isPonderHit;
+	}
+
+	/**
+	 * {@inheritDoc} <br>
+	 * All the statistics are listed on a single line.
+	 */
+	@Override
+	public String toString() {
+		return String.format(java.util.Locale.ROOT,
+				"depth %d, %d nodes, %.0f nodes/s, %d probes, %d hits, %d collisions, %d/%d/%d cutoffs by true "
+						+ "value/upper bound/lower bound, %d passes, %.1f%% first-move cutoffs, %d clock readings "
+						+ "(%.2f%%)%s",
+				reachedDepth, nodes, getNodesPerSecond(), tableProbes, tableHits, tableCollisions,
+				tableCutoffs[ScoreType.TRUEVALUE.ordinal()], tableCutoffs[ScoreType.UPPERBOUND.ordinal()],
+				tableCutoffs[ScoreType.LOWERBOUND.ordinal()], passes, 100 * getFirstMoveCutoffRate(), clockReadings,
+				100 * getClockOverhead(), isPonderHit ? ", ponder hit" : "");
+	}
+
+	/**
+	 * Records a transposition table probe.
+	 *
+	 * @param isHit      Whether a slot was found for the probed state.
+	 * @param collisions The number of slots discarded as collisions.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	void probe(boolean isHit, int collisions) {
+		++tableProbes;
+		if (isHit)
+			++tableHits;
+		tableCollisions += collisions;
+	}
+
+	/**
+	 * Records a node cut off by a cached score.
+	 *
+	 * @param flag The type of the cached score.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	void tableCutoff(ScoreType flag) {
+		++tableCutoffs[flag.ordinal()];
+	}
+
+	/**
+	 * Records a beta cutoff caused by a child search.
+	 *
+	 * @param isFirst Whether the child was the first one searched.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	void cutoff(boolean isFirst) {
+		++cutoffs;
+		if (isFirst)
+			++firstMoveCutoffs;
+	}
+
+	/**
+	 * Records a pass at the root.
+	 *
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	void pass() {
+		++passes;
+	}
+
+	/**
+	 * Records a clock reading.
+	 *
+	 * @param nanos The time spent in nanoseconds.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	void clockReading(long nanos) {
+		++clockReadings;
+		clockNanos += nanos;
+	}
+
+	/**
+	 * Adds the counters of a worker to the ones of this {@link SearchStats}.
+	 *
+	 * @param s The statistics of the worker.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	void add(SearchStats s) {
+		tableProbes += s.tableProbes;
+		tableHits += s.tableHits;
+		tableCollisions += s.tableCollisions;
+		for (int i = 0; i < tableCutoffs.length; ++i)
+			tableCutoffs[i] += s.tableCutoffs[i];
+		passes += s.passes;
+		cutoffs += s.cutoffs;
+		firstMoveCutoffs += s.firstMoveCutoffs;
+		clockReadings += s.clockReadings;
+		clockNanos += s.clockNanos;
+	}
+
+	/**
+	 * Records the outcome of the search.
+	 *
+	 * @param n       The number of inspected nodes.
+	 * @param depth   The depth of the last iteration completed.
+	 * @param elapsed The elapsed time in nanoseconds.
+	 * @param hit     Whether the search was a ponder hit.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	void finish(long n, int depth, long elapsed, boolean hit) {
+		nodes = n;
+		reachedDepth = depth;
+		elapsedNanos = elapsed;
+		isPonderHit = hit;
+	}
+
+	/** Number of inspected nodes. */
+	private long nodes = 0;
+	/** Depth of the last iteration completed. */
+	private int reachedDepth = -1;
+	/** Time spent selecting the move in nanoseconds. */
+	private long elapsedNanos = 0;
+	/** Number of transposition table probes. */
+	private long tableProbes = 0;
+	/** Number of transposition table hits. */
+	private long tableHits = 0;
+	/** Number of transposition table slots discarded as collisions. */
+	private long tableCollisions = 0;
+	/** Number of cutoffs by cached scores, indexed by {@link ScoreType}. */
+	final private long[] tableCutoffs = new long[ScoreType.values().length];
+	/** Number of passes at the root. */
+	private long passes = 0;
+	/** Number of beta cutoffs caused by a child search. */
+	private long cutoffs = 0;
+	/** Number of beta cutoffs caused by the first child searched. */
+	private long firstMoveCutoffs = 0;
+	/** Number of clock readings. */
+	private long clockReadings = 0;
+	/** Time spent reading the clock in nanoseconds. */
+	private long clockNanos = 0;
+	/** Whether the search was a ponder hit. */
+	private boolean isPonderHit = false;
+
+}
@@ -0,0 +1,45 @@
+package monkey.ai;
+
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Signals that an {@link AI} search has to be abandoned. It carries no stack
+ * trace, so that a single preallocated instance can be thrown from arbitrarily
+ * deep recursions by any thread at the cost of a jump.
+ *
+ * @author Stefano Volpe
+ * @version 1.0
+ * @since 1.0
+ */
+final class SearchTimeoutException extends TimeoutException {
+
+	/**
+	 * Constructs the only instance of the class.
+	 *
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	private SearchTimeoutException() {
+		super("The time limit is almost over.");
+	}
+
+	/**
+	 * Does not fill in the stack trace, which is never read.
+	 *
+	 * @return This exception.
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	@Override
+	public synchronized Throwable fillInStackTrace() {
+		return this;
+	}
+
+	/** The only instance of the class. */
+	final static SearchTimeoutException INSTANCE = new SearchTimeoutException();
+	/** Serialization version. */
+	final static private long serialVersionUID = 1L;
+
+}
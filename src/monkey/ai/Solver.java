@@ -0,0 +1,36 @@
+package monkey.ai;
+
+/**
+ * A <code>Solver</code> looks for a forced win of the {@link Player} who has the
+ * move, using game-specific knowledge to inspect far fewer nodes than a
+ * full-width search. It is run by an {@link AI} before its own search.
+ *
+ * @see AI#setSolver
+ * @param <S> The type to be used for game {@link IntState}s.
+ * @param <A> The type of the moves of the game.
+ * @author Gaia Clerici
+ * @version 1.0
+ * @since 1.0
+ */
+public interface Solver<S extends IntState<S, A>, A> {
+
+	/**
+	 * Looks for a forced win of the {@link Player} who has the move in a certain
+	 * non-terminal {@link IntState}. The search is abandoned as soon as either the
+	 * budget of the <code>Solver</code> or the time is over. The
+	 * {@link IntState} is left as it was found.
+	 *
+	 * @param s        The {@link IntState} to solve.
+	 * @param deadline The time, as returned by
+	 *                 {@link System#currentTimeMillis}, after which the search
+	 *                 has to be abandoned.
+	 * @throws NullPointerException s is <code>null</code>.
+	 * @return The encoded first move of a forced win, or a negative value if none
+	 *         was found.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	public int solve(S s, long deadline);
+
+}
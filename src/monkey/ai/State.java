@@ -84,6 +84,31 @@ public interface State<Self extends State<Self, Action>, Action> extends Cloneab
 	 */
 	public Self revert();
 
+	/**
+	 * Marks the current {@link State}, so that it can be restored by
+	 * {@link #rewind} after some further actions. Takes O(1) time.
+	 *
+	 * @return A mark for the current {@link State}.
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	public int mark();
+
+	/**
+	 * Reverts the state to a previously marked ancestor of its, one action at a
+	 * time. Takes O(1) time for each reverted action.
+	 *
+	 * @param mark A mark returned by {@link #mark} on an ancestor of this
+	 *             {@link State} (or on this {@link State} itself).
+	 * @return A reference to this {@link State}.
+	 * @throws IllegalArgumentException mark does not refer to an ancestor.
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	public Self rewind(int mark);
+
 	/**
 	 * Checks for terminal {@link State}s.
 	 *
@@ -165,17 +190,6 @@ public interface State<Self extends State<Self, Action>, Action> extends Cloneab
 	 */
 	public int overestimatedHeight();
 
-	/**
-	 * Suggests a reasonable transposition table capacity assuming this instance is
-	 * used as initial {@link State}.
-	 *
-	 * @return The suggested capacity.
-	 * @author Stefano Volpe
-	 * @version 1.0
-	 * @since 1.0
-	 */
-	public int ttSuggestedCapacity();
-
 	/**
 	 * Computes the number of legal, relevant actions for the current {@link State}.
 	 *
@@ -212,4 +226,17 @@ public interface State<Self extends State<Self, Action>, Action> extends Cloneab
 	 */
 	public Action revertFromHashedAction(Action a);
 
+	/**
+	 * Returns a 64-bit hash code for this {@link State}. Equal {@link State}s must
+	 * return the same value. It is meant to verify the content of a
+	 * {@link monkey.ai.table.TranspositionTable} slot, hence it should be far less
+	 * prone to collisions than {@link Object#hashCode}.
+	 *
+	 * @return A 64-bit hash code value for this {@link State}.
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	public long longHashCode();
+
 }
@@ -0,0 +1,167 @@
+package monkey.ai.table;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import monkey.ai.IntState;
+
+/**
+ * An <code>OpeningBook</code> maps the 64-bit hash codes of some
+ * {@link IntState}s to the actions selected for them by a deep offline search.
+ * Since such hash codes and the stored actions refer to the hashing
+ * representant of each {@link IntState}, a single entry covers all of its
+ * symmetric variants. Books are stored in a compact binary file: a header made
+ * of {@link #MAGIC}, the number of slots and the number of entries, followed by
+ * an open-addressing hash table whose slots hold a key, an action converted by
+ * {@link IntState#convertToHashedAction} and the depth of the search which
+ * selected it. A book is memory-mapped rather than read, so that opening it
+ * only costs a system call and probing it never allocates.
+ *
+ * @author Gaia Clerici
+ * @version 1.0
+ * @since 1.0
+ */
+public class OpeningBook {
+
+	/** First <code>int</code> of every book file. */
+	final public static int MAGIC = 0x4d6f4e4b;
+	/** Number of bytes of the header of a book file. */
+	final public static int HEADERBYTES = 3 * Integer.BYTES;
+	/** Number of bytes used to store a single slot. */
+	final public static int SLOTBYTES = Long.BYTES + 2 * Integer.BYTES;
+
+	/**
+	 * Memory-maps an existing book file.
+	 *
+	 * @param file The path of the book file.
+	 * @throws NullPointerException file is <code>null</code>.
+	 * @throws IOException          The file cannot be read or is not a valid book
+	 *                              file.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	public OpeningBook(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			if (channel.size() < HEADERBYTES)
+				throw new IOException(file + " is not an opening book.");
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+		capacity = buffer.getInt(Integer.BYTES);
+		size = buffer.getInt(2 * Integer.BYTES);
+		if (buffer.getInt(0) != MAGIC || Integer.bitCount(capacity) != 1
+				|| buffer.capacity() != HEADERBYTES + (long) capacity * SLOTBYTES)
+			throw new IOException(file + " is not an opening book.");
+	}
+
+	/**
+	 * Looks for the action selected for a certain {@link IntState}. Takes
+	 * expected Θ(1) time, since at most half of the slots are used.
+	 *
+	 * @param <S>   The type to be used for game {@link IntState}s.
+	 * @param <A>   The type of the moves of the game.
+	 * @param state The current state of the game.
+	 * @throws NullPointerException state is <code>null</code>.
+	 * @return The encoded legal action selected for state, or a negative value if
+	 *         there is none.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	public <S extends IntState<S, A>, A> int probe(S state) {
+		final long key = state.longHashCode();
+		for (int i = index(key, capacity), probes = 0; probes < capacity; i = i + 1 & capacity - 1, ++probes) {
+			final int offset = HEADERBYTES + i * SLOTBYTES;
+			if (buffer.getInt(offset + Long.BYTES + Integer.BYTES) == 0)
+				return NOMOVE;
+			if (buffer.getLong(offset) == key) {
+				final int hashedMove = buffer.getInt(offset + Long.BYTES);
+				if (hashedMove < 0 || hashedMove >= state.maxActions())
+					return NOMOVE;
+				final int move = state.revertFromHashedAction(hashedMove);
+				return state.isLegal(move) ? move : NOMOVE;
+			}
+		}
+		return NOMOVE;
+	}
+
+	/**
+	 * Returns the number of entries of this {@link OpeningBook}.
+	 *
+	 * @return The number of entries.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Writes a new book file, replacing any existing one. The number of slots is
+	 * a power of two and at least twice the number of entries.
+	 *
+	 * @param file   The path of the book file.
+	 * @param keys   The 64-bit hash codes of the book {@link IntState}s.
+	 * @param moves  The selected actions, converted by
+	 *               {@link IntState#convertToHashedAction}.
+	 * @param depths The strictly positive depths of the searches which selected
+	 *               them.
+	 * @param count  The number of meaningful elements of the arrays.
+	 * @throws NullPointerException     Any of the arguments are
+	 *                                  <code>null</code>.
+	 * @throws IllegalArgumentException Some depths are not strictly positive.
+	 * @throws IOException              The file cannot be written.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	public static void write(Path file, long[] keys, int[] moves, int[] depths, int count) throws IOException {
+		final int capacity = Integer.highestOneBit(Math.max(1, count)) * 4;
+		final ByteBuffer out = ByteBuffer.allocate(HEADERBYTES + capacity * SLOTBYTES);
+		out.putInt(MAGIC).putInt(capacity).putInt(count);
+		for (int e = 0; e < count; ++e) {
+			if (depths[e] <= 0)
+				throw new IllegalArgumentException("Some depths are not strictly positive.");
+			int i = index(keys[e], capacity);
+			while (out.getInt(HEADERBYTES + i * SLOTBYTES + Long.BYTES + Integer.BYTES) != 0)
+				i = i + 1 & capacity - 1;
+			out.putLong(HEADERBYTES + i * SLOTBYTES, keys[e]);
+			out.putInt(HEADERBYTES + i * SLOTBYTES + Long.BYTES, moves[e]);
+			out.putInt(HEADERBYTES + i * SLOTBYTES + Long.BYTES + Integer.BYTES, depths[e]);
+		}
+		out.rewind();
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			while (out.hasRemaining())
+				channel.write(out);
+		}
+	}
+
+	/**
+	 * Decides the first slot to be inspected for a certain key.
+	 *
+	 * @param key      A 64-bit hash code.
+	 * @param capacity The number of slots, which is a power of two.
+	 * @return The index of the first slot.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	private static int index(long key, int capacity) {
+		return (int) (key ^ key >>> Integer.SIZE) & capacity - 1;
+	}
+
+	/** Marks the absence of an encoded action. */
+	final private static int NOMOVE = -1;
+	/** The memory-mapped content of the book file. */
+	final private MappedByteBuffer buffer;
+	/** Number of slots, which is a power of two. */
+	final private int capacity;
+	/** Number of entries. */
+	final private int size;
+
+}
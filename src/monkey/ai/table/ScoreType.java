@@ -0,0 +1,20 @@
+package monkey.ai.table;
+
+/**
+ * A <code>ScoreType</code> indicates the nature of the score stored in a
+ * {@link TranspositionTable} slot.
+ *
+ * @author Gaia Clerici
+ * @version 1.0
+ * @since 1.0
+ */
+public enum ScoreType {
+
+	/** Indicates that the score is a true value. */
+	TRUEVALUE,
+	/** Indicates that the score is an upper bound. */
+	UPPERBOUND,
+	/** Indicates that the score is a lower bound. */
+	LOWERBOUND
+
+}
@@ -0,0 +1,499 @@
+package monkey.ai.table;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import monkey.ai.IntState;
+
+/**
+ * A <code>TranspositionTable</code> with a fixed memory budget. Its slots are
+ * packed into a single array of primitive <code>long</code>s, so that storing
+ * a search result never allocates. Slots are grouped in buckets of
+ * {@link #SLOTSPERBUCKET}, and each bucket follows the <code>TWOBIG1</code>
+ * two-level replacement scheme. See D.M. Breuker, J.W.H.M. Uiterwijk, H.J. van
+ * den Herik, <i>Replacement Schemes for Transposition Tables</i>, in <i>ICCA
+ * Journal</i>, 17, 1994, 7. Each slot stores the best/refutation move, the
+ * computed score, its nature, the depth of the search and the number of nodes
+ * visited in the process, together with the full 64-bit key of the state: a
+ * slot is only used if its key matches the probing one in every bit, not just
+ * in those used to select its bucket. See D.M. Breuker, J.W.H.M. Uiterwijk,
+ * H.J. van den Herik, <i>Information in Transposition Tables</i>, in H.J. van
+ * den Herik, J.W.H.M. Uiterwijk (eds), <i>Advances in Computer Chess 8</i>,
+ * Computer Science Department, Universiteit Maastricht. 1997, pp. 2-3, 4.
+ * Several threads can share the same instance without any locking.
+ *
+ * @author Gaia Clerici
+ * @version 1.0
+ * @since 1.0
+ */
+public class TranspositionTable {
+
+	/** Number of slots in each bucket. */
+	final public static int SLOTSPERBUCKET = 2;
+	/** Number of <code>long</code>s used to store a single slot. */
+	final public static int LONGSPERSLOT = 3;
+	/** Number of bytes used to store a single slot. */
+	final public static int SLOTBYTES = LONGSPERSLOT * Long.BYTES;
+	/** Number of bytes in a megabyte. */
+	final public static long MEGABYTE = 1l << 20;
+	/**
+	 * The default budget is the maximum amount of memory the JVM will attempt to
+	 * use divided by this value.
+	 */
+	final public static int DEFAULTMEMORYFRACTION = 4;
+	/** First <code>int</code> of every file written by {@link #save}. */
+	final public static int FILEMAGIC = 0x4d6f5454;
+	/** Number of bytes of the header of a file written by {@link #save}. */
+	final public static int FILEHEADERBYTES = 2 * Integer.BYTES;
+
+	/**
+	 * Constructs a new, empty {@link TranspositionTable} which uses at most the
+	 * given amount of memory. The number of buckets is the greatest power of two
+	 * which fits the budget. Takes Θ({@link #capacity}) time.
+	 *
+	 * @param megabytes The memory budget in megabytes.
+	 * @throws IllegalArgumentException megabytes is not strictly positive.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	public TranspositionTable(int megabytes) {
+		if (megabytes <= 0)
+			throw new IllegalArgumentException("megabytes is not strictly positive.");
+		final long maxBuckets = Math.min(megabytes * MEGABYTE / (SLOTBYTES * SLOTSPERBUCKET),
+				Integer.MAX_VALUE / (LONGSPERSLOT * SLOTSPERBUCKET));
+		int buckets = Integer.highestOneBit((int) Math.max(1, maxBuckets));
+		mask = buckets - 1;
+		slots = new long[buckets * SLOTSPERBUCKET * LONGSPERSLOT];
+	}
+
+	/**
+	 * Computes the default memory budget from the maximum amount of memory the JVM
+	 * will attempt to use.
+	 *
+	 * @see #DEFAULTMEMORYFRACTION
+	 * @return The default budget in megabytes.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	public static int defaultMegabytes() {
+		return (int) Math.max(1, Math.min(Integer.MAX_VALUE,
+				Runtime.getRuntime().maxMemory() / DEFAULTMEMORYFRACTION / MEGABYTE));
+	}
+
+	/**
+	 * The number of slots of this {@link TranspositionTable}.
+	 *
+	 * @return The number of slots.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	public int capacity() {
+		return slots.length / LONGSPERSLOT;
+	}
+
+	/**
+	 * Empties every slot. Takes Θ({@link #capacity}) time.
+	 *
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	public void clear() {
+		java.util.Arrays.fill(slots, 0l);
+	}
+
+	/**
+	 * Decides which slot should be used for a certain state, if any, and copies
+	 * it into <code>result</code>. Only slots whose full key matches and whose
+	 * move is legal are taken into account. A slot whose key matches but whose
+	 * move is illegal can only be the result of a collision. Each slot is read
+	 * exactly once, so that a slot being concurrently overwritten by another
+	 * thread is simply discarded.
+	 *
+	 * @see #countCollisions
+	 * @param <S>    The type to be used for game {@link IntState}s.
+	 * @param <A>    The type of the moves of the game.
+	 * @param state  The current state of the game.
+	 * @param depth  The maximum depth to be inspected.
+	 * @param result An array of at least {@link #LONGSPERSLOT} elements where the
+	 *               selected slot is copied. Its content can then be read using
+	 *               {@link #getMove}, {@link #getScore}, {@link #getFlag},
+	 *               {@link #getDepth} and {@link #getNodes}.
+	 * @return <code>true</code> just in case a slot was selected.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	public <S extends IntState<S, A>, A> boolean probe(S state, int depth, long[] result) {
+		final long key = state.longHashCode();
+		final int first = bucket(key), second = first + LONGSPERSLOT;
+		final long firstData = slots[first + 1], firstInfo = slots[first + 2], secondData = slots[second + 1],
+				secondInfo = slots[second + 2];
+		final boolean isFirstValid = isValid(slots[first] ^ firstData ^ firstInfo, firstData, firstInfo, key, state),
+				isSecondValid = isValid(slots[second] ^ secondData ^ secondInfo, secondData, secondInfo, key, state);
+		final boolean pickFirst;
+		if (!isFirstValid)
+			if (isSecondValid)
+				pickFirst = false;
+			else
+				return false;
+		else if (!isSecondValid)
+			pickFirst = true;
+		else {
+			final int firstDepth = depthOf(firstInfo), secondDepth = depthOf(secondInfo);
+			if (depth <= firstDepth && flagOf(firstInfo) == ScoreType.TRUEVALUE)
+				pickFirst = true;
+			else if (depth <= secondDepth && flagOf(secondInfo) == ScoreType.TRUEVALUE)
+				pickFirst = false;
+			else
+				pickFirst = depth <= firstDepth || depth > secondDepth;
+		}
+		result[0] = key;
+		result[1] = pickFirst ? firstData : secondData;
+		result[2] = pickFirst ? firstInfo : secondInfo;
+		return true;
+	}
+
+	/**
+	 * Stores a new search result using the <code>TWOBIG1</code> replacement
+	 * scheme: the result which required the most nodes is kept in the first slot
+	 * of its bucket. The key is stored XOR-ed with the rest of the slot, so that
+	 * {@link #probe} can detect slots torn by concurrent writes without any
+	 * locking. See R. M. Hyatt, T. Mann, <i>A lock-less transposition table
+	 * implementation for parallel search chess engines</i>, in <i>ICGA
+	 * Journal</i>, 25(2), 2002, pp. 63-72.
+	 *
+	 * @param key           64-bit hash code of the searched state.
+	 * @param move          Encoded best/refutation move.
+	 * @param score         The computed score.
+	 * @param flag          The nature of the score.
+	 * @param searchDepth   Strictly positive depth of the search.
+	 * @param searchedNodes Strictly positive number of nodes of the subtree
+	 *                      searched.
+	 * @throws NullPointerException flag is <code>null</code>.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	public void store(long key, int move, int score, ScoreType flag, int searchDepth, long searchedNodes) {
+		put(key, (long) move << Integer.SIZE | score & 0xFFFFFFFFl,
+				searchedNodes << NODESSHIFT | (long) (searchDepth & DEPTHMASK) << DEPTHSHIFT | flag.ordinal());
+	}
+
+	/**
+	 * Writes the most valuable slots of this {@link TranspositionTable} to a
+	 * file, replacing any existing one, so that a later game can {@link #load}
+	 * them. Slots are ranked by the depth of their search first: among the ones
+	 * with the lowest depth saved, the first slot of each bucket, i.e. the one
+	 * which required the most nodes, is preferred. The ranking only takes a
+	 * histogram of the depths, without any sorting. Scores are saved as they
+	 * are, so the file should only be loaded by an {@link monkey.ai.AI} playing
+	 * as the same {@link monkey.ai.Player} of the same game.
+	 *
+	 * @param file     The path of the file.
+	 * @param maxSlots The maximum number of slots to be saved.
+	 * @throws NullPointerException     file is <code>null</code>.
+	 * @throws IllegalArgumentException maxSlots is negative.
+	 * @throws IOException              The file cannot be written.
+	 * @return The number of slots saved.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	public int save(Path file, int maxSlots) throws IOException {
+		if (maxSlots < 0)
+			throw new IllegalArgumentException("maxSlots is negative.");
+		final int[] histogram = new int[DEPTHMASK + 1];
+		for (int i = 0; i < slots.length; i += LONGSPERSLOT)
+			if (nodesOf(slots[i + 2]) != 0)
+				++histogram[depthOf(slots[i + 2])];
+		// every used slot deeper than threshold is saved, and so are some of depth threshold
+		int threshold = DEPTHMASK, count = 0;
+		while (threshold >= 0 && count + histogram[threshold] <= maxSlots)
+			count += histogram[threshold--];
+		if (threshold >= 0)
+			count = maxSlots;
+		final ByteBuffer out = ByteBuffer.allocate(FILEHEADERBYTES + count * SLOTBYTES);
+		out.putInt(FILEMAGIC).putInt(count);
+		for (int i = 0; i < slots.length; i += LONGSPERSLOT)
+			if (nodesOf(slots[i + 2]) != 0 && depthOf(slots[i + 2]) > threshold)
+				putSlot(out, i);
+		for (int slot = 0; slot < SLOTSPERBUCKET; ++slot)
+			for (int i = slot * LONGSPERSLOT; i < slots.length && out.hasRemaining(); i += SLOTSPERBUCKET
+					* LONGSPERSLOT)
+				if (nodesOf(slots[i + 2]) != 0 && depthOf(slots[i + 2]) == threshold)
+					putSlot(out, i);
+		out.rewind();
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			while (out.hasRemaining())
+				channel.write(out);
+		}
+		return count;
+	}
+
+	/**
+	 * Stores every slot of a file written by {@link #save}, as if each of them
+	 * was the result of a new search. The file is memory-mapped rather than read.
+	 *
+	 * @param file The path of the file.
+	 * @throws NullPointerException file is <code>null</code>.
+	 * @throws IOException          The file cannot be read or was not written by
+	 *                              {@link #save}.
+	 * @return The number of slots loaded.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	public int load(Path file) throws IOException {
+		final MappedByteBuffer in;
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			if (channel.size() < FILEHEADERBYTES)
+				throw new IOException(file + " is not a saved transposition table.");
+			in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+		final int count = in.getInt(Integer.BYTES);
+		if (in.getInt(0) != FILEMAGIC || count < 0 || in.capacity() != FILEHEADERBYTES + (long) count * SLOTBYTES)
+			throw new IOException(file + " is not a saved transposition table.");
+		in.position(FILEHEADERBYTES);
+		for (int i = 0; i < count; ++i) {
+			final long storedKey = in.getLong(), data = in.getLong(), info = in.getLong();
+			put(storedKey ^ data ^ info, data, info);
+		}
+		return count;
+	}
+
+	/**
+	 * Getter for the encoded best/refutation move stored in a slot.
+	 *
+	 * @param slot A slot copied by {@link #probe}.
+	 * @return The encoded move.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	public static int getMove(long[] slot) {
+		return (int) (slot[1] >>> Integer.SIZE);
+	}
+
+	/**
+	 * Getter for the score stored in a slot.
+	 *
+	 * @param slot A slot copied by {@link #probe}.
+	 * @return The stored score.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	public static int getScore(long[] slot) {
+		return (int) slot[1];
+	}
+
+	/**
+	 * Getter for the nature of the score stored in a slot.
+	 *
+	 * @param slot A slot copied by {@link #probe}.
+	 * @return The nature of the stored score.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	public static ScoreType getFlag(long[] slot) {
+		return flagOf(slot[2]);
+	}
+
+	/**
+	 * Getter for the search depth stored in a slot.
+	 *
+	 * @param slot A slot copied by {@link #probe}.
+	 * @return The stored search depth.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	public static int getDepth(long[] slot) {
+		return depthOf(slot[2]);
+	}
+
+	/**
+	 * Getter for the number of searched nodes stored in a slot.
+	 *
+	 * @param slot A slot copied by {@link #probe}.
+	 * @return The number of nodes of the subtree searched.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	public static long getNodes(long[] slot) {
+		return nodesOf(slot[2]);
+	}
+
+	/**
+	 * Stores an already packed slot using the <code>TWOBIG1</code> replacement
+	 * scheme.
+	 *
+	 * @see #store
+	 * @param key  64-bit hash code of the searched state.
+	 * @param data The move and the score.
+	 * @param info The number of nodes, the depth and the flag.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	private void put(long key, long data, long info) {
+		final int first = bucket(key), second = first + LONGSPERSLOT;
+		final int target;
+		if (nodesOf(info) >= nodesOf(slots[first + 2])) {
+			System.arraycopy(slots, first, slots, second, LONGSPERSLOT);
+			target = first;
+		} else
+			target = second;
+		slots[target] = key ^ data ^ info;
+		slots[target + 1] = data;
+		slots[target + 2] = info;
+	}
+
+	/**
+	 * Appends a slot, as it is stored, to a buffer.
+	 *
+	 * @param out   The buffer.
+	 * @param index The index of the first <code>long</code> of the slot.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	private void putSlot(ByteBuffer out, int index) {
+		out.putLong(slots[index]).putLong(slots[index + 1]).putLong(slots[index + 2]);
+	}
+
+	/**
+	 * Counts the slots of the bucket of a certain state which {@link #probe}
+	 * discards because their full key matches but their move is illegal. Such
+	 * slots would have been false hits without verification, so the ratio between
+	 * their number and the one of the hits estimates the false-hit rate. It is
+	 * meant to be called only when statistics are collected, since it repeats
+	 * the work of {@link #probe}.
+	 *
+	 * @param <S>   The type to be used for game {@link IntState}s.
+	 * @param <A>   The type of the moves of the game.
+	 * @param state The current state of the game.
+	 * @return The number of detected collisions.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	public <S extends IntState<S, A>, A> int countCollisions(S state) {
+		final long key = state.longHashCode();
+		final int first = bucket(key);
+		int res = 0;
+		for (int i = first; i < first + SLOTSPERBUCKET * LONGSPERSLOT; i += LONGSPERSLOT) {
+			final long data = slots[i + 1], info = slots[i + 2];
+			if (nodesOf(info) != 0 && (slots[i] ^ data ^ info) == key
+					&& !state.isLegal(state.revertFromHashedAction((int) (data >>> Integer.SIZE))))
+				++res;
+		}
+		return res;
+	}
+
+	/**
+	 * Maps a key to the index of the first <code>long</code> of its bucket.
+	 *
+	 * @param key The key to map.
+	 * @return The index of the first slot of the bucket within {@link #slots}.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	private int bucket(long key) {
+		return ((int) key & mask) * SLOTSPERBUCKET * LONGSPERSLOT;
+	}
+
+	/**
+	 * Checks whether a slot is non-empty, refers to the given key and stores a
+	 * move which is legal in the given state.
+	 *
+	 * @param <S>       The type to be used for game {@link IntState}s.
+	 * @param <A>       The type of the moves of the game.
+	 * @param storedKey The key of the slot, already XOR-ed with its data.
+	 * @param data      The move and the score of the slot.
+	 * @param info      The number of nodes, the depth and the flag of the slot.
+	 * @param key       The 64-bit key of the state.
+	 * @param state     The current state of the game.
+	 * @return <code>true</code> just in case the slot can be used.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	private <S extends IntState<S, A>, A> boolean isValid(long storedKey, long data, long info, long key, S state) {
+		return nodesOf(info) != 0 && storedKey == key
+				&& state.isLegal(state.revertFromHashedAction((int) (data >>> Integer.SIZE)));
+	}
+
+	/**
+	 * Extracts the flag from the third <code>long</code> of a slot.
+	 *
+	 * @param info The third <code>long</code> of a slot.
+	 * @return The nature of the stored score.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	private static ScoreType flagOf(long info) {
+		return SCORETYPES[(int) (info & FLAGMASK)];
+	}
+
+	/**
+	 * Extracts the search depth from the third <code>long</code> of a slot.
+	 *
+	 * @param info The third <code>long</code> of a slot.
+	 * @return The stored search depth.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	private static int depthOf(long info) {
+		return (int) (info >>> DEPTHSHIFT) & DEPTHMASK;
+	}
+
+	/**
+	 * Extracts the number of searched nodes from the third <code>long</code> of a
+	 * slot.
+	 *
+	 * @param info The third <code>long</code> of a slot.
+	 * @return The number of nodes of the subtree searched, or <code>0</code> if
+	 *         the slot is empty.
+	 * @author Gaia Clerici
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	private static long nodesOf(long info) {
+		return info >>> NODESSHIFT;
+	}
+
+	/** Every {@link ScoreType}, indexed by ordinal. */
+	final private static ScoreType[] SCORETYPES = ScoreType.values();
+	/** Mask for the flag bits of the third <code>long</code> of a slot. */
+	final private static long FLAGMASK = 0xFF;
+	/** Offset of the depth bits within the third <code>long</code> of a slot. */
+	final private static int DEPTHSHIFT = 8;
+	/** Mask for the depth bits once shifted. */
+	final private static int DEPTHMASK = 0xFFFF;
+	/** Offset of the nodes bits within the third <code>long</code> of a slot. */
+	final private static int NODESSHIFT = 24;
+	/** The number of buckets minus one, used to map keys to buckets. */
+	final private int mask;
+	/**
+	 * The packed slots. Each of them is made of {@link #LONGSPERSLOT}
+	 * <code>long</code>s: the 64-bit key XOR-ed with the other two, the move and
+	 * the score, and finally the number of searched nodes, the depth and the
+	 * flag.
+	 */
+	final private long[] slots;
+
+}
@@ -0,0 +1,244 @@
+package monkey.mnk;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An <code>AlignmentGeometry</code> describes the alignments of {@link #L}
+ * cells of a grid of {@link #M} rows and {@link #N} columns: for each cell, it
+ * lists the keys of the alignments it belongs to and of the ones it bounds as
+ * an extremity. Since it only depends on its three parameters and is never
+ * modified after being built, a single instance for each triple is shared by
+ * every {@link ThreatsManager}, every clone of theirs and every thread: see
+ * {@link #of}.
+ * <p>
+ * Both lists are stored in compressed form: the entries of cell c are the ones
+ * in [<code>start[c]</code> .. <code>start[c + 1]</code> - 1] of a flat array.
+ *
+ * @author Stefano Volpe
+ * @version 1.0
+ * @since 1.0
+ */
+final class AlignmentGeometry {
+
+	/**
+	 * Returns the {@link AlignmentGeometry} for a certain grid and alignment
+	 * length, building it only the first time it is requested. Safe to be called
+	 * by different threads.
+	 *
+	 * @param m Number of rows.
+	 * @param n Number of columns.
+	 * @param l Number of cells of each alignment. Must be greater than 1.
+	 * @return The shared {@link AlignmentGeometry}.
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	static AlignmentGeometry of(int m, int n, int l) {
+		return CACHE.computeIfAbsent((long) m << 42 | (long) n << 21 | l, key -> new AlignmentGeometry(m, n, l));
+	}
+
+	/**
+	 * Constructs a new {@link AlignmentGeometry}. Takes Θ({@link #M}
+	 * {@link #N} {@link #L}) time.
+	 *
+	 * @param m Number of rows.
+	 * @param n Number of columns.
+	 * @param l Number of cells of each alignment. Must be greater than 1.
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	private AlignmentGeometry(int m, int n, int l) {
+		M = m;
+		N = n;
+		L = l;
+		B = Math.max(0, N - L + 1);
+		H = Math.max(0, M - L + 1);
+		ALIGNMENTS = B * (M + H) + H * (N + B);
+		CONTENTSTART = new int[M * N + 1];
+		EXTREMITYSTART = new int[M * N + 1];
+		// each cell belongs to at most L alignments and bounds at most 2 of them
+		// along each direction
+		final int[] contents = new int[M * N * DIRECTIONS * L], extremities = new int[M * N * DIRECTIONS * 2];
+		for (int row = 0, cell = 0; row < M; ++row)
+			for (int column = 0; column < N; ++column, ++cell) {
+				CONTENTSTART[cell + 1] = addContents(row, column, contents, CONTENTSTART[cell]);
+				EXTREMITYSTART[cell + 1] = addExtremities(row, column, extremities, EXTREMITYSTART[cell]);
+			}
+		CONTENTS = java.util.Arrays.copyOf(contents, CONTENTSTART[M * N]);
+		EXTREMITIES = java.util.Arrays.copyOf(extremities, EXTREMITYSTART[M * N]);
+	}
+
+	/**
+	 * Lists the alignments a cell belongs to.
+	 *
+	 * @param row    The row of the cell.
+	 * @param column The column of the cell.
+	 * @param list   The flat array of the entries.
+	 * @param next   The index of list to start from.
+	 * @return The index of list following the last entry.
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	private int addContents(int row, int column, int[] list, int next) {
+		// horizontal alignments
+		int max = Math.min(N - L, column);
+		for (int j = Math.max(0, column - L + 1); j <= max; ++j)
+			next = add(list, next, toContent(toKey(HORIZONTAL, row, j), j == column || j + L - 1 == column));
+		// vertical alignments
+		max = Math.min(M - L, row);
+		for (int i = Math.max(0, row - L + 1); i <= max; ++i)
+			next = add(list, next, toContent(toKey(VERTICAL, i, column), i == row || i + L - 1 == row));
+		// primary diagonal alignments
+		max = Math.min(N - L + row - column, Math.min(M - L, row));
+		for (int i = Math.max(0, Math.max(row - L + 1, row - column)), j = i + column - row; i <= max; ++i, ++j)
+			next = add(list, next, toContent(toKey(PRIMARYDIAGONAL, i, j), i == row || i + L - 1 == row));
+		// secondary diagonal alignments
+		max = Math.min(column + row, Math.min(M - 1, row + L - 1));
+		for (int i = Math.max(row + column + L - N, Math.max(L - 1, row)), j = row + column - i; i <= max; ++i, --j)
+			next = add(list, next, toContent(toKey(SECONDARYDIAGONAL, i, j), i == row || i - L + 1 == row));
+		return next;
+	}
+
+	/**
+	 * Lists the alignments a cell bounds as an extremity.
+	 *
+	 * @param row    The row of the cell.
+	 * @param column The column of the cell.
+	 * @param list   The flat array of the entries.
+	 * @param next   The index of list to start from.
+	 * @return The index of list following the last entry.
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	private int addExtremities(int row, int column, int[] list, int next) {
+		// horizontal extremities
+		if (column + L < N)
+			next = add(list, next, toKey(HORIZONTAL, row, column + 1));
+		if (column - L >= 0)
+			next = add(list, next, toKey(HORIZONTAL, row, column - L));
+		// vertical extremities
+		if (row + L < M)
+			next = add(list, next, toKey(VERTICAL, row + 1, column));
+		if (row - L >= 0)
+			next = add(list, next, toKey(VERTICAL, row - L, column));
+		// primary diagonal extremities
+		if (row + L < M && column + L < N)
+			next = add(list, next, toKey(PRIMARYDIAGONAL, row + 1, column + 1));
+		if (row - L >= 0 && column - L >= 0)
+			next = add(list, next, toKey(PRIMARYDIAGONAL, row - L, column - L));
+		// secondary diagonal extremities
+		if (row - L >= 0 && column + L < N)
+			next = add(list, next, toKey(SECONDARYDIAGONAL, row - 1, column + 1));
+		if (row + L < M && column - L >= 0)
+			next = add(list, next, toKey(SECONDARYDIAGONAL, row + L, column - L));
+		return next;
+	}
+
+	/**
+	 * Appends an entry to a list.
+	 *
+	 * @param list  The flat array of the list.
+	 * @param next  The index of the new entry.
+	 * @param entry The new entry.
+	 * @return The index following the new entry.
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	private static int add(int[] list, int next, int entry) {
+		list[next] = entry;
+		return next + 1;
+	}
+
+	/**
+	 * Encodes an entry of {@link #CONTENTS}.
+	 *
+	 * @param key   The key of the alignment.
+	 * @param isEnd Whether the cell is the first or the last one of the
+	 *              alignment.
+	 * @return The encoded entry.
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	private static int toContent(int key, boolean isEnd) {
+		return key << 1 | (isEnd ? 1 : 0);
+	}
+
+	/**
+	 * Maps a valid alignment to an appropriate integer key in [0 ..
+	 * {@link #ALIGNMENTS} - 1].
+	 *
+	 * @param direction One of {@link #HORIZONTAL}, {@link #VERTICAL},
+	 *                  {@link #PRIMARYDIAGONAL} and {@link #SECONDARYDIAGONAL}.
+	 * @param row       The row of the top left cell of the alignment (bottom left
+	 *                  for {@link #SECONDARYDIAGONAL}).
+	 * @param column    The column of the same cell.
+	 * @throws IllegalArgumentException Unknown direction.
+	 * @return An integer key
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	private int toKey(int direction, int row, int column) {
+		switch (direction) {
+		case HORIZONTAL: // [0 .. B * M - 1]
+			return row * B + column;
+		case VERTICAL: // B * M + [0 .. N * H - 1]
+			return B * M + row * N + column;
+		case PRIMARYDIAGONAL: // B * M + N * H + [0 .. B * H - 1]
+			return B * (M + row) + N * H + column;
+		case SECONDARYDIAGONAL: // B * (M + H) + N * H + [0 .. B * H - 1]
+			return B * (2 * H + row) + N * H + column;
+		default:
+			throw new IllegalArgumentException("Unknown direction");
+		}
+	}
+
+	/** Number of rows. */
+	final int M;
+	/** Number of columns. */
+	final int N;
+	/** Number of cells of each alignment. */
+	final int L;
+	/** See the project report. */
+	final int B;
+	/** See the project report. */
+	final int H;
+	/** Number of possible alignments. */
+	final int ALIGNMENTS;
+	/**
+	 * For each cell, in row-major order, the index of its first entry in
+	 * {@link #CONTENTS}, followed by the length of {@link #CONTENTS}.
+	 */
+	final int[] CONTENTSTART;
+	/**
+	 * For each cell, the alignments it belongs to: the key of each one is
+	 * shifted left by one bit, whose value tells whether the cell is the first or
+	 * the last one of the alignment.
+	 */
+	final int[] CONTENTS;
+	/**
+	 * For each cell, in row-major order, the index of its first entry in
+	 * {@link #EXTREMITIES}, followed by the length of {@link #EXTREMITIES}.
+	 */
+	final int[] EXTREMITYSTART;
+	/** For each cell, the keys of the alignments it bounds as an extremity. */
+	final int[] EXTREMITIES;
+	/** Key space of the horizontal alignments. */
+	final private static int HORIZONTAL = 0;
+	/** Key space of the vertical alignments. */
+	final private static int VERTICAL = 1;
+	/** Key space of the alignments from top left to bottom right. */
+	final private static int PRIMARYDIAGONAL = 2;
+	/** Key space of the alignments from bottom left to top right. */
+	final private static int SECONDARYDIAGONAL = 3;
+	/** Number of directions an alignment can follow. */
+	final private static int DIRECTIONS = 4;
+	/** The geometries built so far, indexed by their parameters. */
+	final private static ConcurrentHashMap<Long, AlignmentGeometry> CACHE = new ConcurrentHashMap<>();
+
+}
@@ -0,0 +1,285 @@
+package monkey.mnk;
+
+import monkey.ai.Player;
+
+/**
+ * A <code>BitBoard</code> is a {@link Board} which does not rely on any
+ * {@link ThreatsManager}: the marks of each {@link monkey.ai.Player Player}
+ * and the free cells are also stored as bitsets, so that marking a cell only
+ * takes Θ(1) time. Wins are detected by shifting and AND-ing the marks of the
+ * line of the last action, while {@link Threat}s are counted by shifting and
+ * AND-ing whole words of the bitsets along the four directions, lazily, the
+ * first time they are queried in a certain position. Every other query, such
+ * as the relevant actions and the hash codes, is answered by {@link Board}, so
+ * that both classes play the very same moves.
+ * <p>
+ * Rows are stored one after the other, each followed by a padding column which
+ * is never marked nor free: since an alignment crossing the border of the grid
+ * would include it, no shift can wrap around a row. Some padding words before
+ * and after the grid let the shifts read outside of it.
+ *
+ * @author Stefano Volpe
+ * @version 1.0
+ * @since 1.0
+ */
+public class BitBoard extends Board {
+
+	/**
+	 * Constructs a new {@link BitBoard} given its m, n and k parameters. Takes
+	 * Θ({@link #SIZE}) time.
+	 *
+	 * @param m Number of rows.
+	 * @param n Number of columns.
+	 * @param k Number of symbols to be aligned.
+	 * @throws IllegalArgumentException m or n or k is not positive.
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	public BitBoard(int m, int n, int k) {
+		super(m, n, k, false);
+		WIDTH = N + 1;
+		PADDING = (K * (WIDTH + 1) >> 6) + 2;
+		FIRSTWORD = PADDING;
+		LASTWORD = PADDING + (M * WIDTH - 1 >> 6);
+		STEPS = new int[] { 1, WIDTH, WIDTH + 1, WIDTH - 1 };
+		final int words = LASTWORD + 1 + PADDING;
+		marks = new long[][] { new long[words], new long[words] };
+		free = new long[words];
+		for (int row = 0; row < M; ++row)
+			for (int column = 0; column < N; ++column)
+				flip(free, bit(row * N + column));
+		threats = new int[LENGTHS * Threat.SIZE * 2];
+	}
+
+	/**
+	 * {@inheritDoc} <br>
+	 * Takes Θ({@link #SIZE}) time.
+	 */
+	@Override
+	public BitBoard clone() {
+		final BitBoard copy = (BitBoard) super.clone();
+		copy.marks = new long[][] { marks[0].clone(), marks[1].clone() };
+		copy.free = free.clone();
+		copy.threats = threats.clone();
+		return copy;
+	}
+
+	/**
+	 * {@inheritDoc} <br>
+	 * Only the alignments of {@link #K}, {@link #K}<code>-1</code> and
+	 * {@link #K}<code>-2</code> cells are inspected, just like the
+	 * {@link ThreatsManager}s of a {@link Board} do. The first query after a
+	 * change counts every {@link Threat} at once: for each word of the bitsets
+	 * containing some marks of a {@link Player} and for each direction, the
+	 * alignments starting from such marks are scanned in Θ({@link #K}) time.
+	 */
+	@Override
+	protected int countThreats(int length, Threat type, Player threatener) {
+		final int l = type.hasHole() ? length + 1 : length;
+		if (l < 2 || l > K || l < K - LENGTHS + 1)
+			return 0;
+		if (!areThreatsCounted) {
+			countAllThreats();
+			areThreatsCounted = true;
+		}
+		return threats[index(K - l, type, threatener)];
+	}
+
+	/**
+	 * {@inheritDoc} <br>
+	 * Takes Θ(1) time.
+	 */
+	@Override
+	protected void addOrRemoveMark(int a, Player p) {
+		final int b = bit(a);
+		flip(marks[p.ordinal()], b);
+		flip(free, b);
+		areThreatsCounted = false;
+	}
+
+	/**
+	 * {@inheritDoc} <br>
+	 * Along each direction, the marks of p within distance {@link #K}
+	 * <code>-1</code> from the action are gathered into a single word, which is
+	 * then AND-ed with its own shifts. Takes Θ({@link #K}) time.
+	 */
+	@Override
+	protected boolean isWinningAction(int a, Player p) {
+		final long[] own = marks[p.ordinal()];
+		final int b = bit(a);
+		for (int s : STEPS) {
+			if (2 * K - 1 > Long.SIZE) {
+				// too long to fit into a word: the run is measured cell by cell
+				int length = 1;
+				for (int c = b + s; isSet(own, c); c += s)
+					++length;
+				for (int c = b - s; isSet(own, c); c -= s)
+					++length;
+				if (length >= K)
+					return true;
+				continue;
+			}
+			long line = 0;
+			for (int c = b - (K - 1) * s, last = b + (K - 1) * s; c <= last; c += s)
+				line = line << 1 | own[c >> 6] >>> c & 1;
+			for (int i = 1; i < K && line != 0; i <<= 1)
+				line &= line >>> Math.min(i, K - i);
+			if (line != 0)
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Counts every {@link Threat} of both {@link Player}s from scratch, storing
+	 * them into {@link #threats}. An alignment of l cells starting from the
+	 * mark at position x of a bitset along a step s is represented by bit x of
+	 * the word which AND-s the bitset shifted by 0, s, ..., (l - 1) s, while its
+	 * extremities are the bits x - s and x + l s of the free cells.
+	 *
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	private void countAllThreats() {
+		java.util.Arrays.fill(threats, 0);
+		final int shortest = Math.max(2, K - LENGTHS + 1);
+		for (Player p : PLAYERS) {
+			final long[] own = marks[p.ordinal()];
+			for (int w = FIRSTWORD; w <= LASTWORD; ++w) {
+				final long first = own[w];
+				if (first == 0)
+					continue;
+				for (int s : STEPS) {
+					final long before = shifted(free, w, -s);
+					// cells 1 .. i - 1: all of them marked or free, at least one
+					// free, at least two free
+					long run = first, allowed = -1l, ones = 0, twos = 0;
+					for (int i = 1, l = 2; l <= K; ++i, ++l) {
+						final long mark = shifted(own, w, i * s), empty = shifted(free, w, i * s);
+						if (l >= shortest) {
+							final long after = shifted(free, w, l * s), both = before & after,
+									one = before ^ after, none = ~(before | after), full = run & mark,
+									holed = first & mark & allowed & ones & ~twos;
+							threats[index(K - l, Threat.ONE, p)] += Long.bitCount(full & both);
+							threats[index(K - l, Threat.TWO, p)] += Long.bitCount(full & one);
+							threats[index(K - l, Threat.THREE, p)] += Long.bitCount(full & none);
+							threats[index(K - l, Threat.FOUR, p)] += Long.bitCount(holed & both);
+							threats[index(K - l, Threat.FIVE, p)] += Long.bitCount(holed & one);
+							threats[index(K - l, Threat.SIX, p)] += Long.bitCount(holed & none);
+						}
+						run &= mark;
+						allowed &= mark | empty;
+						twos |= ones & empty;
+						ones |= empty;
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Reads 64 consecutive bits of a bitset.
+	 *
+	 * @param bitset The bitset to read.
+	 * @param word   The index of the word whose bits are to be shifted.
+	 * @param offset How many positions the bits are shifted by: bit i of the
+	 *               result is bit 64 word + i + offset of the bitset.
+	 * @return The shifted word.
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	private static long shifted(long[] bitset, int word, int offset) {
+		final int w = word + (offset >> 6), r = offset & 63;
+		return r == 0 ? bitset[w] : bitset[w] >>> r | bitset[w + 1] << -r;
+	}
+
+	/**
+	 * Flips a bit of a bitset.
+	 *
+	 * @param bitset The bitset to update.
+	 * @param b      The position of the bit.
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	private static void flip(long[] bitset, int b) {
+		bitset[b >> 6] ^= 1l << b;
+	}
+
+	/**
+	 * Checks whether a bit of a bitset is set.
+	 *
+	 * @param bitset The bitset to inspect.
+	 * @param b      The position of the bit.
+	 * @return <code>true</code> just in case the bit is set.
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	private static boolean isSet(long[] bitset, int b) {
+		return (bitset[b >> 6] >>> b & 1) != 0;
+	}
+
+	/**
+	 * Maps an encoded action to the position of its bit.
+	 *
+	 * @param a The encoded action.
+	 * @return The position of the bit of its cell in the bitsets.
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	private int bit(int a) {
+		return (PADDING << 6) + a / N * WIDTH + a % N;
+	}
+
+	/**
+	 * Maps a counter of {@link #threats} to its index.
+	 *
+	 * @param shortening The difference between {@link #K} and the length of the
+	 *                   alignments, in [0 .. {@link #LENGTHS} - 1].
+	 * @param type       The {@link Threat} type.
+	 * @param p          The threatener.
+	 * @return The index of the counter.
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	private static int index(int shortening, Threat type, Player p) {
+		return (shortening * Threat.SIZE + type.ordinal()) * 2 + p.ordinal();
+	}
+
+	/** Number of bits of a row, including its padding column. */
+	final private int WIDTH;
+	/** Number of padding words before and after the grid. */
+	final private int PADDING;
+	/** Index of the first word containing some cells. */
+	final private int FIRSTWORD;
+	/** Index of the last word containing some cells. */
+	final private int LASTWORD;
+	/** Bit offsets of the four directions, in the order of {@link Board}. */
+	final private int[] STEPS;
+	/** Number of the alignment lengths whose {@link Threat}s are counted. */
+	final private static int LENGTHS = 3;
+	/** Both {@link Player}s. */
+	final private static Player[] PLAYERS = Player.values();
+	/**
+	 * The marks of each {@link Player}, indexed by ordinal. Not a final field
+	 * because of {@link #clone}.
+	 */
+	private long[][] marks;
+	/** The free cells. Not a final field because of {@link #clone}. */
+	private long[] free;
+	/**
+	 * The number of {@link Threat}s of each alignment length, type and
+	 * threatener, indexed by {@link #index}. Only meaningful if
+	 * {@link #areThreatsCounted}. Not a final field because of {@link #clone}.
+	 */
+	private int[] threats;
+	/** Whether {@link #threats} are up to date. */
+	private boolean areThreatsCounted = false;
+
+}
@@ -1,12 +1,12 @@
 package monkey.mnk;
 
 import java.util.Arrays;
-import java.util.Stack;
 import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
 import mnkgame.MNKCellState;
 import mnkgame.MNKGameState;
+import monkey.ai.MoveOrdering;
 import monkey.ai.Player;
-import monkey.util.ObjectUtils;
 
 /**
  * A <code>Board</code> describes the {@link monkey.ai.State} of a m,n,k-game.
@@ -17,7 +17,7 @@ import monkey.util.ObjectUtils;
  * @version 1.0
  * @since 1.0
  */
-public class Board implements monkey.ai.State<Board, Position> {
+public class Board implements monkey.ai.IntState<Board, Position> {
 
 	/** Number of rows. */
 	final public int M;
@@ -47,6 +47,26 @@ public class Board implements monkey.ai.State<Board, Position> {
 	 * @since 1.0
 	 */
 	public Board(int m, int n, int k) {
+		this(m, n, k, true);
+	}
+
+	/**
+	 * Constructs a new {@link Board} given its m, n and k parameters, letting
+	 * subclasses count {@link Threat}s on their own. Takes Θ({@link #SIZE}) time.
+	 *
+	 * @param m               Number of rows.
+	 * @param n               Number of columns.
+	 * @param k               Number of symbols to be aligned.
+	 * @param threatsManagers <code>false</code> just in case no
+	 *                        {@link ThreatsManager} is to be allocated: then
+	 *                        {@link #addOrRemoveMark}, {@link #countThreats} and
+	 *                        {@link #isWinningAction} must be overridden.
+	 * @throws IllegalArgumentException m or n or k is not positive.
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	protected Board(int m, int n, int k, boolean threatsManagers) {
 		// if (m <= 0)
 		// throw new IllegalArgumentException("m <= 0");
 		// if (n <= 0)
@@ -59,8 +79,17 @@ public class Board implements monkey.ai.State<Board, Position> {
 		// states
 		state = MNKGameState.OPEN;
 		cellStates = initialCellStates();
+		history = new int[SIZE];
 		// action candidates
 		actionsCandidates = generateActionCandidates();
+		positions = new Position[SIZE];
+		candidateRanks = new int[SIZE];
+		for (int i = 0; i < SIZE; ++i) {
+			positions[encodeAction(actionsCandidates[i])] = actionsCandidates[i];
+			candidateRanks[encodeAction(actionsCandidates[i])] = i;
+		}
+		frontier = new int[SIZE];
+		candidateScores = new int[SIZE];
 		// initial alpha and beta values
 		INITIALALPHAP1 = LOSSUTILITY;
 		Integer tgv = theoreticalGameValue();
@@ -69,9 +98,9 @@ public class Board implements monkey.ai.State<Board, Position> {
 		INITIALALPHAP2 = INITIALBETAP1 == VICTORYUTILITY ? LOSSUTILITY : DRAWUTILITY;
 		INITIALBETAP2 = VICTORYUTILITY;
 		// counters
-		kCounter = K > 1 ? new ThreatsManager(K, this) : null;
-		kMinusOneCounter = K > 2 ? new ThreatsManager(K - 1, this) : null;
-		kMinusTwoCounter = K > 3 ? new ThreatsManager(K - 2, this) : null;
+		kCounter = threatsManagers && K > 1 ? new ThreatsManager(K, this) : null;
+		kMinusOneCounter = threatsManagers && K > 2 ? new ThreatsManager(K - 1, this) : null;
+		kMinusTwoCounter = threatsManagers && K > 3 ? new ThreatsManager(K - 2, this) : null;
 		adjacencyCounters = new int[M][N];
 		// hashing
 		zobristHasher = new ZobristHasher(M, N);
@@ -82,14 +111,15 @@ public class Board implements monkey.ai.State<Board, Position> {
 	 * Takes Θ({@link #SIZE}) time.
 	 */
 	@Override
-	@SuppressWarnings("unchecked")
 	public Board clone() {
 		try {
 			Board copy = (Board) super.clone();
 			copy.cellStates = new MNKCellState[M][N];
 			for (int i = 0; i < cellStates.length; ++i)
 				copy.cellStates[i] = cellStates[i].clone();
-			copy.history = (Stack<Position>) history.clone();
+			copy.history = history.clone();
+			copy.frontier = frontier.clone();
+			copy.candidateScores = new int[SIZE];
 			if (kCounter != null) {
 				copy.kCounter = kCounter.clone();
 				copy.kCounter.setBoard(copy);
@@ -115,7 +145,7 @@ public class Board implements monkey.ai.State<Board, Position> {
 
 	@Override // inherit doc comment
 	public Player player() {
-		return history.size() % 2 == 0 ? Player.P1 : Player.P2;
+		return historySize % 2 == 0 ? Player.P1 : Player.P2;
 	}
 
 	@Override // inherit doc comment
@@ -127,9 +157,8 @@ public class Board implements monkey.ai.State<Board, Position> {
 
 	/**
 	 * {@inheritDoc} <br>
-	 * Takes Θ(1) time in the best and average cases, but Θ({@link SIZE}} in the
-	 * worst case. The act of instantiating an iterator and bringing it to the end
-	 * of the sequence always takes Θ({@link SIZE}) time in total.
+	 * Takes Θ(1) time. The act of instantiating an iterator and bringing it to the
+	 * end of the sequence takes time linear in the number of relevant actions.
 	 */
 	@Override
 	public Iterator<Position> actions() {
@@ -144,23 +173,33 @@ public class Board implements monkey.ai.State<Board, Position> {
 	public Board result(Position a) {
 		// if (a == null)
 		// throw new IllegalArgumentException("Null moves are invalid in this game.");
-		// if (state != MNKGameState.OPEN)
-		// throw new IllegalCallerException("The game is already over.");
 		// if (a.ROWSNUMBER != M || a.COLUMNSNUMBER != N)
 		// throw new IllegalArgumentException("Referring to a board of different
 		// extents.");
-		final int row = a.getRow(), column = a.getColumn();
-		// if (cellStates[row][column] != MNKCellState.FREE)
-		// throw new IllegalArgumentException("(" + row + ", " + column + ") is not
-		// free.");
+		return result(encodeAction(a));
+	}
+
+	/**
+	 * {@inheritDoc} <br>
+	 * Takes Θ({@link #K}) time.
+	 */
+	@Override
+	public Board result(int a) {
+		// if (state != MNKGameState.OPEN)
+		// throw new IllegalCallerException("The game is already over.");
+		final Position position = positions[a];
+		// if (cellStates[position.getRow()][position.getColumn()] != MNKCellState.FREE)
+		// throw new IllegalArgumentException(position + " is not free.");
 		final Player p = player();
-		cellStates[row][column] = p == Player.P1 ? MNKCellState.P1 : MNKCellState.P2;
-		updateThreatsManagers(a);
-		if (countThreatsWithoutHole(K, p) > 0)
+		cellStates[position.getRow()][position.getColumn()] = p == Player.P1 ? MNKCellState.P1 : MNKCellState.P2;
+		addOrRemoveMark(a, p);
+		if (isWinningAction(a, p))
 			state = p == Player.P1 ? MNKGameState.WINP1 : MNKGameState.WINP2;
-		updateAdjacencyCounters(a, 1);
-		history.push(a);
-		if (state == MNKGameState.OPEN && history.size() == SIZE)
+		if (getAdjacencyCounter(position) != 0)
+			removeFromFrontier(a);
+		updateAdjacencyCounters(position, 1);
+		history[historySize++] = a;
+		if (state == MNKGameState.OPEN && historySize == SIZE)
 			state = MNKGameState.DRAW;
 		zobristHasher.addOrRemove(a, p);
 		return this;
@@ -172,17 +211,39 @@ public class Board implements monkey.ai.State<Board, Position> {
 	 */
 	@Override
 	public Board revert() {
-		// try {
-		final Position a = history.pop();
-		final int row = a.getRow(), column = a.getColumn();
-		cellStates[row][column] = MNKCellState.FREE;
-		updateThreatsManagers(a);
-		updateAdjacencyCounters(a, -1);
+		// if (historySize == 0)
+		// throw new IllegalCallerException("No previous action to revert.");
+		final int a = history[--historySize];
+		final Position position = positions[a];
+		cellStates[position.getRow()][position.getColumn()] = MNKCellState.FREE;
+		addOrRemoveMark(a, player());
+		updateAdjacencyCounters(position, -1);
+		if (getAdjacencyCounter(position) != 0)
+			addToFrontier(a);
 		state = MNKGameState.OPEN;
 		zobristHasher.addOrRemove(a, player());
-		// } catch (java.util.EmptyStackException e) {
-		// throw new IllegalCallerException("No previous action to revert.");
-		// }
+		return this;
+	}
+
+	/**
+	 * {@inheritDoc} <br>
+	 * The mark is the number of actions played so far.
+	 */
+	@Override
+	public int mark() {
+		return historySize;
+	}
+
+	/**
+	 * {@inheritDoc} <br>
+	 * Takes Θ({@link #K}) time for each reverted action.
+	 */
+	@Override
+	public Board rewind(int mark) {
+		// if (mark < 0 || mark > historySize)
+		// throw new IllegalArgumentException("mark does not refer to an ancestor.");
+		while (historySize > mark)
+			revert();
 		return this;
 	}
 
@@ -209,12 +270,12 @@ public class Board implements monkey.ai.State<Board, Position> {
 
 	@Override // inherit doc comment
 	public int initialAlpha(Player p) {
-		return history.empty() ? p == Player.P1 ? INITIALALPHAP1 : INITIALALPHAP2 : LOSSUTILITY;
+		return historySize == 0 ? p == Player.P1 ? INITIALALPHAP1 : INITIALALPHAP2 : LOSSUTILITY;
 	}
 
 	@Override // inherit doc comment
 	public int initialBeta(Player p) {
-		return history.empty() ? p == Player.P1 ? INITIALBETAP1 : INITIALBETAP2 : VICTORYUTILITY;
+		return historySize == 0 ? p == Player.P1 ? INITIALBETAP1 : INITIALBETAP2 : VICTORYUTILITY;
 	}
 
 	/**
@@ -250,7 +311,7 @@ public class Board implements monkey.ai.State<Board, Position> {
 
 	@Override // inherit doc comment
 	public int overestimatedHeight() {
-		return SIZE - history.size();
+		return SIZE - historySize;
 	}
 
 	/**
@@ -295,6 +356,32 @@ public class Board implements monkey.ai.State<Board, Position> {
 		return zobristHasher.hashCode();
 	}
 
+	/**
+	 * {@inheritDoc} <br>
+	 * Zobrist hashing is used (transpositions and symmetric {@link Board}s will
+	 * return the same hash code). Takes Θ(1) time.
+	 */
+	@Override
+	public long longHashCode() {
+		return zobristHasher.longHashCode();
+	}
+
+	/**
+	 * Returns the value {@link #longHashCode} would return after a certain legal
+	 * action of the {@link Player} who has the move, without performing it. Takes
+	 * Θ(1) time.
+	 *
+	 * @param a The encoded action.
+	 * @throws IndexOutOfBoundsException a is not a valid encoding.
+	 * @return The hash code of the result of a.
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	public long resultHashCode(int a) {
+		return zobristHasher.longHashCodeAfter(a, player());
+	}
+
 	/**
 	 * A getter for the cells of the grid.
 	 *
@@ -352,31 +439,262 @@ public class Board implements monkey.ai.State<Board, Position> {
 		return cellStates[row][column];
 	}
 
+	@Override // inherit doc comment
+	public Position convertToHashedAction(Position a) {
+		return zobristHasher.getSymmetryUsed().apply(a);
+	}
+
+	@Override // inherit doc comment
+	public Position revertFromHashedAction(Position a) {
+		return zobristHasher.getSymmetryUsed().revert(a);
+	}
+
+	/**
+	 * {@inheritDoc} <br>
+	 * The row-major index of the cell is used. Takes Θ(1) time.
+	 */
+	@Override
+	public int encodeAction(Position a) {
+		return a.getRow() * N + a.getColumn();
+	}
+
+	/**
+	 * {@inheritDoc} <br>
+	 * No new {@link Position} is allocated. Takes Θ(1) time.
+	 */
+	@Override
+	public Position decodeAction(int i) {
+		return positions[i];
+	}
+
+	/**
+	 * {@inheritDoc} <br>
+	 * Equals {@link #SIZE}.
+	 */
+	@Override
+	public int maxActions() {
+		return SIZE;
+	}
+
+	/**
+	 * {@inheritDoc} <br>
+	 * Takes Θ(1) time.
+	 */
+	@Override
+	public boolean isLegal(int a) {
+		final Position p = positions[a];
+		return cellStates[p.getRow()][p.getColumn()] == MNKCellState.FREE;
+	}
+
 	/**
 	 * {@inheritDoc} <br>
-	 * See the project report. Takes Θ(1) (sic).
+	 * Visits the same sequence of {@link #actions()} without instantiating any
+	 * iterator. Takes time linear in the number of relevant actions.
 	 */
 	@Override
-	public int ttSuggestedCapacity() {
-		final int MAXENTRIES = Integer.MAX_VALUE;
-		int sum = 1, lastTerm = 1;
-		for (int p = 1; p < SIZE; ++p) {
-			lastTerm *= (SIZE - p + 1) * (p % 2 == 0 ? p / 2 : 1);
-			sum += lastTerm;
-			if (sum < 0 || sum > MAXENTRIES)
-				return MAXENTRIES;
+	public int actions(int[] buffer) {
+		// if (buffer.length < SIZE)
+		// throw new IndexOutOfBoundsException("buffer is too short.");
+		if (terminalTest())
+			return 0;
+		if (historySize == 0) {
+			buffer[0] = encodeAction(actionsCandidates[0]);
+			return 1;
 		}
-		return sum;
+		for (int i = 0; i < frontierSize; ++i)
+			buffer[i] = encodeAction(actionsCandidates[frontier[i]]);
+		return frontierSize;
 	}
 
-	@Override // inherit doc comment
-	public Position convertToHashedAction(Position a) {
-		return zobristHasher.getSymmetryUsed().apply(a);
+	/**
+	 * {@inheritDoc} <br>
+	 * Each relevant action is scored by {@link #candidateScore}, and ties are
+	 * broken by the order of {@link #actions()}. Takes Θ({@link #K}) time per
+	 * relevant action, plus Θ(width) time per relevant action for the selection.
+	 */
+	@Override
+	public int candidateActions(int[] buffer, int width) {
+		// if (width <= 0)
+		// throw new IllegalArgumentException("width is not strictly positive.");
+		final int count = actions(buffer);
+		if (count <= width)
+			return count;
+		final MNKCellState own = player() == Player.P1 ? MNKCellState.P1 : MNKCellState.P2;
+		for (int i = 0; i < count; ++i)
+			candidateScores[i] = candidateScore(buffer[i] / N, buffer[i] % N, own);
+		for (int i = 0; i < width; ++i)
+			MoveOrdering.selectNext(buffer, candidateScores, i, count);
+		return width;
 	}
 
-	@Override // inherit doc comment
-	public Position revertFromHashedAction(Position a) {
-		return zobristHasher.getSymmetryUsed().revert(a);
+	/**
+	 * Checks whether a certain {@link Player} could win the game with a single
+	 * move if it were their turn. Instead of inspecting the cells, the
+	 * {@link ThreatsManager}s are queried for a {@link #K}<code>-1</code>-threat
+	 * with a hole or with a free extremity. Takes Θ(1) time. Since no such threat
+	 * is tracked when {@link #K} is less than <code>3</code>, the free cells are
+	 * inspected instead in that case, in Θ({@link #SIZE}) time.
+	 *
+	 * @param p The {@link Player} to consider.
+	 * @throws NullPointerException p is <code>null</code>.
+	 * @return <code>true</code> just in case {@link #winningActions} would find at
+	 *         least one action.
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	public boolean hasWinningActions(Player p) {
+		if (K < 3) {
+			if (terminalTest())
+				return false;
+			final MNKCellState own = p == Player.P1 ? MNKCellState.P1 : MNKCellState.P2;
+			for (int i = 0; i < M; ++i)
+				for (int j = 0; j < N; ++j)
+					if (cellStates[i][j] == MNKCellState.FREE && completesAlignment(i, j, own))
+						return true;
+			return false;
+		}
+		return countThreats(K - 1, Threat.ONE, p) + countThreats(K - 1, Threat.TWO, p)
+				+ countThreats(K - 1, Threat.FOUR, p) + countThreats(K - 1, Threat.FIVE, p)
+				+ countThreats(K - 1, Threat.SIX, p) > 0;
+	}
+
+	/**
+	 * Writes the relevant encoded actions which would let a certain
+	 * {@link Player} win the game at once if it were their turn, in the same order
+	 * of {@link #actions()}. Takes Θ(1) time if {@link #hasWinningActions} is
+	 * <code>false</code>, and Θ({@link #K}) time per relevant action otherwise.
+	 *
+	 * @param buffer Where to write the encoded actions. Its length must not be
+	 *               less than {@link #SIZE}.
+	 * @param p      The {@link Player} to consider.
+	 * @throws NullPointerException p or buffer are <code>null</code>.
+	 * @return The number of actions written.
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	public int winningActions(int[] buffer, Player p) {
+		if (terminalTest() || !hasWinningActions(p))
+			return 0;
+		final int count = actions(buffer);
+		final MNKCellState own = p == Player.P1 ? MNKCellState.P1 : MNKCellState.P2;
+		int res = 0;
+		for (int i = 0; i < count; ++i)
+			if (completesAlignment(buffer[i] / N, buffer[i] % N, own))
+				buffer[res++] = buffer[i];
+		return res;
+	}
+
+	/**
+	 * Checks whether marking a certain free cell would give a {@link Player} an
+	 * alignment of {@link #K} cells but one which can still be completed, i.e.
+	 * whether it would let them threaten to win with their next move. Takes
+	 * Θ({@link #K}) time.
+	 *
+	 * @see #threatActions
+	 * @param a     The encoded action to test.
+	 * @param p     The {@link Player} to consider.
+	 * @param marks The minimum number of marks of p among the other cells of the
+	 *              alignment.
+	 * @throws NullPointerException      p is <code>null</code>.
+	 * @throws IndexOutOfBoundsException a is not a valid encoding.
+	 * @return <code>true</code> just in case a free alignment of {@link #K} cells
+	 *         containing a already features at least marks marks of p.
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	public boolean isThreatAction(int a, Player p, int marks) {
+		final int row = a / N, column = a % N;
+		final MNKCellState own = p == Player.P1 ? MNKCellState.P1 : MNKCellState.P2;
+		for (int d = 0; d < ROWSTEPS.length; ++d) {
+			int first = 0, last = 0;
+			while (first > 1 - K && isInside(row + (first - 1) * ROWSTEPS[d], column + (first - 1) * COLUMNSTEPS[d]))
+				--first;
+			while (last < K - 1 && isInside(row + (last + 1) * ROWSTEPS[d], column + (last + 1) * COLUMNSTEPS[d]))
+				++last;
+			// sliding window of K cells over [first, last]
+			int ownMarks = 0, otherMarks = 0;
+			for (int t = first; t <= last; ++t) {
+				MNKCellState cell = cellStates[row + t * ROWSTEPS[d]][column + t * COLUMNSTEPS[d]];
+				if (cell == own)
+					++ownMarks;
+				else if (cell != MNKCellState.FREE)
+					++otherMarks;
+				if (t - first >= K) {
+					cell = cellStates[row + (t - K) * ROWSTEPS[d]][column + (t - K) * COLUMNSTEPS[d]];
+					if (cell == own)
+						--ownMarks;
+					else if (cell != MNKCellState.FREE)
+						--otherMarks;
+				}
+				if (t - first >= K - 1 && t >= 0 && otherMarks == 0 && ownMarks >= marks)
+					return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Writes the relevant encoded actions accepted by {@link #isThreatAction}, in
+	 * the same order of {@link #actions()}. Takes Θ({@link #K}) time per relevant
+	 * action.
+	 *
+	 * @param buffer Where to write the encoded actions. Its length must not be
+	 *               less than {@link #SIZE}.
+	 * @param p      The {@link Player} to consider.
+	 * @param marks  See {@link #isThreatAction}.
+	 * @throws NullPointerException p or buffer are <code>null</code>.
+	 * @return The number of actions written.
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	public int threatActions(int[] buffer, Player p, int marks) {
+		final int count = actions(buffer);
+		int res = 0;
+		for (int i = 0; i < count; ++i)
+			if (isThreatAction(buffer[i], p, marks))
+				buffer[res++] = buffer[i];
+		return res;
+	}
+
+	/**
+	 * {@inheritDoc} <br>
+	 * Takes Θ(1) time.
+	 */
+	@Override
+	public int lastAction() {
+		return historySize == 0 ? -1 : history[historySize - 1];
+	}
+
+	/**
+	 * {@inheritDoc} <br>
+	 * Takes Θ(number of actions applied) time.
+	 */
+	@Override
+	public int history(int[] buffer) {
+		System.arraycopy(history, 0, buffer, 0, historySize);
+		return historySize;
+	}
+
+	/**
+	 * {@inheritDoc} <br>
+	 * No new {@link Position} is allocated. Takes Θ(1) time.
+	 */
+	@Override
+	public int convertToHashedAction(int a) {
+		return zobristHasher.getSymmetryUsed().apply(a, M, N);
+	}
+
+	/**
+	 * {@inheritDoc} <br>
+	 * No new {@link Position} is allocated. Takes Θ(1) time.
+	 */
+	@Override
+	public int revertFromHashedAction(int a) {
+		return zobristHasher.getSymmetryUsed().revert(a, M, N);
 	}
 
 	/**
@@ -396,7 +714,8 @@ public class Board implements monkey.ai.State<Board, Position> {
 
 	/**
 	 * Computes the theoretical game value of the current configuration looking it
-	 * up in a small knowledge base. See J.W.H.M. Uiterwijk, H.J. van den Herik,
+	 * up among the ones recorded by {@link #recordGameValue} first, then in a
+	 * small knowledge base. See J.W.H.M. Uiterwijk, H.J. van den Herik,
 	 * <i>The advantage of the initiative</i>, Information Sciences, Volume 122,
 	 * Issue 1, 2000, p. 46f.
 	 *
@@ -406,6 +725,9 @@ public class Board implements monkey.ai.State<Board, Position> {
 	 * @since 1.0
 	 */
 	protected Integer theoreticalGameValue() {
+		final Integer solved = SOLVEDVALUES.get(configurationKey(M, N, K));
+		if (solved != null)
+			return solved;
 		if (K == 1)
 			return VICTORYUTILITY;
 		if (K == 2)
@@ -429,6 +751,42 @@ public class Board implements monkey.ai.State<Board, Position> {
 		return null;
 	}
 
+	/**
+	 * Records the theoretical game value of a configuration, e.g. one solved by
+	 * {@link ProofNumberSearch#gameValue}, so that every {@link Board} of such
+	 * configuration constructed afterwards relies on it. Safe to be called by
+	 * different threads.
+	 *
+	 * @param m     Number of rows.
+	 * @param n     Number of columns.
+	 * @param k     Number of symbols to be aligned.
+	 * @param value Either {@link #VICTORYUTILITY} or {@link #DRAWUTILITY}, from
+	 *              the point of view of the first {@link Player}.
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	public static void recordGameValue(int m, int n, int k, int value) {
+		// if (value != VICTORYUTILITY && value != DRAWUTILITY)
+		// throw new IllegalArgumentException("value is not a game value.");
+		SOLVEDVALUES.put(configurationKey(m, n, k), value);
+	}
+
+	/**
+	 * Maps a configuration to its key in {@link #SOLVEDVALUES}.
+	 *
+	 * @param m Number of rows.
+	 * @param n Number of columns.
+	 * @param k Number of symbols to be aligned.
+	 * @return The key of the configuration.
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	private static long configurationKey(int m, int n, int k) {
+		return (long) m << 42 | (long) n << 21 | k;
+	}
+
 	/**
 	 * Generates a sequence containing all of the {@link Position}s of this
 	 * <code>Board</code>, sorted by decreasing heuristic value. <i>Escargot</i>
@@ -475,6 +833,134 @@ public class Board implements monkey.ai.State<Board, Position> {
 		return res;
 	}
 
+	/**
+	 * Checks whether marking a certain free cell would give a {@link Player} at
+	 * least {@link #K} consecutive cells along any direction. Takes Θ({@link #K})
+	 * time.
+	 *
+	 * @param row    The row of the cell.
+	 * @param column The column of the cell.
+	 * @param own    The state of the cells marked by the {@link Player}.
+	 * @return <code>true</code> just in case the cell would complete an
+	 *         alignment.
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	private boolean completesAlignment(int row, int column, MNKCellState own) {
+		for (int d = 0; d < ROWSTEPS.length; ++d) {
+			int length = 1;
+			for (int sign = -1; sign <= 1; sign += 2)
+				for (int i = row + sign * ROWSTEPS[d], j = column + sign * COLUMNSTEPS[d]; isInside(i, j)
+						&& cellStates[i][j] == own; i += sign * ROWSTEPS[d], j += sign * COLUMNSTEPS[d])
+					++length;
+			if (length >= K)
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Checks whether some coordinates lie within the grid.
+	 *
+	 * @param row    The row to check.
+	 * @param column The column to check.
+	 * @return <code>true</code> just in case the cell exists.
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	private boolean isInside(int row, int column) {
+		return row >= 0 && row < M && column >= 0 && column < N;
+	}
+
+	/**
+	 * Estimates how relevant a free cell is to the threats of both
+	 * {@link monkey.ai.Player Player}s. Along each of the four directions, the
+	 * cells within distance {@link #K}<code>-1</code> which a {@link Player}
+	 * could still use together with the given one are inspected: if there are
+	 * enough of them for an alignment, the marks of that {@link Player} among them
+	 * add an exponential contribution. Own marks count twice as much as the
+	 * opponent's, so that completing a threat comes before blocking one. Takes
+	 * Θ({@link #K}) time.
+	 *
+	 * @param row    The row of the cell.
+	 * @param column The column of the cell.
+	 * @param own    The state of the cells marked by the {@link Player} who has
+	 *               the move.
+	 * @return A non-negative score: the higher, the more relevant the cell.
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	private int candidateScore(int row, int column, MNKCellState own) {
+		int res = 0;
+		for (int d = 0; d < ROWSTEPS.length; ++d) {
+			int ownMarks = 0, ownRoom = 1, otherMarks = 0, otherRoom = 1;
+			for (int sign = -1; sign <= 1; sign += 2) {
+				boolean ownOpen = true, otherOpen = true;
+				for (int step = 1; step < K && (ownOpen || otherOpen); ++step) {
+					final int i = row + sign * step * ROWSTEPS[d], j = column + sign * step * COLUMNSTEPS[d];
+					if (i < 0 || i >= M || j < 0 || j >= N)
+						break;
+					final MNKCellState cell = cellStates[i][j];
+					if (cell == MNKCellState.FREE) {
+						if (ownOpen)
+							++ownRoom;
+						if (otherOpen)
+							++otherRoom;
+					} else if (cell == own) {
+						if (ownOpen) {
+							++ownRoom;
+							++ownMarks;
+						}
+						otherOpen = false;
+					} else {
+						if (otherOpen) {
+							++otherRoom;
+							++otherMarks;
+						}
+						ownOpen = false;
+					}
+				}
+			}
+			if (ownRoom >= K)
+				res += 2 << Math.min(2 * ownMarks, MAXSCORESHIFT);
+			if (otherRoom >= K)
+				res += 1 << Math.min(2 * otherMarks, MAXSCORESHIFT);
+		}
+		return res;
+	}
+
+	/**
+	 * Records that a cell has just been marked or freed, after its state has
+	 * already been updated. Takes Θ({@link #K}) time.
+	 *
+	 * @param a The encoded action marking or freeing the cell.
+	 * @param p The {@link Player} whose mark was added or removed.
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	protected void addOrRemoveMark(int a, Player p) {
+		updateThreatsManagers(positions[a]);
+	}
+
+	/**
+	 * Checks whether the action just played gave its {@link Player} an alignment
+	 * of {@link #K} cells. Takes Θ(1) time.
+	 *
+	 * @param a The encoded action just played.
+	 * @param p The {@link Player} who played it.
+	 * @return <code>true</code> just in case p won the game.
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	protected boolean isWinningAction(int a, Player p) {
+		return countThreatsWithoutHole(K, p) > 0;
+	}
+
 	/**
 	 * Updates all of the non-<code>null</code> {@link ThreatsManager}s of this
 	 * {@link Board}. Takes Θ({@link #K}) time.
@@ -561,7 +1047,7 @@ public class Board implements monkey.ai.State<Board, Position> {
 
 	/**
 	 * Updates the value of the adjacency counters neighbours of the desired
-	 * {@link Position}.
+	 * {@link Position}, together with the {@link #frontier}.
 	 *
 	 * @param p      The {@link Position} whose counter is to be updated. If it is
 	 *               <code>null</code>, nothing happens.
@@ -576,19 +1062,60 @@ public class Board implements monkey.ai.State<Board, Position> {
 		if (p != null) {
 			// if (p.ROWSNUMBER != M || p.COLUMNSNUMBER != N)
 			// throw new IllegalArgumentException("p is not meant for this grid.");
-			final int row = p.getRow(), column = p.getColumn(), maxRow = objectUtils.min(row + 1, M - 1),
-					maxColumn = objectUtils.min(column + 1, N - 1);
-			for (int i = objectUtils.max(0, row - 1); i <= maxRow; ++i)
-				for (int j = objectUtils.max(0, column - 1); j <= maxColumn; ++j)
+			final int row = p.getRow(), column = p.getColumn(), maxRow = Math.min(row + 1, M - 1),
+					maxColumn = Math.min(column + 1, N - 1);
+			for (int i = Math.max(0, row - 1); i <= maxRow; ++i)
+				for (int j = Math.max(0, column - 1); j <= maxColumn; ++j)
 					if (i != row || j != column) {
 						// if (adjacencyCounters[i][j] + offset < 0)
 						// throw new IllegalArgumentException("offset would make (" + i + ", " + j + ")
 						// counter negative.");
+						final int oldCounter = adjacencyCounters[i][j];
 						adjacencyCounters[i][j] += offset;
+						if (cellStates[i][j] == MNKCellState.FREE)
+							if (oldCounter == 0)
+								addToFrontier(i * N + j);
+							else if (adjacencyCounters[i][j] == 0)
+								removeFromFrontier(i * N + j);
 					}
 		}
 	}
 
+	/**
+	 * Inserts a cell into the {@link #frontier}, keeping it sorted by decreasing
+	 * heuristic value. Takes time linear in the size of the frontier.
+	 *
+	 * @param cell The row-major index of a cell which is not part of the
+	 *             frontier.
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	private void addToFrontier(int cell) {
+		final int rank = candidateRanks[cell];
+		final int index = -Arrays.binarySearch(frontier, 0, frontierSize, rank) - 1;
+		// if (index < 0)
+		// throw new IllegalArgumentException("cell is already part of the frontier.");
+		System.arraycopy(frontier, index, frontier, index + 1, frontierSize++ - index);
+		frontier[index] = rank;
+	}
+
+	/**
+	 * Removes a cell from the {@link #frontier}, keeping it sorted by decreasing
+	 * heuristic value. Takes time linear in the size of the frontier.
+	 *
+	 * @param cell The row-major index of a cell which is part of the frontier.
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	private void removeFromFrontier(int cell) {
+		final int index = Arrays.binarySearch(frontier, 0, frontierSize, candidateRanks[cell]);
+		// if (index < 0)
+		// throw new IllegalArgumentException("cell is not part of the frontier.");
+		System.arraycopy(frontier, index + 1, frontier, index, --frontierSize - index);
+	}
+
 	/**
 	 * An <code>Iterator</code> class for {@link Board} which iterates by decreasing
 	 * heuristic values. It does not implement <code>remove</code>.
@@ -600,22 +1127,19 @@ public class Board implements monkey.ai.State<Board, Position> {
 	private class BoardIterator implements Iterator<Position> {
 
 		/**
-		 * Constructs a new {@link #BoardIterator}. Takes Θ(1) time in the best and
-		 * average cases, but Θ(@link Board#SIZE} in the worst case.
+		 * Constructs a new {@link #BoardIterator}. Takes Θ(1) time.
 		 *
 		 * @author Stefano Volpe
 		 * @version 1.0
 		 * @since 1.0
 		 */
 		public BoardIterator() {
-			if (!history.empty()) {
-				if (terminalTest())
-					index = actionsCandidates.length;
-				else
-					while (index < actionsCandidates.length && (getCellState(actionsCandidates[index]) != MNKCellState.FREE
-							|| getAdjacencyCounter(actionsCandidates[index]) == 0))
-						++index;
-			}
+			if (historySize == 0)
+				end = 1;
+			else if (terminalTest())
+				end = 0;
+			else
+				end = frontierSize;
 		}
 
 		/**
@@ -630,13 +1154,14 @@ public class Board implements monkey.ai.State<Board, Position> {
 		 */
 		@Override
 		public boolean hasNext() {
-			return index < actionsCandidates.length;
+			return index < end;
 		}
 
 		/**
 		 * Returns the next element in the iteration. <br>
-		 * Takes Θ(1) time in the best and average cases, but Θ(@link Board#SIZE} in the
-		 * worst case.
+		 * Takes Θ(1) time. The {@link Board} must not have been modified since the
+		 * construction of this iterator, unless each modification has already been
+		 * reverted.
 		 *
 		 * @return The next element in the iteration.
 		 * @throws NoSuchElementException if the iteration has no more elements.
@@ -648,38 +1173,25 @@ public class Board implements monkey.ai.State<Board, Position> {
 		public Position next() {
 			// if (!hasNext())
 			// throw new java.util.NoSuchElementException("No next element.");
-			final int oldIndex = index;
-			if (history.empty())
-				index = actionsCandidates.length;
-			else
-				do
-					++index;
-				while (index < actionsCandidates.length && (getCellState(actionsCandidates[index]) != MNKCellState.FREE
-						|| getAdjacencyCounter(actionsCandidates[index]) == 0));
-			return actionsCandidates[oldIndex];
+			return actionsCandidates[historySize == 0 ? index++ : frontier[index++]];
 		}
 
-		/** The index of the next element, or the length of the table if it is over. */
+		/** The number of elements to be returned. */
+		final private int end;
+		/** The index of the next element. */
 		private int index = 0;
 
 	}
 
 	/**
 	 * {@inheritDoc} <br>
-	 * Takes Θ(1) time in the best case, but Θ({@link #SIZE}) time in the average
-	 * and worst cases.
+	 * Takes Θ(1) time.
 	 */
 	@Override
 	public int countRelevantActions() {
-		int counter;
-		final Iterator<Position> iterator = actions();
-		for (counter = 0; iterator.hasNext(); ++counter)
-			iterator.next();
-		return counter;
+		return historySize == 0 ? 1 : terminalTest() ? 0 : frontierSize;
 	}
 
-	/** Utilities instance for generic objects. */
-	final private ObjectUtils objectUtils = new ObjectUtils();
 	/** A P1 alpha value valid after a generic first move of theirs. */
 	final private int INITIALALPHAP1;
 	/** A P1 beta value valid after a generic first move of theirs. */
@@ -693,8 +1205,14 @@ public class Board implements monkey.ai.State<Board, Position> {
 	 * because of {@link #clone}.
 	 */
 	private MNKCellState[][] cellStates;
-	/** The moves played so far. Not a final field because of {@link #clone}. */
-	private Stack<Position> history = new Stack<Position>();
+	/**
+	 * The moves played so far, encoded by {@link #encodeAction}. Only the first
+	 * {@link #historySize} elements are meaningful. Not a final field because of
+	 * {@link #clone}.
+	 */
+	private int[] history;
+	/** The number of moves played so far. */
+	private int historySize = 0;
 	/** The current game state. */
 	private MNKGameState state;
 	/**
@@ -702,6 +1220,46 @@ public class Board implements monkey.ai.State<Board, Position> {
 	 * sorted by decreasing heuristic value.
 	 */
 	final private Position[] actionsCandidates;
+	/**
+	 * Stores the same {@link Position}s of {@link #actionsCandidates}, indexed by
+	 * {@link #encodeAction}.
+	 */
+	final private Position[] positions;
+	/**
+	 * The index in {@link #actionsCandidates} of each cell, indexed by
+	 * {@link #encodeAction}. Lower ranks have higher heuristic values.
+	 */
+	final private int[] candidateRanks;
+	/**
+	 * The ranks (see {@link #candidateRanks}) of the free cells with at least an
+	 * adjacent occupied cell, in increasing order. Only the first
+	 * {@link #frontierSize} elements are meaningful. Not a final field because of
+	 * {@link #clone}.
+	 */
+	private int[] frontier;
+	/** The number of cells in the {@link #frontier}. */
+	private int frontierSize = 0;
+	/**
+	 * Scratch buffer of {@link #candidateActions}. Not a final field because of
+	 * {@link #clone}.
+	 */
+	private int[] candidateScores;
+	/** Row offsets of the four directions inspected by {@link #candidateScore}. */
+	final private static int[] ROWSTEPS = { 0, 1, 1, 1 };
+	/**
+	 * Column offsets of the four directions inspected by {@link #candidateScore}.
+	 */
+	final private static int[] COLUMNSTEPS = { 1, 0, 1, -1 };
+	/**
+	 * Maximum exponent of the contributions of {@link #candidateScore}, so that
+	 * their sum cannot overflow.
+	 */
+	final private static int MAXSCORESHIFT = 26;
+	/**
+	 * Theoretical game values recorded by {@link #recordGameValue}, indexed by
+	 * {@link #configurationKey}.
+	 */
+	final private static ConcurrentHashMap<Long, Integer> SOLVEDVALUES = new ConcurrentHashMap<>();
 	/**
 	 * Counters for both no-hole {@link #K}-threats and
 	 * {@link #K}<code>-1</code>-threats with a hole. Not a final field because of
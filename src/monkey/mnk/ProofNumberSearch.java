@@ -0,0 +1,472 @@
+package monkey.mnk;
+
+import monkey.ai.Player;
+import monkey.ai.Solver;
+
+/**
+ * A <code>ProofNumberSearch</code> is a {@link Solver} for m,n,k-games based on
+ * depth-first proof-number search (df-pn). The attacker tries to prove a
+ * victory, while the defender tries to disprove it: the proof number of a
+ * position is the minimum number of leaves to be proved for the attacker to
+ * win, and its disproof number is the same for the defender. Each call expands
+ * the most proving position under the thresholds of its parent, so that the
+ * search is guided by the shape of the tree instead of its depth. See A.
+ * Nagai, <i>Df-pn Algorithm for Searching AND/OR Trees and Its
+ * Applications</i>, PhD thesis, University of Tokyo, 2002.
+ * <p>
+ * Proof and disproof numbers are stored in a bounded transposition table
+ * indexed by the symmetry-canonical hash codes of the {@link Board}, so that
+ * symmetric positions are solved only once. No m,n,k-game can repeat a
+ * position, hence the graph history interaction problem does not arise.
+ * <p>
+ * Used as a {@link Solver}, it is a mate-finder: the attacker only plays
+ * fours and threes, as {@link ThreatSpaceSearch} does, and the defender only
+ * replies with relevant moves. {@link #gameValue} solves a position exactly
+ * instead, trying every legal move of both {@link Player}s, and is meant for
+ * small configurations.
+ *
+ * @author Stefano Volpe
+ * @version 1.0
+ * @since 1.0
+ */
+public class ProofNumberSearch implements Solver<Board, Position> {
+
+	/**
+	 * Constructs a new {@link ProofNumberSearch} given its node budget and the
+	 * memory budget of its transposition table.
+	 *
+	 * @param budget    The maximum number of positions expanded by each call to
+	 *                  {@link #solve} or {@link #gameValue}.
+	 * @param megabytes The memory budget of the transposition table in megabytes.
+	 *                  The number of slots is rounded down to a power of 2.
+	 * @throws IllegalArgumentException budget or megabytes are not strictly
+	 *                                  positive.
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	public ProofNumberSearch(long budget, int megabytes) {
+		if (budget <= 0 || megabytes <= 0)
+			throw new IllegalArgumentException("budget or megabytes are not strictly positive.");
+		BUDGET = budget;
+		final int slots = Integer.highestOneBit((int) Math.min(1 << 30, Math.max(2, ((long) megabytes << 20) / SLOTBYTES)));
+		MASK = (slots >> 1) - 1;
+		keys = new long[slots];
+		proofs = new int[slots];
+		disproofs = new int[slots];
+		works = new long[slots];
+	}
+
+	/**
+	 * {@inheritDoc} <br>
+	 * Only fours and threes of the attacker are tried, so that a failure does not
+	 * mean that the position is not a victory.
+	 */
+	@Override
+	public int solve(Board b, long deadline) {
+		// if (b.terminalTest())
+		// throw new IllegalArgumentException("b is a terminal state.");
+		final int[] moves = buffer(b, 0);
+		if (b.winningActions(moves, b.player()) > 0)
+			return moves[0];
+		return prove(b, b.player(), false, deadline) ? firstMove : NOMOVE;
+	}
+
+	/**
+	 * Solves a non-terminal position exactly: a victory of the {@link Player} who
+	 * has the move is looked for first, then a victory of the opponent. Every
+	 * legal move of both {@link Player}s is tried.
+	 *
+	 * @param b        The {@link Board} to solve, which is left as it was found.
+	 * @param deadline The time, as returned by {@link System#currentTimeMillis},
+	 *                 after which the search has to be abandoned.
+	 * @throws NullPointerException b is <code>null</code>.
+	 * @return {@link Board#VICTORYUTILITY}, {@link Board#DRAWUTILITY} or
+	 *         {@link Board#LOSSUTILITY} from the point of view of the
+	 *         {@link Player} who has the move, or <code>null</code> if either
+	 *         the budget or the time was over first.
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	public Integer gameValue(Board b, long deadline) {
+		if (prove(b, b.player(), true, deadline))
+			return Board.VICTORYUTILITY;
+		if (isExhausted)
+			return null;
+		if (prove(b, b.player().not(), true, deadline))
+			return Board.LOSSUTILITY;
+		return isExhausted ? null : Board.DRAWUTILITY;
+	}
+
+	/**
+	 * Returns the number of positions expanded by the last call to
+	 * {@link #solve} or {@link #gameValue}.
+	 *
+	 * @return The number of positions expanded.
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	public long getNodes() {
+		return nodes;
+	}
+
+	/**
+	 * Runs a search from a certain position, which is left as it was found.
+	 *
+	 * @param b        The root of the search.
+	 * @param attacker The {@link Player} looking for a victory.
+	 * @param isExact  Whether every legal move is tried.
+	 * @param deadline See {@link #solve}.
+	 * @return <code>true</code> just in case the victory has been proved.
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	private boolean prove(Board b, Player attacker, boolean isExact, long deadline) {
+		this.attacker = attacker;
+		this.isExact = isExact;
+		this.deadline = deadline;
+		salt = (attacker == Player.P1 ? 0 : ATTACKERSALT) ^ (isExact ? EXACTSALT : 0);
+		nodes = 0;
+		isExhausted = false;
+		firstMove = NOMOVE;
+		// the entries of previous searches are kept, but may be replaced
+		java.util.Arrays.fill(works, 0);
+		search(b, 0, INFINITY, INFINITY);
+		return !isExhausted && proof(b.longHashCode()) == 0;
+	}
+
+	/**
+	 * Expands a position until either its φ or its δ reaches the corresponding
+	 * threshold. φ is the proof number of the {@link Player} who has the move,
+	 * i.e. the proof number in the nodes of the attacker and the disproof number
+	 * in the ones of the defender, while δ is the other one. The child with the
+	 * lowest δ is expanded in turn, with a φ threshold letting the δ of its
+	 * parent reach its own threshold and a δ threshold exceeding the second
+	 * lowest δ by one.
+	 *
+	 * @param b          The position to expand.
+	 * @param ply        The number of moves played since the root.
+	 * @param phiLimit   The φ threshold.
+	 * @param deltaLimit The δ threshold.
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	private void search(Board b, int ply, int phiLimit, int deltaLimit) {
+		final boolean isAttacker = b.player() == attacker;
+		final long key = b.longHashCode();
+		if (isOver())
+			return;
+		final int[] moves = buffer(b, ply);
+		int count = expand(b, moves);
+		if (count < 0) {
+			final boolean isProved = count == PROVED;
+			store(key, isProved ? 0 : INFINITY, isProved ? INFINITY : 0, 1);
+			return;
+		}
+		// symmetric children share their hash code: only the first one is kept
+		final long[] childKeys = keyBuffer(ply);
+		int distinct = 0;
+		for (int i = 0; i < count; ++i) {
+			final long childKey = b.resultHashCode(moves[i]);
+			int j = 0;
+			while (j < distinct && childKeys[j] != childKey)
+				++j;
+			if (j == distinct) {
+				moves[distinct] = moves[i];
+				childKeys[distinct++] = childKey;
+			}
+		}
+		count = distinct;
+		final long startNodes = nodes;
+		while (!isExhausted) {
+			// φ is the minimum δ of the children, δ the sum of their φ
+			int phi = INFINITY, delta = 0, best = 0, bestPhi = 0, secondDelta = INFINITY;
+			for (int i = 0; i < count; ++i) {
+				final int childPhi = isAttacker ? disproof(childKeys[i]) : proof(childKeys[i]),
+						childDelta = isAttacker ? proof(childKeys[i]) : disproof(childKeys[i]);
+				delta = Math.min(INFINITY, delta + childPhi);
+				if (childDelta < phi) {
+					secondDelta = phi;
+					phi = childDelta;
+					best = i;
+					bestPhi = childPhi;
+				} else if (childDelta < secondDelta)
+					secondDelta = childDelta;
+			}
+			store(key, isAttacker ? phi : delta, isAttacker ? delta : phi, nodes - startNodes + 1);
+			if (phi >= phiLimit || delta >= deltaLimit) {
+				if (ply == 0 && isAttacker && phi == 0)
+					firstMove = moves[best];
+				return;
+			}
+			final int childPhiLimit = (int) Math.min(INFINITY, (long) deltaLimit - delta + bestPhi);
+			search(b.result(moves[best]), ply + 1, childPhiLimit, Math.min(phiLimit, secondDelta + 1));
+			b.revert();
+		}
+	}
+
+	/**
+	 * Writes the moves to be tried in a certain position, unless its outcome is
+	 * already known. A {@link Player} who could win at once wins, while one who
+	 * cannot and faces two winning moves of the opponent loses. A single winning
+	 * move of the opponent has to be blocked. Otherwise, the attacker of a
+	 * mate-finding search plays a four or a three, while the defender replies
+	 * with a relevant move. In an exact search, a position in which the attacker
+	 * cannot complete any alignment is disproved, and the relevant moves are
+	 * followed by every other legal one.
+	 *
+	 * @param b     The position to inspect.
+	 * @param moves Where to write the encoded moves.
+	 * @return The number of moves written, or either {@link #PROVED} or
+	 *         {@link #DISPROVED}.
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	private int expand(Board b, int[] moves) {
+		if (b.terminalTest())
+			return b.utility(attacker) == Board.VICTORYUTILITY ? PROVED : DISPROVED;
+		final Player mover = b.player();
+		if (b.hasWinningActions(mover))
+			return mover == attacker ? PROVED : DISPROVED;
+		int count = b.winningActions(moves, mover.not());
+		if (count > 1)
+			return mover == attacker ? DISPROVED : PROVED;
+		if (count == 1)
+			return 1;
+		if (!isExact) {
+			if (mover != attacker)
+				return b.actions(moves);
+			count = b.threatActions(moves, attacker, b.K - 3);
+			return count == 0 ? DISPROVED : count;
+		}
+		if (!canStillWin(b))
+			return DISPROVED;
+		count = b.actions(moves);
+		++stamp;
+		for (int i = 0; i < count; ++i)
+			stamps[moves[i]] = stamp;
+		for (int a = 0; a < b.SIZE; ++a)
+			if (stamps[a] != stamp && b.isLegal(a))
+				moves[count++] = a;
+		return count;
+	}
+
+	/**
+	 * Checks whether the attacker can still complete an alignment, i.e. whether
+	 * some alignment of {@link Board#K} cells contains a free cell and no mark of
+	 * the defender. Takes Θ({@link Board#SIZE} {@link Board#K}) time.
+	 *
+	 * @param b The position to inspect.
+	 * @return <code>false</code> just in case the attacker cannot win anymore.
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	private boolean canStillWin(Board b) {
+		for (int a = 0; a < b.SIZE; ++a)
+			if (b.isLegal(a) && b.isThreatAction(a, attacker, 0))
+				return true;
+		return false;
+	}
+
+	/**
+	 * Looks up the proof number of a position.
+	 *
+	 * @param key The symmetry-canonical hash code of the position.
+	 * @return The stored proof number, or 1 if the position is not stored.
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	private int proof(long key) {
+		final int slot = find(key);
+		return slot == NOSLOT ? 1 : proofs[slot];
+	}
+
+	/**
+	 * Looks up the disproof number of a position.
+	 *
+	 * @param key The symmetry-canonical hash code of the position.
+	 * @return The stored disproof number, or 1 if the position is not stored.
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	private int disproof(long key) {
+		final int slot = find(key);
+		return slot == NOSLOT ? 1 : disproofs[slot];
+	}
+
+	/**
+	 * Stores the proof and disproof numbers of a position. If it is not stored
+	 * yet, the slot of its bucket whose subtree took less work is replaced: since
+	 * the last position stored is never lost, each expansion is seen by the
+	 * parent.
+	 *
+	 * @param key      The symmetry-canonical hash code of the position.
+	 * @param proof    The proof number.
+	 * @param disproof The disproof number.
+	 * @param work     The number of positions expanded below the position.
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	private void store(long key, int proof, int disproof, long work) {
+		int slot = find(key);
+		if (slot == NOSLOT) {
+			slot = bucket(key);
+			if (works[slot + 1] < works[slot])
+				++slot;
+		}
+		keys[slot] = key ^ salt;
+		proofs[slot] = proof;
+		disproofs[slot] = disproof;
+		works[slot] = work;
+	}
+
+	/**
+	 * Looks for the slot storing a position.
+	 *
+	 * @param key The symmetry-canonical hash code of the position.
+	 * @return The index of the slot, or {@link #NOSLOT} if the position is not
+	 *         stored.
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	private int find(long key) {
+		final int slot = bucket(key);
+		final long salted = key ^ salt;
+		return keys[slot] == salted ? slot : keys[slot + 1] == salted ? slot + 1 : NOSLOT;
+	}
+
+	/**
+	 * Maps a hash code to its bucket of the transposition table, made of two
+	 * consecutive slots.
+	 *
+	 * @param key The symmetry-canonical hash code of a position.
+	 * @return The index of the first slot of the bucket.
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	private int bucket(long key) {
+		final long mixed = key ^ salt;
+		return ((int) (mixed ^ mixed >>> 32) & MASK) << 1;
+	}
+
+	/**
+	 * Counts a new expanded position, checking whether the budget or the time is
+	 * over. The clock is only read every {@link #CLOCKPOLLINTERVAL} positions.
+	 *
+	 * @return <code>true</code> just in case the search has to be abandoned.
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	private boolean isOver() {
+		if (++nodes > BUDGET || nodes % CLOCKPOLLINTERVAL == 0 && System.currentTimeMillis() > deadline)
+			isExhausted = true;
+		return isExhausted;
+	}
+
+	/**
+	 * Returns the buffer where the hash codes of the children of a certain ply
+	 * are written. The buffer of the moves of the same ply must have been
+	 * requested first.
+	 *
+	 * @param ply The number of moves played since the root.
+	 * @return A buffer as long as the one returned by {@link #buffer}.
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	private long[] keyBuffer(int ply) {
+		return keyBuffers[ply];
+	}
+
+	/**
+	 * Returns the buffer where the encoded moves of a certain ply are written,
+	 * allocating it, together with the one of {@link #keyBuffer}, the first
+	 * time.
+	 *
+	 * @param b   The {@link Board} being searched.
+	 * @param ply The number of moves played since the root.
+	 * @return A buffer of at least {@link Board#SIZE} elements.
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	private int[] buffer(Board b, int ply) {
+		if (stamps.length < b.SIZE)
+			stamps = new int[b.SIZE];
+		if (ply >= buffers.length) {
+			buffers = java.util.Arrays.copyOf(buffers, Math.max(ply + 1, 2 * buffers.length));
+			keyBuffers = java.util.Arrays.copyOf(keyBuffers, buffers.length);
+		}
+		if (buffers[ply] == null || buffers[ply].length < b.SIZE) {
+			buffers[ply] = new int[b.SIZE];
+			keyBuffers[ply] = new long[b.SIZE];
+		}
+		return buffers[ply];
+	}
+
+	/** The maximum number of positions expanded by each search. */
+	final public long BUDGET;
+	/** Bits of a hash code selecting a bucket of the transposition table. */
+	final private int MASK;
+	/** Bytes taken by each slot of the transposition table. */
+	final private static int SLOTBYTES = 24;
+	/** Proof or disproof number of a solved position. */
+	final private static int INFINITY = Integer.MAX_VALUE / 2;
+	/** Returned by {@link #expand} when the attacker has won. */
+	final private static int PROVED = -1;
+	/** Returned by {@link #expand} when the attacker cannot win. */
+	final private static int DISPROVED = -2;
+	/** Returned by {@link #find} for the positions not stored. */
+	final private static int NOSLOT = -1;
+	/** Marks the absence of an encoded action. */
+	final private static int NOMOVE = -1;
+	/** Number of positions between two clock readings. */
+	final private static int CLOCKPOLLINTERVAL = 64;
+	/** Distinguishes the searches of {@link Player#P2} in the table. */
+	final private static long ATTACKERSALT = 0x9E3779B97F4A7C15l;
+	/** Distinguishes the exact searches in the table. */
+	final private static long EXACTSALT = 0xC2B2AE3D27D4EB4Fl;
+	/** The hash code of the position stored in each slot, XOR-ed with a salt. */
+	final private long[] keys;
+	/** The proof number stored in each slot. */
+	final private int[] proofs;
+	/** The disproof number stored in each slot. */
+	final private int[] disproofs;
+	/** The number of positions expanded below the one stored in each slot. */
+	final private long[] works;
+	/** Per-ply buffers of encoded moves, allocated lazily by {@link #buffer}. */
+	private int[][] buffers = new int[0][];
+	/** Per-ply buffers of hash codes, allocated lazily by {@link #buffer}. */
+	private long[][] keyBuffers = new long[0][];
+	/** Marks the relevant moves of the position being expanded. */
+	private int[] stamps = new int[0];
+	/** The value of {@link #stamps} marking a relevant move. */
+	private int stamp = 0;
+	/** The {@link Player} looking for a victory in the current search. */
+	private Player attacker;
+	/** Whether the current search tries every legal move. */
+	private boolean isExact;
+	/** XOR-ed with the hash codes of the current search. */
+	private long salt;
+	/** The first move of the victory found, if any. */
+	private int firstMove = NOMOVE;
+	/** Positions expanded by the current search. */
+	private long nodes;
+	/** Whether the budget or the time of the current search is over. */
+	private boolean isExhausted;
+	/** The time after which the current search has to be abandoned. */
+	private long deadline;
+
+}
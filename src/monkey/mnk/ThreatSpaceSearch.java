@@ -0,0 +1,214 @@
+package monkey.mnk;
+
+import monkey.ai.Player;
+import monkey.ai.Solver;
+
+/**
+ * A <code>ThreatSpaceSearch</code> is a {@link Solver} for m,n,k-games which
+ * only considers the threats of the attacker, i.e. the {@link Player} who has
+ * the move, and the replies they force. A four is a move after which the
+ * attacker could win at once, so that the defender has to block it. A three is
+ * a move bringing an unblocked alignment of {@link Board#K} cells to
+ * {@link Board#K}<code>-2</code> marks: since the defender is not strictly
+ * forced to answer it, every relevant reply has to be refuted. A victory by
+ * continuous fours (VCF) is looked for first, then victories by threats (VCT)
+ * allowing a growing number of threes. See L.V. Allis, H.J. van den Herik,
+ * M.P.H. Huntjens, <i>Go-Moku and Threat-Space Search</i>, Report CS 93-02,
+ * Department of Computer Science, University of Limburg, 1993. The
+ * {@link ThreatsManager}s of the {@link Board} are used to detect immediate
+ * wins in constant time.
+ *
+ * @author Stefano Volpe
+ * @version 1.0
+ * @since 1.0
+ */
+public class ThreatSpaceSearch implements Solver<Board, Position> {
+
+	/**
+	 * Constructs a new {@link ThreatSpaceSearch} given its node budget and the
+	 * maximum number of threes of a victory.
+	 *
+	 * @param budget    The maximum number of moves played by each call to
+	 *                  {@link #solve}.
+	 * @param maxThrees The maximum number of threes played by the attacker in the
+	 *                  sequences looked for.
+	 * @throws IllegalArgumentException budget is not strictly positive or
+	 *                                  maxThrees is negative.
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	public ThreatSpaceSearch(long budget, int maxThrees) {
+		if (budget <= 0 || maxThrees < 0)
+			throw new IllegalArgumentException("budget is not strictly positive or maxThrees is negative.");
+		BUDGET = budget;
+		MAXTHREES = maxThrees;
+	}
+
+	/**
+	 * {@inheritDoc} <br>
+	 * Victories by continuous fours are looked for first, then victories by
+	 * threats with at most 1, 2, ..., {@link #MAXTHREES} threes.
+	 */
+	@Override
+	public int solve(Board b, long deadline) {
+		// if (b.terminalTest())
+		// throw new IllegalArgumentException("b is a terminal state.");
+		this.deadline = deadline;
+		nodes = 0;
+		isExhausted = false;
+		attacker = b.player();
+		firstMove = NOMOVE;
+		size = b.SIZE;
+		final int[] moves = buffer(0);
+		if (b.winningActions(moves, attacker) > 0)
+			return moves[0];
+		for (int threes = 0; threes <= MAXTHREES && !isExhausted; ++threes)
+			if (attack(b, 0, threes))
+				return firstMove;
+		return NOMOVE;
+	}
+
+	/**
+	 * Returns the number of moves played by the last call to {@link #solve}.
+	 *
+	 * @return The number of moves played.
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	public long getNodes() {
+		return nodes;
+	}
+
+	/**
+	 * Looks for a victory of the attacker, who has the move. If the defender could
+	 * win at once, the attacker has to block them, and can only go on if the block
+	 * is a threat itself.
+	 *
+	 * @param b      The {@link Board} to inspect.
+	 * @param ply    The number of moves played since the root.
+	 * @param threes The maximum number of threes still allowed.
+	 * @return <code>true</code> just in case a victory has been found.
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	private boolean attack(Board b, int ply, int threes) {
+		final Player defender = attacker.not();
+		final int[] moves = buffer(ply);
+		int count = b.winningActions(moves, defender);
+		if (count > 1)
+			return false;
+		if (count == 0)
+			count = b.threatActions(moves, attacker, b.K - (threes > 0 ? 3 : 2));
+		for (int i = 0; i < count; ++i) {
+			final int move = moves[i];
+			final boolean isFour = b.isThreatAction(move, attacker, b.K - 2);
+			if (!isFour && (threes == 0 || !b.isThreatAction(move, attacker, b.K - 3)))
+				continue;
+			if (isOver())
+				return false;
+			final boolean isWin = defend(b.result(move), ply + 1, isFour ? threes : threes - 1);
+			b.revert();
+			if (isWin) {
+				if (ply == 0)
+					firstMove = move;
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Checks whether the defender, who has the move, loses against every reply
+	 * forced by the last threat. After a four, the only reply is blocking it,
+	 * while after a three every relevant one is tried.
+	 *
+	 * @param b      The {@link Board} to inspect.
+	 * @param ply    The number of moves played since the root.
+	 * @param threes The maximum number of threes still allowed.
+	 * @return <code>true</code> just in case a victory has been found.
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	private boolean defend(Board b, int ply, int threes) {
+		if (b.terminalTest())
+			return b.utility(attacker) == Board.VICTORYUTILITY;
+		if (b.hasWinningActions(attacker.not()))
+			return false;
+		final int[] moves = buffer(ply);
+		int count = b.winningActions(moves, attacker);
+		if (count > 1)
+			return true;
+		if (count == 0)
+			count = b.actions(moves);
+		for (int i = 0; i < count; ++i) {
+			if (isOver())
+				return false;
+			final boolean isWin = attack(b.result(moves[i]), ply + 1, threes);
+			b.revert();
+			if (!isWin)
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Counts a new move, checking whether the budget or the time is over. The
+	 * clock is only read every {@link #CLOCKPOLLINTERVAL} moves.
+	 *
+	 * @return <code>true</code> just in case the search has to be abandoned.
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	private boolean isOver() {
+		if (++nodes > BUDGET || nodes % CLOCKPOLLINTERVAL == 0 && System.currentTimeMillis() > deadline)
+			isExhausted = true;
+		return isExhausted;
+	}
+
+	/**
+	 * Returns the buffer where the encoded moves of a certain ply are written,
+	 * allocating it the first time.
+	 *
+	 * @param ply The number of moves played since the root.
+	 * @return A buffer of at least {@link Board#SIZE} elements.
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	private int[] buffer(int ply) {
+		if (ply >= buffers.length)
+			buffers = java.util.Arrays.copyOf(buffers, Math.max(ply + 1, 2 * buffers.length));
+		if (buffers[ply] == null || buffers[ply].length < size)
+			buffers[ply] = new int[size];
+		return buffers[ply];
+	}
+
+	/** The maximum number of moves played by each call to {@link #solve}. */
+	final public long BUDGET;
+	/** The maximum number of threes of the victories looked for. */
+	final public int MAXTHREES;
+	/** Marks the absence of an encoded action. */
+	final private static int NOMOVE = -1;
+	/** Number of moves between two clock readings. */
+	final private static int CLOCKPOLLINTERVAL = 64;
+	/** Per-ply buffers of encoded moves, allocated lazily by {@link #buffer}. */
+	private int[][] buffers = new int[0][];
+	/** The number of cells of the last {@link Board} solved. */
+	private int size = 0;
+	/** The {@link Player} looking for a victory in the current search. */
+	private Player attacker;
+	/** The first move of the victory found, if any. */
+	private int firstMove = NOMOVE;
+	/** Moves played by the current search. */
+	private long nodes;
+	/** Whether the budget or the time of the current search is over. */
+	private boolean isExhausted;
+	/** The time after which the current search has to be abandoned. */
+	private long deadline;
+
+}
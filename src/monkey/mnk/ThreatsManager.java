@@ -2,12 +2,16 @@ package monkey.mnk;
 
 import mnkgame.MNKCellState;
 import monkey.ai.Player;
-import monkey.util.DirectAddressTable;
 
 /**
  * A <code>ThreatsManager</code> for a certain {@link #L L} counts the {@link #L
  * L}-long {@link Threat}s with no hole and the <code>{@link #L L}-1</code>-long
- * {@link Threat}s with a hole in them. A single istance of this class takes
+ * {@link Threat}s with a hole in them. Each of the {@link #ALIGNMENTS}
+ * alignments of {@link #L} cells is identified by an integer key, and its
+ * state is stored as a set of primitive arrays indexed by such key, so that
+ * updating it allocates nothing. Which alignments a cell belongs to or bounds
+ * is looked up in an {@link AlignmentGeometry}, shared by every instance with
+ * the same grid and {@link #L L}. A single istance of this class takes
  * Θ({@link #ALIGNMENTS}) memory.
  *
  * @author Stefano Volpe
@@ -22,13 +26,14 @@ public class ThreatsManager implements Cloneable {
 	final public int B;
 	/** See the project report. */
 	final public int H;
-	/** Number of possible {@link Alignment}s. */
+	/** Number of possible alignments. */
 	final public int ALIGNMENTS;
 
 	/**
 	 * Constructs a new {@link ThreatsManager} given the {@link #L L} parameter and
-	 * a {@link Board}. The actual <code>MNKCellState</code>s of the {@link Board}
-	 * do not matter. Takes Θ({@link #ALIGNMENTS}) time.
+	 * a {@link Board}. The marks of the {@link Board} must not be counted yet,
+	 * while its free cells are read to initialize the extremities of every
+	 * alignment. Takes Θ({@link #ALIGNMENTS}) time.
 	 *
 	 * @param l The {@link #L L} parameter. Must be greater than 1.
 	 * @param b The {@link Board} to consider.
@@ -45,14 +50,20 @@ public class ThreatsManager implements Cloneable {
 		// throw new NullPointerException("b is null.");
 		L = l;
 		board = b;
-		// alignments
-		B = Math.max(0, board.N - L + 1);
-		H = Math.max(0, board.M - L + 1);
-		ALIGNMENTS = countAlignments();
-		alignments = new DirectAddressTable<Alignment>(Alignment.class, a -> toKey(a), ALIGNMENTS);
-		final Threat[] threats = Threat.values();
-		for (Threat t : threats)
-			counters.insert(new ThreatsCounter(t));
+		geometry = AlignmentGeometry.of(board.M, board.N, L);
+		B = geometry.B;
+		H = geometry.H;
+		ALIGNMENTS = geometry.ALIGNMENTS;
+		p1Cells = new short[ALIGNMENTS];
+		p2Cells = new short[ALIGNMENTS];
+		markedEnds = new byte[ALIGNMENTS];
+		freeExtremities = new byte[ALIGNMENTS];
+		threats = new byte[ALIGNMENTS];
+		java.util.Arrays.fill(threats, NOTHREAT);
+		for (int i = 0, cell = 0; i < board.M; ++i)
+			for (int j = 0; j < board.N; ++j, ++cell)
+				if (board.getCellState(i, j) == MNKCellState.FREE)
+					updateExtremities(cell, 1);
 	}
 
 	/**
@@ -67,20 +78,12 @@ public class ThreatsManager implements Cloneable {
 	public ThreatsManager clone() {
 		try {
 			ThreatsManager copy = (ThreatsManager) super.clone();
-			copy.alignments = alignments.clone();
-			int length = alignments.length();
-			for (int i = 0; i < length; ++i) {
-				final Alignment a = alignments.search(i);
-				if (a != null)
-					copy.alignments.insert(a.clone());
-			}
+			copy.p1Cells = p1Cells.clone();
+			copy.p2Cells = p2Cells.clone();
+			copy.markedEnds = markedEnds.clone();
+			copy.freeExtremities = freeExtremities.clone();
+			copy.threats = threats.clone();
 			copy.counters = counters.clone();
-			length = counters.length();
-			for (int i = 0; i < length; ++i) {
-				final ThreatsCounter c = counters.search(i);
-				if (c != null)
-					copy.counters.insert(c.clone());
-			}
 			return copy;
 		} catch (CloneNotSupportedException e) {
 			// Should never happen: we support clone
@@ -89,8 +92,10 @@ public class ThreatsManager implements Cloneable {
 	}
 
 	/**
-	 * (Un)records a mark for the whole {@link Board}. Takes Θ({@link #L}) time.
-	 * 
+	 * (Un)records a mark for the whole {@link Board}. Takes Θ({@link #L}) time
+	 * and allocates no memory: the alignments to update are read from the
+	 * shared {@link AlignmentGeometry}.
+	 *
 	 * @param pos {@link Position} of the mark to (un)record.
 	 * @param pl  The {@link monkey.ai.Player Player} responsible for the change.
 	 * @throws IllegalArgumentException Either position or cellStates are meant for
@@ -105,106 +110,14 @@ public class ThreatsManager implements Cloneable {
 		// throw new NullPointerException("Either pos, pl, or cellStates are null.");
 		// if (pos.ROWSNUMBER != board.M || pos.COLUMNSNUMBER != board.N)
 		// throw new IllegalArgumentException("M-N-K incompatibility.");
-		final int row = pos.getRow(), column = pos.getColumn();
-		final boolean add = board.getCellState(pos) != MNKCellState.FREE;
-		// horizontal alignments
-		int max = Math.min(board.N - L, column);
-		for (int j = Math.max(0, column - L + 1); j <= max; ++j) {
-			final Position position = new Position(board, row, j);
-			final MNKCellState firstExt = j == 0 ? null : board.getCellState(row, j - 1),
-					secondExt = j + L == board.N ? null : board.getCellState(row, j + L);
-			final Alignment a = new Alignment(position, Alignment.Direction.HORIZONTAL, L, firstExt, secondExt);
-			updateAlignmentContent(a, add, pl);
-		}
-		// vertical alignments
-		max = Math.min(board.M - L, row);
-		for (int i = Math.max(0, row - L + 1); i <= max; ++i) {
-			final Position position = new Position(board, i, column);
-			final MNKCellState firstExt = i == 0 ? null : board.getCellState(i - 1, column),
-					secondExt = i + L == board.M ? null : board.getCellState(i + L, column);
-			final Alignment a = new Alignment(position, Alignment.Direction.VERTICAL, L, firstExt, secondExt);
-			updateAlignmentContent(a, add, pl);
-		}
-		// primary diagonal alignments
-		max = Math.min(board.N - L + row - column, Math.min(board.M - board.K, row));
-		for (int i = Math.max(0, Math.max(row - L + 1, row - column)), j = i + column - row; i <= max; ++i, ++j) {
-			final Position position = new Position(board, i, j);
-			final MNKCellState firstExt = i == 0 || j == 0 ? null : board.getCellState(i - 1, j - 1),
-					secondExt = i + L == board.M || j + L == board.N ? null : board.getCellState(i + L, j + L);
-			final Alignment a = new Alignment(position, Alignment.Direction.PRIMARY_DIAGONAL, L, firstExt, secondExt);
-			updateAlignmentContent(a, add, pl);
-		}
-		// secondary diagonal alignments
-		max = Math.min(column + row, Math.min(board.M - 1, row + L - 1));
-		for (int i = Math.max(row + column + L - board.N, Math.max(L - 1, row)), j = row + column - i; i <= max; ++i, --j) {
-			final Position position = new Position(board, i, j);
-			final MNKCellState firstExt = i == board.M - 1 || j == 0 ? null : board.getCellState(i + 1, j - 1),
-					secondExt = i - L == -1 || j + L == board.N ? null : board.getCellState(i - L, j + L);
-			final Alignment a = new Alignment(position, Alignment.Direction.SECONDARY_DIAGONAL, L, firstExt, secondExt);
-			updateAlignmentContent(a, add, pl);
-		}
-		// horizontal extremities
-		if (column + L < board.N) {
-			final Position position = new Position(board, row, column + 1);
-			final MNKCellState firstExt = board.getCellState(row, column),
-					secondExt = column + L + 1 == board.N ? null : board.getCellState(row, column + L + 1);
-			final Alignment a = new Alignment(position, Alignment.Direction.HORIZONTAL, L, firstExt, secondExt);
-			updateAlignmentExtremity(a, true, firstExt);
-		}
-		if (column - L >= 0) {
-			final Position position = new Position(board, row, column - L);
-			final MNKCellState firstExt = column - L == 0 ? null : board.getCellState(row, column - L - 1),
-					secondExt = board.getCellState(row, column);
-			final Alignment a = new Alignment(position, Alignment.Direction.HORIZONTAL, L, firstExt, secondExt);
-			updateAlignmentExtremity(a, false, secondExt);
-		}
-		// vertical extremities
-		if (row + L < board.M) {
-			final Position position = new Position(board, row + 1, column);
-			final MNKCellState firstExt = board.getCellState(row, column),
-					secondExt = row + L + 1 == board.M ? null : board.getCellState(row + L + 1, column);
-			final Alignment a = new Alignment(position, Alignment.Direction.VERTICAL, L, firstExt, secondExt);
-			updateAlignmentExtremity(a, true, firstExt);
-		}
-		if (row - L >= 0) {
-			final Position position = new Position(board, row - L, column);
-			final MNKCellState firstExt = row - L == 0 ? null : board.getCellState(row - L - 1, column),
-					secondExt = board.getCellState(row, column);
-			final Alignment a = new Alignment(position, Alignment.Direction.VERTICAL, L, firstExt, secondExt);
-			updateAlignmentExtremity(a, false, secondExt);
-		}
-		// primary diagonal extremities
-		if (row + L < board.M && column + L < board.N) {
-			final Position position = new Position(board, row + 1, column + 1);
-			final MNKCellState firstExt = board.getCellState(row, column),
-					secondExt = row + L + 1 == board.M || column + L + 1 == board.N ? null
-							: board.getCellState(row + L + 1, column + L + 1);
-			final Alignment a = new Alignment(position, Alignment.Direction.PRIMARY_DIAGONAL, L, firstExt, secondExt);
-			updateAlignmentExtremity(a, true, firstExt);
-		}
-		if (row - L >= 0 && column - L >= 0) {
-			final Position position = new Position(board, row - L, column - L);
-			final MNKCellState firstExt = row - L == 0 || column - L == 0 ? null
-					: board.getCellState(row - L - 1, column - L - 1), secondExt = board.getCellState(row, column);
-			final Alignment a = new Alignment(position, Alignment.Direction.PRIMARY_DIAGONAL, L, firstExt, secondExt);
-			updateAlignmentExtremity(a, false, secondExt);
-		}
-		// secondary diagonal extremities
-		if (row - L >= 0 && column + L < board.N) {
-			final Position position = new Position(board, row - 1, column + 1);
-			final MNKCellState firstExt = board.getCellState(row, column),
-					secondExt = row - L == 0 || column + L + 1 == board.N ? null
-							: board.getCellState(row - L - 1, column + L + 1);
-			final Alignment a = new Alignment(position, Alignment.Direction.SECONDARY_DIAGONAL, L, firstExt, secondExt);
-			updateAlignmentExtremity(a, true, firstExt);
-		}
-		if (row + L < board.M && column - L >= 0) {
-			final Position position = new Position(board, row + L, column - L);
-			final MNKCellState firstExt = row + L + 1 == board.M || column - L == 0 ? null
-					: board.getCellState(row + L + 1, column - L - 1), secondExt = board.getCellState(row, column);
-			final Alignment a = new Alignment(position, Alignment.Direction.SECONDARY_DIAGONAL, L, firstExt, secondExt);
-			updateAlignmentExtremity(a, false, secondExt);
-		}
+		final int cell = pos.getRow() * board.N + pos.getColumn();
+		final int offset = board.getCellState(pos) != MNKCellState.FREE ? 1 : -1;
+		final short[] cells = pl == Player.P1 ? p1Cells : p2Cells;
+		final int[] contents = geometry.CONTENTS;
+		for (int i = geometry.CONTENTSTART[cell], end = geometry.CONTENTSTART[cell + 1]; i < end; ++i)
+			updateAlignmentContent(contents[i] >>> 1, cells, offset, (contents[i] & 1) != 0);
+		// a marked cell is no longer a free extremity
+		updateExtremities(cell, -offset);
 	}
 
 	/**
@@ -238,149 +151,106 @@ public class ThreatsManager implements Cloneable {
 	public int count(Threat t, Player p) {
 		// if (t == null || p == null)
 		// throw new NullPointerException("Either t or p are null.");
-		return counters.search(t.ordinal()).get(p);
+		return counters[toCounter(t.ordinal(), p == Player.P1 ? 0 : 1)];
 	}
 
 	/**
-	 * Computes the number of possible {@link monkey.mnk.Alignment Alignment}s for
-	 * this {@link Board}.
+	 * Maps a {@link Threat} and its threatener to their index in
+	 * {@link #counters}.
 	 *
-	 * @return The number of possible {@link monkey.mnk.Alignment Alignment}s.
+	 * @param threat The ordinal of the {@link Threat}.
+	 * @param player 0 for {@link monkey.ai.Player#P1}, 1 for
+	 *               {@link monkey.ai.Player#P2}.
+	 * @return The index of the counter.
 	 * @author Stefano Volpe
 	 * @version 1.0
 	 * @since 1.0
 	 */
-	private int countAlignments() {
-		return B * (board.M + H) + H * (board.N + B);
+	private static int toCounter(int threat, int player) {
+		return 2 * threat + player;
 	}
 
 	/**
-	 * Maps a valid {@link monkey.mnk.Alignment Alignment} for the previouslt
-	 * specified {@link Board} to an appropriate integer key in [0 ..
-	 * {@link Board#ALIGNMENTS} - 1].
+	 * (Un)records a mark for a certain alignment.
 	 *
-	 * @see #alignments
-	 * @param a Value to be mapped.
-	 * @throws IllegalArgumentException a's grid extents are different from the
-	 *                                  previously specified {@link Board}'s.
-	 * @throws NullPointerException     a is <code>null</code>.
-	 * @return An integer key
+	 * @param key    The key of the alignment.
+	 * @param cells  Either {@link #p1Cells} or {@link #p2Cells}, depending on the
+	 *               {@link monkey.ai.Player Player} whose symbol is to be
+	 *               added/removed.
+	 * @param offset 1 if the mark has to be added, -1 if it has to be removed.
+	 * @param isEnd  Whether the mark is on the first or last cell of the
+	 *               alignment.
 	 * @author Stefano Volpe
 	 * @version 1.0
 	 * @since 1.0
 	 */
-	private int toKey(Alignment a) {
-		// if (a == null)
-		// throw new NullPointerException("Null alignment.");
-		// if (a.FIRSTCELL.ROWSNUMBER != board.M || a.FIRSTCELL.COLUMNSNUMBER !=
-		// board.N)
-		// throw new IllegalArgumentException("Incompatible grid extents.");
-		final int row = a.FIRSTCELL.getRow(), column = a.FIRSTCELL.getColumn();
-		switch (a.DIRECTION) {
-		case HORIZONTAL: // [0 .. B * M - 1]
-			return row * B + column;
-		case VERTICAL: // B * M + [0 .. N * H - 1]
-			return B * board.M + row * board.N + column;
-		case PRIMARY_DIAGONAL: // B * M + N * H + [0 .. B * H - 1]
-			return B * (board.M + row) + board.N * H + column;
-		case SECONDARY_DIAGONAL: // B * (M + H) + N * H + [0 .. B * H - 1]
-			return B * (2 * H + row) + board.N * H + column;
-		default:
-			throw new IllegalArgumentException("Unknown direction");
-		}
+	private void updateAlignmentContent(int key, short[] cells, int offset, boolean isEnd) {
+		cells[key] += offset;
+		if (isEnd)
+			markedEnds[key] += offset;
+		computeThreat(key);
 	}
 
 	/**
-	 * (Un)records a mark for a certain {@link Alignment}.
+	 * Updates the number of free extremities of the alignments bounded by a
+	 * certain cell.
 	 *
-	 * @param query      Its coordinates are used to identify the element to update.
-	 *                   May be dirtied after its use.
-	 * @param add        <code>true</code> just in case the cell has to be added
-	 *                   instead of removed.
-	 * @param player     The {@link monkey.ai.Player Player} whose symbol is to be
-	 *                   added/removed.
-	 * @param cellStates The current state of the board.
-	 * @throws IllegalArgumentException query is meant for another M-N-K tuple.
-	 * @throws IllegalArgumentException Cannot add any more marks.
-	 * @throws NullPointerException     either query or player are null
+	 * @param cell   The index of the cell in row-major order.
+	 * @param offset 1 if the cell has been freed, -1 if it has been marked.
 	 * @author Stefano Volpe
 	 * @version 1.0
 	 * @since 1.0
 	 */
-	private void updateAlignmentContent(Alignment query, boolean add, Player player) {
-		// if (query == null || player == null)
-		// throw new NullPointerException("Either query or player are null");
-		// if (query.FIRSTCELL.ROWSNUMBER != board.M || query.FIRSTCELL.COLUMNSNUMBER !=
-		// board.N)
-		// throw new IllegalArgumentException("M-N-K incompatibility.");
-		Alignment result = alignments.search(toKey(query));
-		if (result == null) {
-			query.clear();
-			alignments.insert(result = query);
-		}
-		final Threat oldThreat = result.getThreat();
-		final Player oldThreatener = result.getThreatener();
-		// try {
-		if (add)
-			result.addMark(player, board);
-		else
-			result.removeMark(player, board);
-		// } catch (IllegalCallerException e) {
-		// throw new IllegalArgumentException("Cannot " + (add ? "add" : "remove") + "
-		// any more marks.");
-		// }
-		final Threat newThreat = result.getThreat();
-		final Player newThreatener = result.getThreatener();
-		if (newThreat != oldThreat || newThreatener != oldThreatener) {
-			if (oldThreat != null)
-				counters.search(oldThreat.ordinal()).decrement(oldThreatener);
-			if (result.getThreat() != null)
-				counters.search(result.getThreat().ordinal()).increment(result.getThreatener());
-		}
+	private void updateExtremities(int cell, int offset) {
+		final int[] extremities = geometry.EXTREMITIES;
+		for (int i = geometry.EXTREMITYSTART[cell], end = geometry.EXTREMITYSTART[cell + 1]; i < end; ++i)
+			updateAlignmentExtremity(extremities[i], offset);
 	}
 
 	/**
-	 * (Un)records an extremity for a certain {@link Alignment}.
+	 * (Un)records a free extremity for a certain alignment.
 	 *
-	 * @param query      Its coordinates are used to identify the element to update.
-	 *                   May be dirtied after its use.
-	 * @param first      <code>true</code> just in case the extremity to update is
-	 *                   the first one.
-	 * @param state      The new state of the extremity. May be null.
-	 * @param cellStates The current state of the board.
-	 * @throws IllegalArgumentException query or cellState is meant for another
-	 *                                  M-N-K tuple.
-	 * @throws IllegalCallerException   The extremity cannot be changed anymore.
-	 * @throws IllegalArgumentException The extremity cannot be set to this
-	 *                                  particular state.
+	 * @param key    The key of the alignment.
+	 * @param offset 1 if the extremity has been freed, -1 if it has been marked.
 	 * @author Stefano Volpe
 	 * @version 1.0
 	 * @since 1.0
 	 */
-	private void updateAlignmentExtremity(Alignment query, boolean first, MNKCellState state) {
-		// if (query == null)
-		// throw new NullPointerException("query is null.");
-		// if (query.FIRSTCELL.ROWSNUMBER != board.M || query.FIRSTCELL.COLUMNSNUMBER !=
-		// board.N)
-		// throw new IllegalArgumentException("M-N-K incompatibility.");
-		Alignment result = alignments.search(toKey(query));
-		if (result == null) {
-			query.clear();
-			alignments.insert(result = query);
-		}
-		final Threat oldThreat = result.getThreat();
-		final Player oldThreatener = result.getThreatener();
-		if (first)
-			result.setFirstExtremity(state, board);
+	private void updateAlignmentExtremity(int key, int offset) {
+		freeExtremities[key] += offset;
+		computeThreat(key);
+	}
+
+	/**
+	 * Updates the current {@link Threat} of an alignment, together with the
+	 * {@link #counters}. An alignment full of the marks of a single
+	 * {@link monkey.ai.Player Player} is a {@link Threat#ONE ONE},
+	 * {@link Threat#TWO TWO} or {@link Threat#THREE THREE} depending on the
+	 * number of its free extremities (2, 1 or 0). An alignment whose only free
+	 * cell lies between the marks of a single {@link monkey.ai.Player Player} is
+	 * a {@link Threat#FOUR FOUR}, {@link Threat#FIVE FIVE} or {@link Threat#SIX
+	 * SIX} likewise.
+	 *
+	 * @param key The key of the alignment.
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	private void computeThreat(int key) {
+		final int p1 = p1Cells[key], p2 = p2Cells[key], oldThreat = threats[key];
+		final int newThreat;
+		if (p1 == L || p2 == L)
+			newThreat = toCounter(Threat.THREE.ordinal() - freeExtremities[key], p1 == L ? 0 : 1);
+		else if (p1 + p2 == L - 1 && (p1 == 0 || p2 == 0) && markedEnds[key] == 2)
+			newThreat = toCounter(Threat.SIX.ordinal() - freeExtremities[key], p2 == 0 ? 0 : 1);
 		else
-			result.setSecondExtremity(state, board);
-		final Threat newThreat = result.getThreat();
-		final Player newThreatener = result.getThreatener();
-		if (newThreat != oldThreat || newThreatener != oldThreatener) {
-			if (oldThreat != null)
-				counters.search(oldThreat.ordinal()).decrement(oldThreatener);
-			if (result.getThreat() != null)
-				counters.search(result.getThreat().ordinal()).increment(result.getThreatener());
+			newThreat = NOTHREAT;
+		if (newThreat != oldThreat) {
+			if (oldThreat != NOTHREAT)
+				--counters[oldThreat];
+			if (newThreat != NOTHREAT)
+				++counters[newThreat];
+			threats[key] = (byte) newThreat;
 		}
 	}
 
@@ -393,22 +263,52 @@ public class ThreatsManager implements Cloneable {
 	 */
 	@Override
 	public String toString() {
-		return String.format("<" + L + ">%n" + alignments + "%n" + counters);
+		final StringBuilder res = new StringBuilder("<" + L + ">");
+		for (Threat t : Threat.values())
+			res.append(String.format("%n%s: %d - %d", t, counters[toCounter(t.ordinal(), 0)],
+					counters[toCounter(t.ordinal(), 1)]));
+		return res.toString();
 	}
 
+	/** Marks an alignment with no {@link Threat} in {@link #threats}. */
+	final private static byte NOTHREAT = -1;
 	/**
 	 * The non-<code>null</code> {@link Board} whose {@link Threat}s are counted.
 	 */
 	private Board board;
+	/** The alignments of {@link #L} cells of {@link #board}, shared read-only. */
+	final private AlignmentGeometry geometry;
 	/**
-	 * Stores all of the {@link Board}'s possible {@link Alignment}s. Not a final
-	 * field because of {@link #clone}.
+	 * Number of cells marked by {@link monkey.ai.Player#P1} in each alignment. Not
+	 * a final field because of {@link #clone}.
 	 */
-	private DirectAddressTable<Alignment> alignments;
+	private short[] p1Cells;
 	/**
-	 * Stores a counter for each type of {@link Threat}. Not a final field because
-	 * of {@link #clone}.
+	 * Number of cells marked by {@link monkey.ai.Player#P2} in each alignment. Not
+	 * a final field because of {@link #clone}.
 	 */
-	private DirectAddressTable<ThreatsCounter> counters = new DirectAddressTable<ThreatsCounter>(ThreatsCounter.class,
-			c -> c.THREAT.ordinal(), Threat.SIZE);
+	private short[] p2Cells;
+	/**
+	 * Number of marked cells among the first and the last one of each alignment.
+	 * Not a final field because of {@link #clone}.
+	 */
+	private byte[] markedEnds;
+	/**
+	 * Number of free cells among the extremities of each alignment, i.e. the cells
+	 * just before and after it, if they exist. Not a final field because of
+	 * {@link #clone}.
+	 */
+	private byte[] freeExtremities;
+	/**
+	 * The current {@link Threat} of each alignment as an index of
+	 * {@link #counters}, or {@link #NOTHREAT}. Not a final field because of
+	 * {@link #clone}.
+	 */
+	private byte[] threats;
+	/**
+	 * Stores a counter for each type of {@link Threat} and threatener, indexed by
+	 * {@link #toCounter}. Not a final field because of {@link #clone}.
+	 */
+	private int[] counters = new int[2 * Threat.SIZE];
+
 }
@@ -36,6 +36,14 @@ public class ZobristHasher implements Cloneable {
 				return apply(p);
 			}
 
+			public int apply(int cell, int m, int n) {
+				return cell;
+			}
+
+			public int revert(int cell, int m, int n) {
+				return apply(cell, m, n);
+			}
+
 		},
 		/** 90° clockwise rotation. */
 		B {
@@ -51,6 +59,14 @@ public class ZobristHasher implements Cloneable {
 				return D.apply(p);
 			}
 
+			public int apply(int cell, int m, int n) {
+				return cell % n * n + n - cell / n - 1;
+			}
+
+			public int revert(int cell, int m, int n) {
+				return D.apply(cell, m, n);
+			}
+
 		},
 		/** 180° clockwise rotation. */
 		C {
@@ -65,6 +81,14 @@ public class ZobristHasher implements Cloneable {
 				return apply(p);
 			}
 
+			public int apply(int cell, int m, int n) {
+				return m * n - cell - 1;
+			}
+
+			public int revert(int cell, int m, int n) {
+				return apply(cell, m, n);
+			}
+
 		},
 		/** 270° clockwise rotation. */
 		D {
@@ -80,6 +104,14 @@ public class ZobristHasher implements Cloneable {
 				return B.apply(p);
 			}
 
+			public int apply(int cell, int m, int n) {
+				return (m - cell % n - 1) * n + cell / n;
+			}
+
+			public int revert(int cell, int m, int n) {
+				return B.apply(cell, m, n);
+			}
+
 		},
 		/** A flip around the primary diagonal. */
 		E {
@@ -95,6 +127,14 @@ public class ZobristHasher implements Cloneable {
 				return apply(p);
 			}
 
+			public int apply(int cell, int m, int n) {
+				return cell % n * n + cell / n;
+			}
+
+			public int revert(int cell, int m, int n) {
+				return apply(cell, m, n);
+			}
+
 		},
 		/** A flip around the vertical axis. */
 		F {
@@ -108,6 +148,14 @@ public class ZobristHasher implements Cloneable {
 				return apply(p);
 			}
 
+			public int apply(int cell, int m, int n) {
+				return cell / n * n + n - cell % n - 1;
+			}
+
+			public int revert(int cell, int m, int n) {
+				return apply(cell, m, n);
+			}
+
 		},
 		/** A flip around the secondary diagonal. */
 		G {
@@ -124,6 +172,14 @@ public class ZobristHasher implements Cloneable {
 				return apply(p);
 			}
 
+			public int apply(int cell, int m, int n) {
+				return (m - cell % n - 1) * n + n - cell / n - 1;
+			}
+
+			public int revert(int cell, int m, int n) {
+				return apply(cell, m, n);
+			}
+
 		},
 		/** A flip around the horizontal axis. */
 		H {
@@ -137,6 +193,14 @@ public class ZobristHasher implements Cloneable {
 				return apply(p);
 			}
 
+			public int apply(int cell, int m, int n) {
+				return (m - cell / n - 1) * n + cell % n;
+			}
+
+			public int revert(int cell, int m, int n) {
+				return apply(cell, m, n);
+			}
+
 		};
 
 		/** The number of {@link Symmetry Symmetries}. */
@@ -190,6 +254,33 @@ public class ZobristHasher implements Cloneable {
 		 */
 		abstract public Position revert(Position p);
 
+		/**
+		 * Applies this simmetry to a given cell, encoded as its row-major index.
+		 *
+		 * @param cell The row-major index of the cell to transform.
+		 * @param m    The number of rows of the {@link Board}.
+		 * @param n    The number of columns of the {@link Board}.
+		 * @return The row-major index of the result of the transformation.
+		 * @author Stefano Volpe
+		 * @version 1.0
+		 * @since 1.0
+		 */
+		abstract public int apply(int cell, int m, int n);
+
+		/**
+		 * Inverts the application of this simmetry to a given cell, encoded as its
+		 * row-major index.
+		 *
+		 * @param cell The row-major index of the cell to transform.
+		 * @param m    The number of rows of the {@link Board}.
+		 * @param n    The number of columns of the {@link Board}.
+		 * @return The row-major index of the result of the transformation.
+		 * @author Stefano Volpe
+		 * @version 1.0
+		 * @since 1.0
+		 */
+		abstract public int revert(int cell, int m, int n);
+
 	};
 
 	/** Number of {@link monkey.ai.Player}s to be considered. */
@@ -211,7 +302,8 @@ public class ZobristHasher implements Cloneable {
 	public ZobristHasher(int m, int n) {
 		disjuncts = generateDisjuncts(m, n);
 		symmetries = m == n ? Symmetry.values() : new Symmetry[] { Symmetry.A, Symmetry.C, Symmetry.F, Symmetry.H };
-		hashCodeCandidates = new int[Symmetry.SIZE];
+		symmetricDisjuncts = generateSymmetricDisjuncts(m, n);
+		hashCodeCandidates = new long[symmetries.length];
 	}
 
 	/**
@@ -232,7 +324,44 @@ public class ZobristHasher implements Cloneable {
 	 */
 	@Override
 	public int hashCode() {
-		return hashCodeCandidates[symmetryUsed.ordinal()];
+		final long key = longHashCode();
+		return (int) (key ^ key >>> Integer.SIZE);
+	}
+
+	/**
+	 * Returns the full 64-bit Zobrist hash code this object's {@link #hashCode}
+	 * is folded from. Transpositions and symmetric {@link Board}s will return the
+	 * same value.
+	 *
+	 * @see #hashCode
+	 * @return A 64-bit hash code value for this object.
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	public long longHashCode() {
+		return hashCodeCandidates[canonicalCandidate()];
+	}
+
+	/**
+	 * Returns the value {@link #longHashCode} would return after a call to
+	 * {@link #addOrRemove}, without changing the hash code. Takes Θ(1) time.
+	 *
+	 * @param cell   The row-major index of the mark.
+	 * @param player The {@link monkey.ai.Player} who could add/remove the mark.
+	 * @throws NullPointerException      player is <code>null</code>.
+	 * @throws IndexOutOfBoundsException cell is not part of the grid.
+	 * @return The hash code after the change.
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	public long longHashCodeAfter(int cell, Player player) {
+		final int count = hashCodeCandidates.length, first = (cell * PLAYERS + player.ordinal()) * count;
+		long res = hashCodeCandidates[0] ^ symmetricDisjuncts[first];
+		for (int i = 1; i < count; ++i)
+			res = Math.min(res, hashCodeCandidates[i] ^ symmetricDisjuncts[first + i]);
+		return res;
 	}
 
 	/**
@@ -255,32 +384,30 @@ public class ZobristHasher implements Cloneable {
 	}
 
 	/**
-	 * Adds/removes a new move to/from the hash code.
-	 * 
-	 * @param position The {@link Position} of the mark.
-	 * @param player   The {@link monkey.ai.Player} who could add/remove the mark.
-	 * @throws NullPointerException     At least one argument is <code>null</code>.
-	 * @throws IllegalArgumentException position does not have the right extents.
+	 * Adds/removes a new move to/from the hash code. No object is allocated, and
+	 * the hash code of each {@link Symmetry} only takes an array lookup and a XOR:
+	 * the canonical one is not chosen until it is needed.
+	 *
+	 * @param cell   The row-major index of the mark.
+	 * @param player The {@link monkey.ai.Player} who could add/remove the mark.
+	 * @throws NullPointerException      player is <code>null</code>.
+	 * @throws IndexOutOfBoundsException cell is not part of the grid.
 	 * @author Stefano Volpe
 	 * @version 1.0
 	 * @since 1.0
 	 */
-	public void addOrRemove(Position position, Player player) {
-		// if (position == null || player == null)
-		// throw new NullPointerException("Both arguments must be non-null.");
-		// if (position.ROWSNUMBER != disjuncts.length || position.COLUMNSNUMBER !=
-		// disjuncts[0].length)
-		// throw new IllegalArgumentException("Incompatible extents.");
+	public void addOrRemove(int cell, Player player) {
+		// if (player == null)
+		// throw new NullPointerException("player is null.");
+		final int count = hashCodeCandidates.length, first = (cell * PLAYERS + player.ordinal()) * count;
+		for (int i = 0; i < count; ++i)
+			hashCodeCandidates[i] ^= symmetricDisjuncts[first + i];
 		symmetryUsed = null;
-		for (Symmetry s : symmetries) {
-			final int candidate = hashCodeCandidates[s.ordinal()] ^= getDisjunct(s.apply(position), player);
-			if (symmetryUsed == null || candidate < hashCodeCandidates[symmetryUsed.ordinal()])
-				symmetryUsed = s;
-		}
 	}
 
 	/**
-	 * A getter for {@link #symmetryUsed}.
+	 * A getter for {@link #symmetryUsed}, which is computed only if the hash code
+	 * changed since the last call.
 	 *
 	 * @return The value of {@link #symmetryUsed}.
 	 * @author Stefano Volpe
@@ -288,7 +415,29 @@ public class ZobristHasher implements Cloneable {
 	 * @since 1.0
 	 */
 	public Symmetry getSymmetryUsed() {
-		return symmetryUsed;
+		return symmetries[canonicalCandidate()];
+	}
+
+	/**
+	 * Chooses the {@link Symmetry} whose hash code is the smallest one, the first
+	 * of {@link #symmetries} breaking ties, unless it is already known. Takes
+	 * Θ(1) time.
+	 *
+	 * @return The index of {@link #symmetryUsed} in {@link #symmetries}.
+	 * @author Stefano Volpe
+	 * @version 1.0
+	 * @since 1.0
+	 */
+	private int canonicalCandidate() {
+		if (symmetryUsed == null) {
+			int res = 0;
+			for (int i = 1; i < hashCodeCandidates.length; ++i)
+				if (hashCodeCandidates[i] < hashCodeCandidates[res])
+					res = i;
+			symmetryUsed = symmetries[res];
+			canonicalIndex = res;
+		}
+		return canonicalIndex;
 	}
 
 	/**
@@ -306,10 +455,10 @@ public class ZobristHasher implements Cloneable {
 	 * @since 1.0
 	 */
 	public static boolean distinctDisjuncts(int m, int n) {
-		int[] test = new int[m * n * 2];
+		long[] test = new long[m * n * 2];
 		Random r = new Random(SEED);
 		for (int i = 0; i < test.length; ++i) {
-			test[i] = r.nextInt();
+			test[i] = r.nextLong();
 			for (int j = 0; j < i; ++j)
 				if (test[j] == test[i]) {
 					System.err.println("Failed: #" + j + " and #" + i + " have the same value.");
@@ -330,55 +479,66 @@ public class ZobristHasher implements Cloneable {
 	 * @version 1.0
 	 * @since 1.0
 	 */
-	protected int[][][] generateDisjuncts(int m, int n) {
+	protected long[][][] generateDisjuncts(int m, int n) {
 		// if (m <= 0)
 		// throw new IllegalArgumentException("m <= 0");
 		// if (n <= 0)
 		// throw new IllegalArgumentException("n <= 0");
-		int[][][] res = new int[m][n][PLAYERS];
+		long[][][] res = new long[m][n][PLAYERS];
 		Random r = new Random(SEED);
-		for (int[][] grid : res)
-			for (int[] row : grid)
+		for (long[][] grid : res)
+			for (long[] row : grid)
 				for (int i = 0; i < PLAYERS; ++i)
-					row[i] = r.nextInt();
+					row[i] = r.nextLong();
 		return res;
 	}
 
 	/**
-	 * Retrieves the disjunct for a given {@link Position}-{@link monkey.ai.Player}
-	 * couple.
+	 * Lays out the disjuncts for every {@link Symmetry} of {@link #symmetries},
+	 * so that the ones to be XOR-ed when a cell is (un)marked are contiguous.
 	 *
-	 * @param position The {@link Position} of the mark.
-	 * @param player   The {@link monkey.ai.Player} who could add/remove the mark.
-	 * @throws NullPointerException     At least one argument is <code>null</code>.
-	 * @throws IllegalArgumentException position does not have the right extents.
-	 * @return The desired disjunct.
+	 * @param m Number of rows.
+	 * @param n Number of columns.
+	 * @return The value of {@link #symmetricDisjuncts}.
 	 * @author Stefano Volpe
 	 * @version 1.0
 	 * @since 1.0
 	 */
-	protected int getDisjunct(Position position, Player player) {
-		// if (position == null || player == null)
-		// throw new NullPointerException("Both arguments must be non-null.");
-		// if (position.ROWSNUMBER != disjuncts.length || position.COLUMNSNUMBER !=
-		// disjuncts[0].length)
-		// throw new IllegalArgumentException("Incompatible extents.");
-		return disjuncts[position.getRow()][position.getColumn()][player.ordinal()];
+	private long[] generateSymmetricDisjuncts(int m, int n) {
+		final long[] res = new long[m * n * PLAYERS * symmetries.length];
+		for (int cell = 0, i = 0; cell < m * n; ++cell)
+			for (int player = 0; player < PLAYERS; ++player)
+				for (Symmetry s : symmetries) {
+					final int image = s.apply(cell, m, n);
+					res[i++] = disjuncts[image / n][image % n][player];
+				}
+		return res;
 	}
 
 	/**
 	 * Random generated values for every {@link Position}-{@link monkey.ai.Player}
 	 * couple.
 	 */
-	private int disjuncts[][][];
+	private long disjuncts[][][];
 	/** An array containing each available {@link Symmetry}. */
 	final private Symmetry[] symmetries;
-	/** The {@link Symmetry} whose hash code is currently used. */
+	/**
+	 * For each cell, {@link monkey.ai.Player} and {@link Symmetry} of
+	 * {@link #symmetries}, in this order, the disjunct of the image of the cell.
+	 * Never modified, hence shared by clones.
+	 */
+	final private long[] symmetricDisjuncts;
+	/**
+	 * The {@link Symmetry} whose hash code is currently used, or
+	 * <code>null</code> if it has to be computed again.
+	 */
 	private Symmetry symmetryUsed = Symmetry.A;
+	/** The index of {@link #symmetryUsed} in {@link #symmetries}. */
+	private int canonicalIndex = 0;
 	/**
 	 * A (possible) different Zobrist hash code candidate for each
-	 * {@link #Symmetry}.
+	 * {@link Symmetry} of {@link #symmetries}.
 	 */
-	private int[] hashCodeCandidates;
+	private long[] hashCodeCandidates;
 
 }